@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Runs the JMH benchmarks, adding the GC profiler so the allocation rate (gc.alloc.rate.norm, in bytes/op)
+ * is reported alongside ns/op. All the normal JMH command line options can be passed, for example
+ * <code>java -jar benchmarks.jar LatencyManagerBenchmark -p type=HDR</code>.
+ */
+public class BenchmarkMain {
+	public static void main(String[] args) throws Exception {
+		String[] allArgs = args;
+		if (!Arrays.asList(args).contains("-prof")) {
+			allArgs = Arrays.copyOf(args, args.length + 2);
+			allArgs[args.length] = "-prof";
+			allArgs[args.length + 1] = "gc";
+		}
+		org.openjdk.jmh.Main.main(allArgs);
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aerospike.client.Bin;
+import com.aerospike.client.DebugAerospikeClient;
+import com.aerospike.client.DebugAerospikeClient.Granularity;
+import com.aerospike.client.DebugAerospikeClient.Options;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.NoopAerospikeClient;
+import com.aerospike.client.Record;
+
+/**
+ * Measures the per-call overhead the DebugAerospikeClient adds on top of its delegate. The delegate does
+ * nothing, so the difference between the <code>direct</code> and <code>wrapped</code> benchmarks is the
+ * cost of the wrapper. The periodic output is discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DebugAerospikeClientBenchmark {
+	@Param({"NEVER", "EVERY_SECOND"})
+	public String granularity;
+
+	private IAerospikeClient delegate;
+	private IAerospikeClient client;
+	private final Key key = new Key("test", "testSet", "benchmarkKey");
+	private final Bin bin = new Bin("value", 12345L);
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		delegate = new NoopAerospikeClient();
+		PrintStream discard = new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		});
+		Granularity logging = Granularity.valueOf(granularity);
+		client = new DebugAerospikeClient(delegate, new Options(logging, logging, logging, discard));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		client.close();
+	}
+
+	@Benchmark
+	public Record getDirect() {
+		return delegate.get(null, key);
+	}
+
+	@Benchmark
+	public Record getWrapped() {
+		return client.get(null, key);
+	}
+
+	@Benchmark
+	public void putDirect() {
+		delegate.put(null, key, bin);
+	}
+
+	@Benchmark
+	public void putWrapped() {
+		client.put(null, key, bin);
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aerospike.client.ExponentialLatencyManager;
+import com.aerospike.client.HdrLatencyManager;
+import com.aerospike.client.LatencyManager;
+import com.aerospike.client.LinearLatencyManager;
+
+/**
+ * Measures the cost of LatencyManager.add() as the number of threads recording into one manager grows.
+ * HDR has no buckets of its own so it measures just the AbstractLatencyManager recording path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatencyManagerBenchmark {
+	private static final int LATENCIES = 4096;
+
+	@State(Scope.Benchmark)
+	public static class Manager {
+		@Param({"LINEAR", "EXPONENTIAL", "HDR"})
+		public String type;
+
+		LatencyManager latencyManager;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			switch (type) {
+			case "LINEAR":
+				latencyManager = new LinearLatencyManager(20, 1, false, true);
+				break;
+			case "EXPONENTIAL":
+				latencyManager = new ExponentialLatencyManager(7, 1, false);
+				break;
+			case "HDR":
+				latencyManager = new HdrLatencyManager(2);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown latency manager type " + type);
+			}
+		}
+	}
+
+	/**
+	 * A spread of latencies from 100us to about 50ms so that all the buckets get used.
+	 */
+	@State(Scope.Thread)
+	public static class Latencies {
+		final long[] latencies = new long[LATENCIES];
+		int index;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			Random rand = new Random(Thread.currentThread().getId());
+			for (int i = 0; i < LATENCIES; i++) {
+				latencies[i] = 100 + (long)Math.pow(2, rand.nextDouble() * 19);
+			}
+		}
+
+		long next() {
+			return latencies[index++ & (LATENCIES - 1)];
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void add_1Thread(Manager manager, Latencies latencies) {
+		manager.latencyManager.add(latencies.next(), 0, 1);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void add_4Threads(Manager manager, Latencies latencies) {
+		manager.latencyManager.add(latencies.next(), 0, 1);
+	}
+
+	@Benchmark
+	@Threads(16)
+	public void add_16Threads(Manager manager, Latencies latencies) {
+		manager.latencyManager.add(latencies.next(), 0, 1);
+	}
+
+	@Benchmark
+	@Threads(64)
+	public void add_64Threads(Manager manager, Latencies latencies) {
+		manager.latencyManager.add(latencies.next(), 0, 1);
+	}
+}
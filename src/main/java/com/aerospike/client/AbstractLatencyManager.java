@@ -17,107 +17,228 @@
 package com.aerospike.client;
 
 import java.io.PrintStream;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicLongArray;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public abstract class AbstractLatencyManager implements LatencyManager {
 	protected static final long NS_TO_US = 1000;
 	protected static final long US_TO_MS = 1000;
 	protected static final long NS_TO_MS = NS_TO_US * US_TO_MS;
+	/** The highest latency tracked by the percentile histogram, 10 minutes */
+	protected static final long HIGHEST_TRACKABLE_US = 10L * 60 * 1000 * 1000;
+	/** Percentiles are computed from a compact log-linear histogram: 1 significant digit from 1us to 10 minutes is 432 buckets */
+	private static final LogLinearBuckets DEFAULT_PERCENTILE_LAYOUT = new LogLinearBuckets(1, HIGHEST_TRACKABLE_US);
+	private static final double[] DEFAULT_PERCENTILES = new double[] {95.0, 99.0};
+	/** Asking for this percentile gives the exact maximum */
+	public static final double MAX_PERCENTILE = 100.0;
+	private static final int PERCENTILE_COLUMN_WIDTH = 9;
+	private static final String CUMULATIVE_PREFIX = "cum-";
 	private String header;
-	// ycsb variables
-	private AtomicInteger _buckets;
-	private AtomicLongArray histogram;
-	private AtomicLong histogramoverflow;
-	private AtomicInteger operations;
-	private AtomicLong totallatency;
-	//keep a windowed version of these stats for printing status
-	private AtomicInteger windowoperations;
-	private AtomicLong windowtotallatency;
-	private AtomicLong min;
-	private AtomicLong max;
-	private AtomicLong windowMin;
-	private AtomicLong windowMax;
-	private AtomicLong count;
-	private AtomicLong success;
+	/** The most stripes given to the managers which break a category down by node, operation or batch size */
+	static final int BREAKDOWN_STRIPES = 8;
+	// All recording goes into the striped recorder, the remaining state is only touched by the reporting thread.
+	private StripedLatencyRecorder recorder;
+	private final LogLinearBuckets percentileLayout;
+	private final long[] raw;
+	private final long[] buckets;
+	private final IntervalHistogram interval;
+	private final IntervalHistogram cumulative;
+	// Published for other threads, guarded by the monitor of lastInterval, as are cumulative and lastBuckets
+	private final IntervalHistogram lastInterval;
+	private final long[] lastBuckets;
+	private final List<SnapshotCursor> cursors = new CopyOnWriteArrayList<SnapshotCursor>();
+	private long intervalStartTimeMs;
+	private double[] percentiles = DEFAULT_PERCENTILES;
+	private boolean showCumulativePercentiles = false;
+	private long[] percentileValues;
+	private int[] cumulativeColumnWidths;
 	private final String decimalFormatString;
 	private final int decimalPlaces;
+	// For rendering the columns, only used by the reporting thread
+	private final char[] cell = new char[64];
+	private final char zeroDigit;
+	private final char decimalSeparator;
+	private final long percentScale;
+	private final long maxExactPercentValue;
 
-	public abstract void printLatencyResults(PrintStream stream, String prefix);
-
-	protected AbstractLatencyManager() {
-		this(0);
-	}
-	protected AbstractLatencyManager(int columnDecimalPoints) {
-		// ycsb variables
-		_buckets = new AtomicInteger(1000);
-		histogram = new AtomicLongArray(_buckets.get());
-		histogramoverflow = new AtomicLong(0);
-		operations = new AtomicInteger(0);
-		totallatency = new AtomicLong(0);
-		windowoperations = new AtomicInteger(0);
-		windowtotallatency = new AtomicLong(0);
-		min = new AtomicLong(-1);
-		max = new AtomicLong(-1);
-		windowMin = new AtomicLong(-1);
-		windowMax = new AtomicLong(-1);
-		count = new AtomicLong(0);
-		success = new AtomicLong(0);
+	/**
+	 * Print the bucket columns for this interval
+	 * @param buckets - the number of operations which fell into each bucket during the interval. This array
+	 * is re-used between calls so must not be retained.
+	 */
+	public abstract void printLatencyResults(PrintStream stream, String prefix, long[] buckets);
+
+	/**
+	 * Determine which bucket the passed latency falls into.
+	 */
+	protected abstract int getIndex(long elapsedUs);
+
+	/**
+	 * Form the header, including the <code>formHeaderSuffix()</code>. This is called again if the
+	 * percentiles being shown are changed.
+	 */
+	protected abstract void formHeader();
+
+	protected AbstractLatencyManager(int buckets) {
+		this(buckets, 0);
+	}
+	protected AbstractLatencyManager(int buckets, int columnDecimalPoints) {
+		this(buckets, columnDecimalPoints, DEFAULT_PERCENTILE_LAYOUT);
+	}
+	/**
+	 * @param percentileLayout - the layout of the histogram the percentiles are computed from. A subclass which
+	 * records into a log-linear histogram anyway can pass its own layout and zero buckets to avoid recording twice.
+	 */
+	protected AbstractLatencyManager(int buckets, int columnDecimalPoints, LogLinearBuckets percentileLayout) {
+		this.percentileLayout = percentileLayout;
+		this.recorder = new StripedLatencyRecorder(buckets, percentileLayout.getBucketCount());
+		this.raw = new long[recorder.getWidth()];
+		this.buckets = new long[buckets];
+		this.lastBuckets = new long[buckets];
+		this.interval = new IntervalHistogram(percentileLayout);
+		this.cumulative = new IntervalHistogram(percentileLayout);
+		this.lastInterval = new IntervalHistogram(percentileLayout);
+		this.intervalStartTimeMs = System.currentTimeMillis();
+		this.percentileValues = new long[percentiles.length];
+		this.cumulativeColumnWidths = formCumulativeColumnWidths(percentiles);
 		this.decimalPlaces = columnDecimalPoints;
 		this.decimalFormatString = "%." + decimalPlaces + "f%%";
+		// The same symbols as String.format() uses
+		DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+		this.zeroDigit = symbols.getZeroDigit();
+		this.decimalSeparator = symbols.getDecimalSeparator();
+		long scale = 100;
+		for (int i = 0; i < decimalPlaces && scale > 0; i++) {
+			scale = scale > Long.MAX_VALUE / 10 ? 0 : scale * 10;
+		}
+		this.percentScale = scale;
+		this.maxExactPercentValue = scale == 0 ? -1 : Long.MAX_VALUE / scale;
 	}
 
-	protected String formHeaderSuffix() {
-		StringBuilder s = new StringBuilder(64);
-		String[] headings = new String[] {"     avg", "     min", "      max", "  95th%", "  99th%", "  count", " success", "   recs"};
-		for (String str : headings) {
-			s.append(str);
+	/**
+	 * Set the percentiles shown on each line, for example <code>setPercentiles(50, 90, 99, 99.9, 99.99, MAX_PERCENTILE)</code>.
+	 * The percentiles are of the operations in the interval being reported. The default is the 95th and 99th.
+	 */
+	public AbstractLatencyManager setPercentiles(double ... percentiles) {
+		double[] sorted = percentiles.clone();
+		Arrays.sort(sorted);
+		for (double percentile : sorted) {
+			if (percentile <= 0 || percentile > MAX_PERCENTILE) {
+				throw new IllegalArgumentException("Percentiles must be greater than 0 and at most 100, not " + percentile);
+			}
 		}
-		return s.toString();
+		this.percentiles = sorted;
+		this.percentileValues = new long[sorted.length];
+		this.cumulativeColumnWidths = formCumulativeColumnWidths(sorted);
+		formHeader();
+		return this;
 	}
 
-	public void add(long elapsedUs, int count, int success) {
-		/*
-		 * ycsb calculations
-		 */
-		// Latency is specified in ns
-		long latencyUs = elapsedUs;
-		long latencyMs = latencyUs / 1000;
-		if (latencyMs >= _buckets.get()) {
-			histogramoverflow.incrementAndGet();
-		} else {
-			int latency = (int)latencyMs;
-			histogram.incrementAndGet(latency);
+	/**
+	 * Also show the same percentiles over all operations since the latency manager was created.
+	 */
+	public AbstractLatencyManager setShowCumulativePercentiles(boolean showCumulativePercentiles) {
+		this.showCumulativePercentiles = showCumulativePercentiles;
+		formHeader();
+		return this;
+	}
+
+	public double[] getPercentiles() {
+		return percentiles.clone();
+	}
+
+	public boolean isShowCumulativePercentiles() {
+		return showCumulativePercentiles;
+	}
+
+	/**
+	 * Copy the settings of this latency manager into a duplicate of it.
+	 */
+	protected LatencyManager copySettings(AbstractLatencyManager duplicate) {
+		duplicate.percentiles = this.percentiles;
+		duplicate.percentileValues = new long[percentiles.length];
+		duplicate.cumulativeColumnWidths = this.cumulativeColumnWidths;
+		duplicate.showCumulativePercentiles = this.showCumulativePercentiles;
+		duplicate.formHeader();
+		return duplicate;
+	}
+
+	/**
+	 * Duplicate a latency manager to record a part of a category, such as one node or one operation. There can
+	 * be dozens of these, so they are given fewer stripes than the category's own manager: each stripe holds a
+	 * full copy of the buckets and percentile buckets.
+	 */
+	static LatencyManager duplicateForBreakdown(LatencyManager template) {
+		LatencyManager duplicate = template.duplicate();
+		if (duplicate instanceof AbstractLatencyManager) {
+			AbstractLatencyManager manager = (AbstractLatencyManager)duplicate;
+			int stripes = Math.min(BREAKDOWN_STRIPES, StripedLatencyRecorder.defaultStripes());
+			// Nothing has recorded into the duplicate yet, so its recorder can simply be replaced
+			manager.recorder = new StripedLatencyRecorder(manager.buckets.length, manager.percentileLayout.getBucketCount(), stripes);
 		}
-		operations.incrementAndGet();
-		totallatency.addAndGet(latencyUs);
-		windowoperations.incrementAndGet();
-		windowtotallatency.addAndGet(latencyUs);
+		return duplicate;
+	}
 
-		if (count > 0 && this.count != null) {
-			this.count.addAndGet(count);
+	private static String formPercentileHeading(double percentile) {
+		if (percentile == MAX_PERCENTILE) {
+			return "max";
 		}
-		if (success > 0) {
-			this.success.addAndGet(success);
+		String number = Double.toString(percentile);
+		if (number.endsWith(".0")) {
+			number = number.substring(0, number.length() - 2);
 		}
-		
-		if ((min.get() < 0) || (latencyUs < min.get())) {
-			min.set(latencyUs);
+		return "p" + number;
+	}
+
+	private static int getPercentileColumnWidth(String heading) {
+		return Math.max(PERCENTILE_COLUMN_WIDTH, heading.length() + 1);
+	}
+
+	private static int[] formCumulativeColumnWidths(double[] percentiles) {
+		int[] widths = new int[percentiles.length];
+		for (int i = 0; i < percentiles.length; i++) {
+			widths[i] = getPercentileColumnWidth(CUMULATIVE_PREFIX + formPercentileHeading(percentiles[i]));
 		}
+		return widths;
+	}
 
-		if ((max.get() < 0) || (latencyUs > max.get())) {
-			max.set(latencyUs);
+	private static void appendHeading(StringBuilder s, String heading) {
+		for (int i = heading.length(); i < getPercentileColumnWidth(heading); i++) {
+			s.append(' ');
 		}
+		s.append(heading);
+	}
 
-		if ((windowMin.get() < 0) || (latencyUs < windowMin.get())) {
-			windowMin.set(latencyUs);
+	protected String formHeaderSuffix() {
+		StringBuilder s = new StringBuilder(64);
+		s.append("     avg").append("     min").append("      max");
+		for (double percentile : percentiles) {
+			appendHeading(s, formPercentileHeading(percentile));
 		}
+		if (showCumulativePercentiles) {
+			for (double percentile : percentiles) {
+				appendHeading(s, CUMULATIVE_PREFIX + formPercentileHeading(percentile));
+			}
+		}
+		s.append("  count").append("    ops/s").append(" success").append("   recs");
+		return s.toString();
+	}
 
-		if ((windowMax.get() < 0) || (latencyUs > windowMax.get())) {
-			windowMax.set(latencyUs);
+	public void add(long elapsedUs, int count, int success) {
+		recorder.record(getIndex(elapsedUs), percentileLayout.getIndex(elapsedUs), elapsedUs, count, success);
+	}
+
+	/**
+	 * Get a copy of the buckets of the interval most recently ended. Reading this does not affect the
+	 * recording, so it is safe from any thread.
+	 */
+	protected long[] getLastIntervalBuckets() {
+		synchronized (lastInterval) {
+			return lastBuckets.clone();
 		}
-		//System.out.printf("current = %d, windowMin = %d, windowMax = %d\n", latencyUs, windowMin.get(), windowMax.get());
 	}
 
 	public void printHeader(PrintStream stream) {	
@@ -126,124 +247,260 @@ public abstract class AbstractLatencyManager implements LatencyManager {
 	
 	/**
 	 * Print latency percents for specified cumulative ranges.
-	 * This function is not absolutely accurate for a given time slice because this method 
-	 * is not synchronized with the add() method.  Some values will slip into the next iteration.  
-	 * It is not a good idea to add extra locks just to measure performance since that actually 
-	 * affects performance.  Fortunately, the values will even out over time
-	 * (ie. no double counting).
+	 * The recording is double buffered: this method atomically switches add() to a spare set of
+	 * counters and prints the ones which were active, so every column on the line describes exactly
+	 * the same set of operations. add() is never blocked by this.
 	 */
 	public void printResults(PrintStream stream, String prefix) {
-		if (this.count.get() == 0 && this.success.get() == 0) {
-			return;
-		}
-		printLatencyResults(stream, prefix);
-		/*
-		 * ycsb print results
-		 */
-		double windowAvgLatency = (((double) windowtotallatency.get()) / ((double) windowoperations.get()));
-
-		int opcounter = 0;
-		boolean done95th = false;
-		int ninetyFifth = 0;
-		int ninetyNinth = 0;
-		for (int i = 0; i < _buckets.get(); i++) {
-			opcounter += histogram.get(i);
-			double percentage = ((double) opcounter) / ((double) operations.get());
-			if ((!done95th) && percentage >= 0.95) {
-				ninetyFifth = i;
-				done95th = true;
-			}
-			if (percentage >= 0.99) {
-				ninetyNinth = i;
-				break;
+		if (endInterval()) {
+			printInterval(stream, prefix);
+		}
+	}
+
+	public boolean endInterval() {
+		long now = System.currentTimeMillis();
+		if (recorder.sum(StripedLatencyRecorder.OPERATIONS) == 0) {
+			// Nothing to report, but the next interval starts now so its throughput is over the right time
+			intervalStartTimeMs = now;
+			return false;
+		}
+		recorder.drain(raw);
+		interval.load(raw, recorder.getPercentileBucketOffset(), intervalStartTimeMs, now);
+		intervalStartTimeMs = now;
+		System.arraycopy(raw, recorder.getBucketOffset(), buckets, 0, buckets.length);
+
+		synchronized (lastInterval) {
+			cumulative.add(interval);
+			lastInterval.set(interval);
+			System.arraycopy(buckets, 0, lastBuckets, 0, buckets.length);
+		}
+		for (SnapshotCursor cursor : cursors) {
+			cursor.add(interval);
+		}
+		return true;
+	}
+
+	public void printInterval(PrintStream stream, String prefix) {
+		printLatencyResults(stream, prefix, buckets);
+		printColumn(stream, 8, interval.getMeanUs()/1000.0, "ms");
+		printColumn(stream, 8, interval.getMinUs()/1000.0, "ms");
+		printColumn(stream, 9, interval.getMaxUs()/1000.0, "ms");
+		interval.getValuesAtPercentiles(percentiles, percentileValues);
+		for (int i = 0; i < percentileValues.length; i++) {
+			printLatencyColumn(stream, PERCENTILE_COLUMN_WIDTH, percentileValues[i]);
+		}
+		if (showCumulativePercentiles) {
+			cumulative.getValuesAtPercentiles(percentiles, percentileValues);
+			for (int i = 0; i < percentileValues.length; i++) {
+				printLatencyColumn(stream, cumulativeColumnWidths[i], percentileValues[i]);
 			}
 		}
-		printColumn(stream, 8, windowAvgLatency/1000.0, "ms");
-		printColumn(stream, 8, windowMin.get()/1000.0, "ms");
-		printColumn(stream, 9, windowMax.get()/1000.0, "ms");
-		printColumn(stream, 7, ninetyFifth, "ms");
-		printColumn(stream, 7, ninetyNinth, "ms");
-		printColumn(stream, 7, windowoperations.get(), "");
-		printColumn(stream, 8, (int)this.success.get(), "");
-		printColumn(stream, 7, this.count == null ? -1 : (int)this.count.get(), "");
+		printColumn(stream, 7, interval.getOperations(), "");
+		printColumn(stream, 9, Math.round(interval.getOperationsPerSecond()), "");
+		printColumn(stream, 8, interval.getSuccess(), "");
+		printColumn(stream, 7, interval.getCount(), "");
 
 		stream.println();
-		windowoperations.set(0);
-		windowtotallatency.set(0);
-		windowMin.set(-1);
-		windowMax.set(-1);
-		if (this.count != null) {
-			this.count.set(0);
+	}
+
+	/**
+	 * Get a copy of the interval most recently ended by <code>printResults</code> or <code>endInterval</code>, for example to encode it and
+	 * send it somewhere it can be merged with the intervals of other processes. The histogram is empty if no
+	 * interval with any operations has ended yet.
+	 */
+	public IntervalHistogram getLastInterval() {
+		synchronized (lastInterval) {
+			return new IntervalHistogram(lastInterval);
 		}
-		this.success.set(0);
 	}
 
-	protected void printColumn(PrintStream stream, int limit, double sum, int value) {
-		this.printColumn(stream, limit, sum, value, 0);
+	/**
+	 * Get a copy of all the intervals ended so far merged together. Reading this does not affect the
+	 * intervals, so any number of readers can use it.
+	 */
+	public IntervalHistogram getCumulative() {
+		synchronized (lastInterval) {
+			return new IntervalHistogram(cumulative);
+		}
 	}
 
-	protected void printColumn(PrintStream stream, int limit, double sum, int value, int decimalPlaces) {
-        long percent = 0;
+	public LatencySnapshot getSnapshot() {
+		synchronized (lastInterval) {
+			return new LatencySnapshot(new IntervalHistogram(cumulative));
+		}
+	}
 
-        String percentString;
-        if (sum == 0) {
-        	// No results
-        	percentString = "---";
-        }
-        else if (decimalPlaces == 0) {
-            if (value > 0) {
-                percent = Math.round(value * 100.0 / sum);
-            }
-            percentString = Long.toString(percent) + "%";
-        }
-        else {
-        		percentString = String.format(decimalFormatString, value * 100.0 / sum);
-        }
-        int spaces = Integer.toString(limit).length() + 4 - percentString.length() + (decimalPlaces > 0 ? 1+decimalPlaces : 0);
+	public SnapshotCursor newCursor() {
+		SnapshotCursor cursor = new SnapshotCursor(this, new IntervalHistogram(percentileLayout));
+		cursors.add(cursor);
+		return cursor;
+	}
 
-        for (int j = 0; j < spaces; j++) {
-        		stream.print(' ');
-        }
-        stream.print(percentString);
+	void removeCursor(SnapshotCursor cursor) {
+		cursors.remove(cursor);
 	}
 
-	protected void printColumn(PrintStream stream, int limit, int value) {
-		String data = Integer.toString(value);      
-		int spaces = Integer.toString(limit).length() + 4 - data.length();
+	/**
+	 * Print a latency, in microseconds below 10ms and in milliseconds above that.
+	 */
+	protected void printLatencyColumn(PrintStream stream, int width, long valueUs) {
+		if (valueUs < 0 || valueUs >= 10 * US_TO_MS) {
+			printColumn(stream, width, valueUs / (double)US_TO_MS, "ms");
+		}
+		else {
+			printColumn(stream, width, valueUs, "us");
+		}
+	}
 
-		for (int j = 0; j < spaces; j++) {
-			stream.print(' ');
+	protected void printColumn(PrintStream stream, int limit, double sum, long value) {
+		this.printColumn(stream, limit, sum, value, 0);
+	}
+
+	protected void printColumn(PrintStream stream, int limit, double sum, long value, int decimalPlaces) {
+		int start;
+		if (sum == 0) {
+			// No results
+			start = putString("---", cell.length);
+		}
+		else if (decimalPlaces == 0) {
+			long percent = 0;
+			if (value > 0) {
+				percent = Math.round(value * 100.0 / sum);
+			}
+			start = putDigits(percent, putString("%", cell.length), '0');
+		}
+		else {
+			start = putPercent(value, sum, putString("%", cell.length));
 		}
-		stream.print(data);
+		int spaces = stringLength(limit) + 4 - (cell.length - start) + (decimalPlaces > 0 ? 1+decimalPlaces : 0);
+		printCell(stream, spaces, start);
 	}
 
-	protected void printColumn(PrintStream stream, int width, int value, String suffix) {
-		String data = Integer.toString(value) + suffix;      
+	protected void printColumn(PrintStream stream, int limit, int value) {
+		int start = putLong(value, cell.length);
+		printCell(stream, stringLength(limit) + 4 - (cell.length - start), start);
+	}
+
+	protected void printColumn(PrintStream stream, int width, long value, String suffix) {
+		int start = value < 0 ? putString("N/A", cell.length) : putDigits(value, putString(suffix, cell.length), '0');
+		printCell(stream, width - (cell.length - start), start);
+	}
+
+	protected void printColumn(PrintStream stream, int width, double value, String suffix) {
+		int start;
 		if (value < 0) {
-			data = "N/A";
+			start = putString("N/A", cell.length);
+		}
+		else if (value >= 1e15 || Double.isNaN(value)) {
+			// Too large for tenths to be exact in a long, which no latency gets near
+			start = putString(String.format("%.1f%s", value, suffix), cell.length);
+		}
+		else {
+			start = putFixed(roundToTenths(value), 1, putString(suffix, cell.length));
 		}
-		int spaces = width - data.length();
+		printCell(stream, width - (cell.length - start), start);
+	}
+
+	/*
+	 * The columns are rendered right to left into the end of a reused array, so printing a line does not
+	 * allocate. The results are the same as the Long.toString() and String.format() calls they replace.
+	 */
 
-		for (int j = 0; j < spaces; j++) {
+	private void printCell(PrintStream stream, int spaces, int start) {
+		// Pad inside the array too, so that the whole cell is printed in one call
+		int padding = Math.min(Math.max(spaces, 0), start);
+		for (int j = padding; j < spaces; j++) {
 			stream.print(' ');
 		}
-		stream.print(data);
+		Arrays.fill(cell, start - padding, start, ' ');
+		start -= padding;
+		if (stream instanceof ReportStream) {
+			((ReportStream)stream).write(cell, start, cell.length - start);
+		}
+		else {
+			stream.print(new String(cell, start, cell.length - start));
+		}
 	}
 
-	protected void printColumn(PrintStream stream, int width, double value, String suffix) {
-		String data = String.format("%.1f%s", value, suffix);
-		if (value < 0) {
-			data = "N/A";
+	private int putString(String s, int end) {
+		int start = end - s.length();
+		s.getChars(0, s.length(), cell, start);
+		return start;
+	}
+
+	private int putDigits(long value, int end, char zero) {
+		do {
+			cell[--end] = (char)(zero + value % 10);
+			value /= 10;
+		} while (value > 0);
+		return end;
+	}
+
+	private int putLong(long value, int end) {
+		if (value < 0 && value != Long.MIN_VALUE) {
+			end = putDigits(-value, end, '0');
+			cell[--end] = '-';
+			return end;
 		}
-		int spaces = width - data.length();
+		return value < 0 ? putString(Long.toString(value), end) : putDigits(value, end, '0');
+	}
 
-		for (int j = 0; j < spaces; j++) {
-			stream.print(' ');
+	/**
+	 * Put a non-negative number of units of 10^-decimals with the default locale's digits and decimal
+	 * separator, as "%.nf" would.
+	 */
+	private int putFixed(long scaled, int decimals, int end) {
+		for (int i = 0; i < decimals; i++) {
+			cell[--end] = (char)(zeroDigit + scaled % 10);
+			scaled /= 10;
+		}
+		if (decimals > 0) {
+			cell[--end] = decimalSeparator;
+		}
+		return putDigits(scaled, end, zeroDigit);
+	}
+
+	/**
+	 * Put value / sum as a percentage to the configured number of decimal places, rounding half up as
+	 * "%.nf" does. The counts are whole numbers so this can be done exactly in integers.
+	 */
+	private int putPercent(long value, double sum, int end) {
+		long total = (long)sum;
+		if (value < 0 || value > maxExactPercentValue || total <= 0 || total != sum) {
+			return putString(String.format(decimalFormatString, value * 100.0 / sum), end);
+		}
+		long numerator = value * percentScale;
+		long scaled = numerator / total;
+		if (2 * (numerator % total) >= total) {
+			scaled++;
+		}
+		return putFixed(scaled, decimalPlaces, end);
+	}
+
+	/**
+	 * Round a non-negative value to tenths the way "%.1f" does: half up, applied to the shortest decimal
+	 * which represents the double. A decimal is at or below that if its nearest double is at or below the value.
+	 */
+	static long roundToTenths(double value) {
+		long tenths = (long)(value * 10);
+		while (tenths > 0 && tenths / 10.0 > value) {
+			tenths--;
+		}
+		while ((tenths + 1) / 10.0 <= value) {
+			tenths++;
+		}
+		return (tenths * 10 + 5) / 100.0 <= value ? tenths + 1 : tenths;
+	}
+
+	private static int stringLength(long value) {
+		int length = value < 0 ? 2 : 1;
+		for (long remaining = Math.abs(value / 10); remaining > 0; remaining /= 10) {
+			length++;
 		}
-		stream.print(data);
+		return length;
 	}
 
 	public long getOperations() {
-		return operations.get();
+		return cumulative.getOperations() + recorder.sum(StripedLatencyRecorder.OPERATIONS);
 	}
 }
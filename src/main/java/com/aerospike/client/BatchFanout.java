@@ -0,0 +1,219 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import com.aerospike.client.cluster.PartitionNodeTable;
+
+/**
+ * Works out how each batch call is split between the nodes: how many nodes it fans out to and the largest
+ * share of its keys which go to any one node. Each batch is counted against a class of fan-out width and a
+ * class of largest share, and the reporting thread shows the average latency of each class and how strongly
+ * latency correlates with each measure. A batch which is slow because it waits for every node shows up as a
+ * correlation with width, one which is slow because one node gets most of the keys as a correlation with share.
+ * <p/>
+ * The keys are grouped by node with one lookup per key in the <code>PartitionNodeTable</code>, counted into a
+ * per-thread array which is reused, so the only cost per batch beyond that is a pass over the nodes. The same
+ * counts give each node's keys for the per node batch latencies.
+ */
+class BatchFanout {
+	private static final String[] WIDTH_LABELS = {"1", "2-3", "4-7", "8-15", "16+"};
+	private static final String[] SHARE_LABELS = {"<=25%", "<=50%", "<=75%", "<100%", "100%"};
+
+	private final PartitionNodeTable nodeTable;
+	private final NodeLatencyManagers nodeLatency;
+	private final boolean analyse;
+	// Per-thread counts of the keys and found keys sent to each node by a batch call
+	private final ThreadLocal<int[]> batchCounts = new ThreadLocal<int[]>();
+
+	// Batches and total latency of each width and share class, in pairs
+	private final AtomicLongArray widthStats = new AtomicLongArray(2 * WIDTH_LABELS.length);
+	private final AtomicLongArray shareStats = new AtomicLongArray(2 * SHARE_LABELS.length);
+	// Sums for the correlations, where x is the latency in ms
+	private final DoubleAdder n = new DoubleAdder();
+	private final DoubleAdder sumX = new DoubleAdder();
+	private final DoubleAdder sumXX = new DoubleAdder();
+	private final DoubleAdder sumWidth = new DoubleAdder();
+	private final DoubleAdder sumWidthWidth = new DoubleAdder();
+	private final DoubleAdder sumXWidth = new DoubleAdder();
+	private final DoubleAdder sumShare = new DoubleAdder();
+	private final DoubleAdder sumShareShare = new DoubleAdder();
+	private final DoubleAdder sumXShare = new DoubleAdder();
+
+	/**
+	 * @param nodeLatency - the per node batch latencies to add each node's keys to, or null
+	 * @param analyse - whether to record the fan-out width and share of each batch
+	 */
+	BatchFanout(PartitionNodeTable nodeTable, NodeLatencyManagers nodeLatency, boolean analyse) {
+		this.nodeTable = nodeTable;
+		this.nodeLatency = nodeLatency;
+		this.analyse = analyse;
+	}
+
+	/**
+	 * Start counting the keys of a batch call which go to each node. The counts are in a per-thread array
+	 * which must be passed to <code>tally()</code> for each key and then to <code>finish()</code>.
+	 */
+	int[] startTally() {
+		int[] counts = batchCounts.get();
+		int needed = 2 * nodeTable.getNodeCount();
+		if (counts == null || counts.length < needed) {
+			counts = new int[needed];
+			batchCounts.set(counts);
+		}
+		return counts;
+	}
+
+	/**
+	 * Count a key of the batch against its node.
+	 */
+	void tally(int[] counts, Key key, boolean found) {
+		int nodeIndex = nodeTable.getNodeIndex(key);
+		if (nodeIndex >= 0 && 2 * nodeIndex + 1 < counts.length) {
+			counts[2 * nodeIndex]++;
+			if (found) {
+				counts[2 * nodeIndex + 1]++;
+			}
+		}
+	}
+
+	/**
+	 * Record the batch call and clear the counts. Each node is given the latency of the whole call, since
+	 * that is what the node's keys waited for, with its own key and found counts.
+	 */
+	void finish(int[] counts, long elapsedUs) {
+		int width = 0;
+		int keys = 0;
+		int largest = 0;
+		for (int node = 0; 2 * node < counts.length; node++) {
+			int nodeKeys = counts[2 * node];
+			if (nodeKeys > 0) {
+				if (nodeLatency != null) {
+					nodeLatency.add(node, elapsedUs, nodeKeys, counts[2 * node + 1]);
+				}
+				width++;
+				keys += nodeKeys;
+				largest = Math.max(largest, nodeKeys);
+				counts[2 * node] = 0;
+				counts[2 * node + 1] = 0;
+			}
+		}
+		if (analyse && width > 0) {
+			record(elapsedUs, width, (double)largest / keys);
+		}
+	}
+
+	static int getWidthClass(int width) {
+		int widthClass = 31 - Integer.numberOfLeadingZeros(width);
+		return Math.min(widthClass, WIDTH_LABELS.length - 1);
+	}
+
+	static int getShareClass(double share) {
+		if (share >= 1.0) {
+			return SHARE_LABELS.length - 1;
+		}
+		return Math.min((int)Math.ceil(share * 4) - 1, SHARE_LABELS.length - 2);
+	}
+
+	private void record(long elapsedUs, int width, double share) {
+		int widthClass = getWidthClass(width);
+		widthStats.incrementAndGet(2 * widthClass);
+		widthStats.addAndGet(2 * widthClass + 1, elapsedUs);
+		int shareClass = getShareClass(share);
+		shareStats.incrementAndGet(2 * shareClass);
+		shareStats.addAndGet(2 * shareClass + 1, elapsedUs);
+
+		double x = elapsedUs / 1000.0;
+		n.add(1);
+		sumX.add(x);
+		sumXX.add(x * x);
+		sumWidth.add(width);
+		sumWidthWidth.add(width * width);
+		sumXWidth.add(x * width);
+		sumShare.add(share);
+		sumShareShare.add(share * share);
+		sumXShare.add(x * share);
+	}
+
+	/**
+	 * Pearson's correlation coefficient from the sums, or NaN if either variable did not vary.
+	 */
+	static double correlation(double n, double sumX, double sumXX, double sumY, double sumYY, double sumXY) {
+		double varianceX = n * sumXX - sumX * sumX;
+		double varianceY = n * sumYY - sumY * sumY;
+		if (varianceX <= 0 || varianceY <= 0) {
+			return Double.NaN;
+		}
+		return (n * sumXY - sumX * sumY) / Math.sqrt(varianceX * varianceY);
+	}
+
+	/**
+	 * End the interval, printing the analysis if there were any batches and <code>print</code> is set. A batch
+	 * which finishes while this runs may be split between this interval and the next.
+	 */
+	void report(PrintStream stream, boolean print) {
+		if (!analyse) {
+			return;
+		}
+		double batches = n.sumThenReset();
+		double x = sumX.sumThenReset();
+		double xx = sumXX.sumThenReset();
+		double w = sumWidth.sumThenReset();
+		double ww = sumWidthWidth.sumThenReset();
+		double xw = sumXWidth.sumThenReset();
+		double s = sumShare.sumThenReset();
+		double ss = sumShareShare.sumThenReset();
+		double xs = sumXShare.sumThenReset();
+		long[] widths = drain(widthStats);
+		long[] shares = drain(shareStats);
+		if (!print || batches == 0) {
+			return;
+		}
+		stream.print("  fan-out: nodes");
+		printClasses(stream, WIDTH_LABELS, widths);
+		stream.print("; largest node share");
+		printClasses(stream, SHARE_LABELS, shares);
+		stream.printf("; correlation with nodes %s, with share %s\n",
+				formatCorrelation(correlation(batches, x, xx, w, ww, xw)), formatCorrelation(correlation(batches, x, xx, s, ss, xs)));
+	}
+
+	private static long[] drain(AtomicLongArray stats) {
+		long[] values = new long[stats.length()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = stats.getAndSet(i, 0);
+		}
+		return values;
+	}
+
+	private static void printClasses(PrintStream stream, String[] labels, long[] stats) {
+		boolean first = true;
+		for (int i = 0; i < labels.length; i++) {
+			long batches = stats[2 * i];
+			if (batches > 0) {
+				stream.printf("%s %s: %,d avg %.3fms", first ? "" : ",", labels[i], batches, stats[2 * i + 1] / 1000.0 / batches);
+				first = false;
+			}
+		}
+	}
+
+	private static String formatCorrelation(double correlation) {
+		return Double.isNaN(correlation) ? "n/a" : String.format("%+.2f", correlation);
+	}
+}
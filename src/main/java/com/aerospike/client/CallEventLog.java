@@ -0,0 +1,223 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.aerospike.client.DebugAerospikeClient.Overflow;
+
+/**
+ * The EVERY_CALL output. Application threads write each call into a fixed-size slot of a preallocated ring
+ * buffer, which takes a compare and set to claim the slot, a few field stores and an ordered store to publish
+ * it. A background thread turns the slots into text and writes them to the stream in batches, so the
+ * application threads never format anything or wait for the stream's lock.
+ * <p/>
+ * When the ring is full, events are either dropped and counted, with the count printed by the background
+ * thread, or the calling thread waits for space, depending on the <code>Overflow</code> policy.
+ */
+class CallEventLog implements Runnable {
+	static final int DEFAULT_CAPACITY = 64 * 1024;
+	// The most events formatted before the text is written to the stream
+	private static final int MAX_BATCH = 256;
+	private static final long IDLE_PARK_NS = TimeUnit.MILLISECONDS.toNanos(1);
+	static final int GET = 0;
+	static final int PUT = 1;
+	static final int BATCH = 2;
+
+	private final PrintStream stream;
+	private final Overflow overflow;
+	private final int mask;
+	// The sequence number + 1 of the event in each slot once it has been published
+	private final AtomicLongArray published;
+	private final int[] types;
+	private final String[] names;
+	private final Key[] keys;
+	private final AerospikeException[] exceptions;
+	private final long[] timesUs;
+	private final int[] totals;
+	private final int[] successes;
+
+	private final AtomicLong claimed = new AtomicLong();
+	private volatile long consumed = 0;
+	private final AtomicLong dropped = new AtomicLong();
+	private volatile boolean running = true;
+	private volatile Thread consumer;
+
+	/**
+	 * @param capacity - the number of events the ring can hold, rounded up to a power of 2
+	 */
+	CallEventLog(PrintStream stream, int capacity, Overflow overflow) {
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		this.stream = stream;
+		this.overflow = overflow;
+		this.mask = size - 1;
+		this.published = new AtomicLongArray(size);
+		this.types = new int[size];
+		this.names = new String[size];
+		this.keys = new Key[size];
+		this.exceptions = new AerospikeException[size];
+		this.timesUs = new long[size];
+		this.totals = new int[size];
+		this.successes = new int[size];
+	}
+
+	/**
+	 * Start the thread which writes the events to the stream.
+	 */
+	void start() {
+		Thread thread = new Thread(this, "debug-aerospike-client-events");
+		thread.setDaemon(true);
+		consumer = thread;
+		thread.start();
+	}
+
+	/**
+	 * Stop accepting events and wait for the background thread to write out those already in the ring.
+	 */
+	void close() {
+		running = false;
+		Thread thread = consumer;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+			try {
+				thread.join(TimeUnit.SECONDS.toMillis(5));
+			}
+			catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	int getCapacity() {
+		return mask + 1;
+	}
+
+	/** The number of events which have been dropped because the ring was full */
+	long getDropped() {
+		return dropped.get();
+	}
+
+	void logGet(String name, Key key, long timeUs, boolean found, AerospikeException ae) {
+		publish(GET, name, key, timeUs, 1, found ? 1 : 0, ae);
+	}
+
+	void logPut(String name, Key key, long timeUs, AerospikeException ae) {
+		publish(PUT, name, key, timeUs, 1, ae == null ? 1 : 0, ae);
+	}
+
+	void logBatch(long timeUs, int total, int successful, AerospikeException ae) {
+		publish(BATCH, null, null, timeUs, total, successful, ae);
+	}
+
+	private void publish(int type, String name, Key key, long timeUs, int total, int successful, AerospikeException ae) {
+		long sequence;
+		while (true) {
+			sequence = claimed.get();
+			if (sequence - consumed > mask) {
+				if (overflow == Overflow.DROP || !running) {
+					dropped.incrementAndGet();
+					return;
+				}
+				LockSupport.parkNanos(1000);
+			}
+			else if (claimed.compareAndSet(sequence, sequence + 1)) {
+				break;
+			}
+		}
+		int slot = (int)sequence & mask;
+		types[slot] = type;
+		names[slot] = name;
+		keys[slot] = key;
+		exceptions[slot] = ae;
+		timesUs[slot] = timeUs;
+		totals[slot] = total;
+		successes[slot] = successful;
+		published.lazySet(slot, sequence + 1);
+	}
+
+	@Override
+	public void run() {
+		StringBuilder text = new StringBuilder(MAX_BATCH * 100);
+		long reportedDropped = 0;
+		while (true) {
+			// Read before draining so no event published before close() is missed
+			boolean stopping = !running;
+			long next = consumed;
+			int events = 0;
+			while (events < MAX_BATCH) {
+				int slot = (int)next & mask;
+				if (published.get(slot) != next + 1) {
+					break;
+				}
+				format(text, types[slot], names[slot], keys[slot], exceptions[slot], timesUs[slot], totals[slot], successes[slot]);
+				names[slot] = null;
+				keys[slot] = null;
+				exceptions[slot] = null;
+				next++;
+				events++;
+			}
+			consumed = next;
+			long droppedNow = dropped.get();
+			if (droppedNow != reportedDropped) {
+				text.append(String.format("*** %,d call events dropped\n", droppedNow - reportedDropped));
+				reportedDropped = droppedNow;
+			}
+			if (text.length() > 0) {
+				stream.print(text);
+				text.setLength(0);
+			}
+			else if (stopping) {
+				return;
+			}
+			else if (events == 0) {
+				LockSupport.parkNanos(this, IDLE_PARK_NS);
+			}
+		}
+	}
+
+	/**
+	 * Append the line for a call, in the EVERY_CALL format.
+	 */
+	static void format(StringBuilder text, int type, String name, Key key, AerospikeException ae, long timeUs, int total, int successful) {
+		double timeMs = timeUs / 1000.0;
+		switch (type) {
+		case BATCH:
+			if (ae != null) {
+				text.append(String.format("Batch: [%d keys] threw %s (%d:%s) in %,.3fms\n", total, ae.getClass(), ae.getResultCode(), ae.getMessage(), timeMs));
+			}
+			else {
+				text.append(String.format("Batch: [%d/%d keys] took %,.3fms\n", successful, total, timeMs));
+			}
+			break;
+		default:
+			if (ae != null) {
+				text.append(String.format("%s: [%s] threw %s (%d:%s) in %,.3fms\n", name, key.toString(), ae.getClass(), ae.getResultCode(), ae.getMessage(), timeMs));
+			}
+			else if (type == GET) {
+				text.append(String.format("%s: [%s] took %,.3fms, record %sfound\n", name, key.toString(), timeMs, successful > 0 ? "" : "not "));
+			}
+			else {
+				text.append(String.format("%s: [%s] took %,.3fms\n", name, key.toString(), timeMs));
+			}
+			break;
+		}
+	}
+}
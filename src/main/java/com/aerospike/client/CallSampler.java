@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.PrintStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Picks calls to log in full while the periodic histograms record every call. Two kinds of sampling can be
+ * used, separately or together:
+ * <ul>
+ * <li>1 in N calls are written out straight away through the <code>CallEventLog</code>, chosen by a random draw.</li>
+ * <li>A reservoir of K calls is kept for each reporting interval and printed with the interval. Each call gets a
+ * random priority and the K calls with the lowest priorities are kept, which is a uniform sample of the interval.
+ * Once the reservoir is full, a call only costs a random draw and a volatile read unless it is taken.</li>
+ * </ul>
+ */
+class CallSampler {
+	private final int oneInN;
+	private final CallEventLog eventLog;
+	private final int reservoirSize;
+	private final LongAdder seen = new LongAdder();
+
+	// The reservoir, guarded by this. A call is only taken if its priority is below the threshold.
+	private final Call[] reservoir;
+	private int reservoirCount;
+	private volatile double threshold = 1.0;
+
+	private static final class Call {
+		final double priority;
+		final int type;
+		final String name;
+		final Key key;
+		final AerospikeException ae;
+		final long timeUs;
+		final int total;
+		final int successful;
+
+		Call(double priority, int type, String name, Key key, AerospikeException ae, long timeUs, int total, int successful) {
+			this.priority = priority;
+			this.type = type;
+			this.name = name;
+			this.key = key;
+			this.ae = ae;
+			this.timeUs = timeUs;
+			this.total = total;
+			this.successful = successful;
+		}
+	}
+
+	/**
+	 * @param oneInN - log 1 in this many calls through the event log, or 0 not to
+	 * @param eventLog - the event log for the 1 in N calls, or null if <code>oneInN</code> is 0
+	 * @param reservoirSize - the number of calls to keep for each interval, or 0 not to
+	 */
+	CallSampler(int oneInN, CallEventLog eventLog, int reservoirSize) {
+		this.oneInN = oneInN;
+		this.eventLog = oneInN > 0 ? eventLog : null;
+		this.reservoirSize = reservoirSize;
+		this.reservoir = new Call[reservoirSize];
+	}
+
+	void sampleGet(String name, Key key, long timeUs, boolean found, AerospikeException ae) {
+		if (eventLog != null && ThreadLocalRandom.current().nextInt(oneInN) == 0) {
+			eventLog.logGet(name, key, timeUs, found, ae);
+		}
+		if (reservoirSize > 0) {
+			offer(CallEventLog.GET, name, key, ae, timeUs, 1, found ? 1 : 0);
+		}
+	}
+
+	void samplePut(String name, Key key, long timeUs, AerospikeException ae) {
+		if (eventLog != null && ThreadLocalRandom.current().nextInt(oneInN) == 0) {
+			eventLog.logPut(name, key, timeUs, ae);
+		}
+		if (reservoirSize > 0) {
+			offer(CallEventLog.PUT, name, key, ae, timeUs, 1, ae == null ? 1 : 0);
+		}
+	}
+
+	void sampleBatch(long timeUs, int total, int successful, AerospikeException ae) {
+		if (eventLog != null && ThreadLocalRandom.current().nextInt(oneInN) == 0) {
+			eventLog.logBatch(timeUs, total, successful, ae);
+		}
+		if (reservoirSize > 0) {
+			offer(CallEventLog.BATCH, null, null, ae, timeUs, total, successful);
+		}
+	}
+
+	private void offer(int type, String name, Key key, AerospikeException ae, long timeUs, int total, int successful) {
+		seen.increment();
+		double priority = ThreadLocalRandom.current().nextDouble();
+		if (priority >= threshold) {
+			return;
+		}
+		synchronized (this) {
+			if (reservoirCount < reservoirSize) {
+				reservoir[reservoirCount++] = new Call(priority, type, name, key, ae, timeUs, total, successful);
+				if (reservoirCount == reservoirSize) {
+					threshold = reservoir[highestPriority()].priority;
+				}
+			}
+			else if (priority < threshold) {
+				reservoir[highestPriority()] = new Call(priority, type, name, key, ae, timeUs, total, successful);
+				threshold = reservoir[highestPriority()].priority;
+			}
+		}
+	}
+
+	private int highestPriority() {
+		int highest = 0;
+		for (int i = 1; i < reservoirCount; i++) {
+			if (reservoir[i].priority > reservoir[highest].priority) {
+				highest = i;
+			}
+		}
+		return highest;
+	}
+
+	/**
+	 * Describe the sampling, for the report header.
+	 */
+	void printHeader(PrintStream stream) {
+		if (oneInN > 0 && reservoirSize > 0) {
+			stream.printf("Sampling 1 in %,d calls and %,d calls per interval\n", oneInN, reservoirSize);
+		}
+		else if (oneInN > 0) {
+			stream.printf("Sampling 1 in %,d calls\n", oneInN);
+		}
+		else {
+			stream.printf("Sampling %,d calls per interval\n", reservoirSize);
+		}
+	}
+
+	/**
+	 * End the interval, printing the calls in the reservoir if <code>print</code> is set, and empty it.
+	 */
+	void report(PrintStream stream, boolean print) {
+		if (reservoirSize == 0) {
+			return;
+		}
+		Call[] calls;
+		synchronized (this) {
+			calls = new Call[reservoirCount];
+			System.arraycopy(reservoir, 0, calls, 0, reservoirCount);
+			for (int i = 0; i < reservoirCount; i++) {
+				reservoir[i] = null;
+			}
+			reservoirCount = 0;
+			threshold = 1.0;
+		}
+		long total = seen.sumThenReset();
+		if (!print || calls.length == 0) {
+			return;
+		}
+		StringBuilder text = new StringBuilder();
+		text.append(String.format("Sampled calls (%,d of %,d):\n", calls.length, total));
+		for (Call call : calls) {
+			text.append("   ");
+			CallEventLog.format(text, call.type, call.name, call.key, call.ae, call.timeUs, call.total, call.successful);
+		}
+		stream.print(text);
+	}
+}
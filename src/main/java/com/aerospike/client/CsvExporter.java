@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes each interval as a row of comma separated values, after a header row. Latencies are in microseconds.
+ */
+public class CsvExporter implements MetricsExporter {
+	private final Writer writer;
+	private final double[] percentiles;
+	private final long[] values;
+	private final StringBuilder line = new StringBuilder(256);
+	private boolean headerWritten = false;
+
+	public CsvExporter(OutputStream stream) {
+		this(stream, DEFAULT_PERCENTILES);
+	}
+
+	/**
+	 * @param percentiles - the percentiles to include, in ascending order
+	 */
+	public CsvExporter(OutputStream stream, double ... percentiles) {
+		this.writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+		this.percentiles = percentiles.clone();
+		this.values = new long[percentiles.length];
+	}
+
+	private void writeHeader() throws IOException {
+		line.setLength(0);
+		line.append("time,name,start,end,ops,ops_per_sec,success,records,mean_us,min_us,max_us");
+		for (double percentile : percentiles) {
+			line.append(',').append(JsonLinesExporter.formatPercentileName(percentile)).append("_us");
+		}
+		line.append('\n');
+		writer.append(line);
+		headerWritten = true;
+	}
+
+	@Override
+	public void export(long timeMs, Map<String, IntervalHistogram> intervals) throws IOException {
+		if (!headerWritten) {
+			writeHeader();
+		}
+		for (Map.Entry<String, IntervalHistogram> entry : intervals.entrySet()) {
+			IntervalHistogram interval = entry.getValue();
+			line.setLength(0);
+			line.append(timeMs).append(',');
+			// Names never contain commas or quotes except through node names, so quote them to be safe
+			line.append('"').append(entry.getKey().replace("\"", "\"\"")).append('"').append(',');
+			line.append(interval.getStartTimeMs()).append(',');
+			line.append(interval.getEndTimeMs()).append(',');
+			line.append(interval.getOperations()).append(',');
+			line.append(String.format(Locale.ROOT, "%.1f", interval.getOperationsPerSecond())).append(',');
+			line.append(interval.getSuccess()).append(',');
+			line.append(interval.getCount()).append(',');
+			line.append(String.format(Locale.ROOT, "%.1f", interval.getMeanUs())).append(',');
+			line.append(interval.getMinUs()).append(',');
+			line.append(interval.getMaxUs());
+			interval.getValuesAtPercentiles(percentiles, values);
+			for (long value : values) {
+				line.append(',').append(value);
+			}
+			line.append('\n');
+			writer.append(line);
+		}
+		writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
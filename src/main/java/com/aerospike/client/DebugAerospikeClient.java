@@ -16,15 +16,18 @@
  */
 package com.aerospike.client;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import com.aerospike.client.AerospikeException.InvalidNode;
 import com.aerospike.client.admin.Privilege;
@@ -34,6 +37,8 @@ import com.aerospike.client.async.EventLoop;
 import com.aerospike.client.cluster.Cluster;
 import com.aerospike.client.cluster.ClusterStats;
 import com.aerospike.client.cluster.Node;
+import com.aerospike.client.cluster.PartitionNodeTable;
+import com.aerospike.client.cluster.PartitionTraffic;
 import com.aerospike.client.listener.BatchListListener;
 import com.aerospike.client.listener.BatchSequenceListener;
 import com.aerospike.client.listener.DeleteListener;
@@ -68,21 +73,70 @@ import com.aerospike.client.task.RegisterTask;
 public class DebugAerospikeClient implements IAerospikeClient {
 
 	private static enum PutOperation {
-		ADD("Add"),
-		APPEND("Append"),
-		DELETE("Delete"),	// TODO: Should this really be counted as a put, especially if non-durable?
-		OPERATE("Operate"),
-		PREPEND("Prepend"),
-		PUT("Put"),
-		TOUCH("Touch");
+		ADD("Add", "add"),
+		APPEND("Append", "append"),
+		DELETE("Delete", "delete"),	// A write like the others, and perOperationLatency gives it a row of its own
+		OPERATE("Operate", "operat"),
+		PREPEND("Prepend", "prepnd"),
+		PUT("Put", "put"),
+		TOUCH("Touch", "touch");
 		
 		private String operationName;
-		private PutOperation(String name) {
+		private String label;
+		private PutOperation(String name, String label) {
 			this.operationName = name;
+			this.label = label;
 		}
 		public String getName() {
 			return operationName;
 		}
+		/** The row label in the periodic output, which has room for 6 characters */
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	private static enum GetOperation {
+		GET("Get", "get"),
+		GET_BINS("Get", "getbin"),
+		GET_HEADER("GetHeader", "header"),
+		EXISTS("Exists", "exists");
+
+		private String operationName;
+		private String label;
+		private GetOperation(String name, String label) {
+			this.operationName = name;
+			this.label = label;
+		}
+		public String getName() {
+			return operationName;
+		}
+		/** The row label in the periodic output, which has room for 6 characters */
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	static enum BatchSize {
+		ONE(1, "1"),
+		UP_TO_10(10, "2-10"),
+		UP_TO_100(100, "11-100"),
+		UP_TO_1000(1000, "101-1k"),
+		OVER_1000(Integer.MAX_VALUE, ">1k");
+
+		private int maxKeys;
+		private String label;
+		private BatchSize(int maxKeys, String label) {
+			this.maxKeys = maxKeys;
+			this.label = label;
+		}
+		/** The row label in the periodic output, which has room for 6 characters */
+		public String getLabel() {
+			return label;
+		}
+		public static BatchSize of(int keys) {
+			return keys <= ONE.maxKeys ? ONE : keys <= UP_TO_10.maxKeys ? UP_TO_10 : keys <= UP_TO_100.maxKeys ? UP_TO_100 : keys <= UP_TO_1000.maxKeys ? UP_TO_1000 : OVER_1000;
+		}
 	}
 
 	public static enum Granularity {
@@ -102,6 +156,17 @@ public class DebugAerospikeClient implements IAerospikeClient {
 		}
 	}
 	
+	/**
+	 * What to do with an EVERY_CALL event when the buffer between the calling threads and the thread which
+	 * writes the events out is full.
+	 */
+	public static enum Overflow {
+		/** Drop the event. The number dropped is printed with the events. */
+		DROP,
+		/** Make the calling thread wait until there is room */
+		BLOCK
+	}
+
 	public static class Options {
 		private Granularity batchLogging = Granularity.NEVER;
 		private Granularity getLogging = Granularity.NEVER;
@@ -113,6 +178,24 @@ public class DebugAerospikeClient implements IAerospikeClient {
 		private LatencyManager batchLatencyManager = null; 
 		private LatencyManager getLatencyManager = null; 
 		private LatencyManager putLatencyManager = null; 
+		private LatencyLogWriter latencyLog = null;
+		private boolean textOutput = true;
+		private boolean perNodeLatency = false;
+		private boolean perOperationLatency = false;
+		private boolean perBatchSizeLatency = false;
+		private boolean batchFanout = false;
+		private int eventBufferSize = CallEventLog.DEFAULT_CAPACITY;
+		private Overflow eventOverflow = Overflow.DROP;
+		private int sampleOneIn = 0;
+		private int samplesPerInterval = 0;
+		private SlowCallDetector slowCallDetector = null;
+		private int slowestCalls = 0;
+		private int hotKeys = 0;
+		private boolean partitionTraffic = false;
+		private final List<MetricsExporter> metricsExporters = new CopyOnWriteArrayList<MetricsExporter>();
+		private boolean jmxEnabled = true;
+		private int overheadSampleOneIn = 0;
+		private String jmxName = null;
 		
 		public Options() {
 		}
@@ -190,6 +273,223 @@ public class DebugAerospikeClient implements IAerospikeClient {
 		public boolean isUseUs() {
 			return useUs;
 		}
+
+		public LatencyLogWriter getLatencyLog() {
+			return latencyLog;
+		}
+		/**
+		 * Also append the histogram of every interval to a binary log, which can be analysed later with a
+		 * <code>LatencyLogReader</code>. The intervals are those of the logging granularity, so this needs
+		 * a granularity other than NEVER or EVERY_CALL. The log is closed when the client is closed.
+		 */
+		public void setLatencyLog(LatencyLogWriter latencyLog) {
+			this.latencyLog = latencyLog;
+		}
+		public boolean isTextOutput() {
+			return textOutput;
+		}
+		/**
+		 * Whether the periodic latency tables are printed to the stream. Turning this off is useful when
+		 * the intervals are only wanted in the latency log. The default is true.
+		 */
+		public void setTextOutput(boolean textOutput) {
+			this.textOutput = textOutput;
+		}
+
+		public boolean isPerNodeLatency() {
+			return perNodeLatency;
+		}
+		/**
+		 * Also record each single key and batch call against the node it is predicted to be served by, from the
+		 * partition map, and report the latencies of each node separately. A batch call is recorded against every
+		 * node which holds some of its keys. The default is false.
+		 */
+		public void setPerNodeLatency(boolean perNodeLatency) {
+			this.perNodeLatency = perNodeLatency;
+		}
+
+		public boolean isPerOperationLatency() {
+			return perOperationLatency;
+		}
+		/**
+		 * Also report the latencies of each type of put (put, add, append, prepend, delete, touch, operate) and
+		 * each type of get (get, get with bin names, getHeader, exists) separately, after the totals. Types
+		 * with no calls in an interval are not shown. The default is false.
+		 */
+		public void setPerOperationLatency(boolean perOperationLatency) {
+			this.perOperationLatency = perOperationLatency;
+		}
+
+		public boolean isPerBatchSizeLatency() {
+			return perBatchSizeLatency;
+		}
+		/**
+		 * Also report the latencies of batches of 1, 2-10, 11-100, 101-1000 and more than 1000 keys separately,
+		 * after the totals. Sizes with no calls in an interval are not shown. The default is false.
+		 */
+		public void setPerBatchSizeLatency(boolean perBatchSizeLatency) {
+			this.perBatchSizeLatency = perBatchSizeLatency;
+		}
+
+		public boolean isBatchFanout() {
+			return batchFanout;
+		}
+		/**
+		 * Also report how batch calls fan out across the nodes, after the batch totals: the average latency of
+		 * batches by the number of nodes they go to and by the largest share of their keys on one node, and how
+		 * strongly latency correlates with each. The default is false.
+		 */
+		public void setBatchFanout(boolean batchFanout) {
+			this.batchFanout = batchFanout;
+		}
+
+		public int getEventBufferSize() {
+			return eventBufferSize;
+		}
+		/**
+		 * The number of EVERY_CALL events which can be waiting to be written to the stream, rounded up to a power
+		 * of 2. The default is 65536.
+		 */
+		public void setEventBufferSize(int eventBufferSize) {
+			this.eventBufferSize = eventBufferSize;
+		}
+		public Overflow getEventOverflow() {
+			return eventOverflow;
+		}
+		/**
+		 * What to do with EVERY_CALL events when the stream cannot keep up and the buffer is full. The default
+		 * is to drop them.
+		 */
+		public void setEventOverflow(Overflow eventOverflow) {
+			this.eventOverflow = eventOverflow;
+		}
+
+		public int getSampleOneIn() {
+			return sampleOneIn;
+		}
+		/**
+		 * With periodic logging, also print 1 in this many calls in full, in the EVERY_CALL format, while every
+		 * call is still recorded in the latencies. The default is 0, which prints none.
+		 */
+		public void setSampleOneIn(int sampleOneIn) {
+			this.sampleOneIn = sampleOneIn;
+		}
+		public int getSamplesPerInterval() {
+			return samplesPerInterval;
+		}
+		/**
+		 * With periodic logging, also print a random sample of this many of each interval's calls in full after
+		 * the interval's latencies. The default is 0, which prints none.
+		 */
+		public void setSamplesPerInterval(int samplesPerInterval) {
+			this.samplesPerInterval = samplesPerInterval;
+		}
+
+		public SlowCallDetector getSlowCallDetector() {
+			return slowCallDetector;
+		}
+		/**
+		 * With periodic logging, capture the call sites of synchronous calls which are slower than the detector's
+		 * threshold and report the most common ones each interval.
+		 */
+		public void setSlowCallDetector(SlowCallDetector slowCallDetector) {
+			this.slowCallDetector = slowCallDetector;
+		}
+
+		public int getSlowestCalls() {
+			return slowestCalls;
+		}
+		/**
+		 * With periodic logging, also print this many of the slowest calls of each interval, with their key's
+		 * digest, the node it was sent to and the result code. The default is 0, which prints none.
+		 */
+		public void setSlowestCalls(int slowestCalls) {
+			this.slowestCalls = slowestCalls;
+		}
+
+		public int getHotKeys() {
+			return hotKeys;
+		}
+		/**
+		 * With periodic logging, also print this many of the most used keys of each interval from gets, puts and
+		 * operates, with their share of those calls. The keys are counted in a fixed size sketch, so the counts
+		 * may be overestimated by the amount shown. The default is 0, which does not count keys.
+		 */
+		public void setHotKeys(int hotKeys) {
+			this.hotKeys = hotKeys;
+		}
+
+		public boolean isPartitionTraffic() {
+			return partitionTraffic;
+		}
+		/**
+		 * With periodic logging, also count the gets and puts to each partition, and the sum of their latencies.
+		 * The counts can be read with <code>DebugAerospikeClient.getPartitionTraffic()</code> and printed as a
+		 * heatmap by node with <code>ClusterUtilites.printPartitionHeatmap()</code>. The default is false.
+		 */
+		public void setPartitionTraffic(boolean partitionTraffic) {
+			this.partitionTraffic = partitionTraffic;
+		}
+
+		public List<MetricsExporter> getMetricsExporters() {
+			return metricsExporters;
+		}
+		/**
+		 * Also pass the latencies of every interval to an exporter, such as a <code>JsonLinesExporter</code>,
+		 * <code>CsvExporter</code> or <code>PrometheusExporter</code>. This needs a granularity other than NEVER
+		 * or EVERY_CALL. The exporters are closed when the client is closed.
+		 */
+		public void addMetricsExporter(MetricsExporter exporter) {
+			this.metricsExporters.add(exporter);
+		}
+
+		public int getOverheadSampleOneIn() {
+			return overheadSampleOneIn;
+		}
+		/**
+		 * With periodic logging, measure what recording 1 in this many calls costs, in time and in bytes allocated,
+		 * and print the average each interval along with the time the reporting thread took over the previous
+		 * report. The default is 0, which does not measure anything.
+		 */
+		public void setOverheadSampleOneIn(int overheadSampleOneIn) {
+			this.overheadSampleOneIn = overheadSampleOneIn;
+		}
+
+		public boolean isJmxEnabled() {
+			return jmxEnabled;
+		}
+		/**
+		 * Whether to register MBeans for the client and its latency managers with the platform MBean server, so
+		 * the latencies can be read with any JMX console without turning on the text output. Reading them does
+		 * not affect the periodic output. The MBeans are unregistered when the client is closed. The default is true.
+		 */
+		public void setJmxEnabled(boolean jmxEnabled) {
+			this.jmxEnabled = jmxEnabled;
+		}
+		public String getJmxName() {
+			return jmxName;
+		}
+		/**
+		 * The name of the client in its MBeans' object names. Each client in a JVM needs a different name. The
+		 * default is null, which numbers the clients in the order they are created: client-1, client-2 and so on.
+		 */
+		public void setJmxName(String jmxName) {
+			this.jmxName = jmxName;
+		}
+
+		/**
+		 * The latency managers are created when the options are passed to the client if they have not been set.
+		 * Their <code>getLastInterval()</code> histograms can be exported and merged across processes.
+		 */
+		public LatencyManager getBatchLatencyManager() {
+			return batchLatencyManager;
+		}
+		public LatencyManager getGetLatencyManager() {
+			return getLatencyManager;
+		}
+		public LatencyManager getPutLatencyManager() {
+			return putLatencyManager;
+		}
 	}
 	
 
@@ -197,6 +497,26 @@ public class DebugAerospikeClient implements IAerospikeClient {
 	private String closeStackTrace = null;
 	private Options options = null;
 	private Thread statsPrinter = null;
+	private JmxBeans jmx = null;
+	private CallEventLog eventLog = null;
+	private CallSampler sampler = null;
+	private SlowCallDetector slowCalls = null;
+	private SlowestCalls slowest = null;
+	private HotKeys hotKeys = null;
+	private InstrumentationOverhead overhead = null;
+	private ConcurrentHashMap<String, PartitionTraffic> partitionTraffic = null;
+	// Only set if per node latencies are wanted
+	private PartitionNodeTable nodeTable = null;
+	private NodeLatencyManagers nodeGetLatency = null;
+	private NodeLatencyManagers nodePutLatency = null;
+	private NodeLatencyManagers nodeBatchLatency = null;
+	private BatchFanout batchFanout = null;
+	// Scans and queries in progress, or completed since the last report
+	private final List<StreamMonitor> streams = new CopyOnWriteArrayList<StreamMonitor>();
+	// Only set if per operation latencies are wanted, indexed by the operation's ordinal
+	private LatencyManager[] putOperationLatency = null;
+	private LatencyManager[] getOperationLatency = null;
+	private LatencyManager[] batchSizeLatency = null;
 	
 	//-------------------------------------------------------
 	// Constructors
@@ -354,6 +674,43 @@ public class DebugAerospikeClient implements IAerospikeClient {
 	// -----------------------------
 	// Logging information
 	// -----------------------------
+	/**
+	 * The first multiple of the period after the passed time, so ticks fall on whole seconds, tens of
+	 * seconds or minutes of the wall clock.
+	 */
+	static long nextBoundary(long timeMs, long periodMs) {
+		return (timeMs / periodMs + 1) * periodMs;
+	}
+
+	/**
+	 * Whether a category is due to be reported. Each category is reported at its own frequency, on the
+	 * first tick at or after each boundary of that frequency.
+	 */
+	static boolean isDue(Granularity granularity, long[] nextDueMs, int category, long nowMs) {
+		if (granularity.frequency == 0 || nowMs < nextDueMs[category]) {
+			return false;
+		}
+		nextDueMs[category] = nextBoundary(nowMs, granularity.frequency * 1000L);
+		return true;
+	}
+
+	/** The report heading and interval names of one node, made once when the node is first seen */
+	private static final class NodeLabels {
+		final Node node;
+		final String heading;
+		final String gets;
+		final String puts;
+		final String batch;
+
+		NodeLabels(Node node) {
+			this.node = node;
+			this.heading = "Node " + node.getName() + " (" + node.getHost() + ")\n";
+			this.gets = "gets@" + node.getName();
+			this.puts = "puts@" + node.getName();
+			this.batch = "batch@" + node.getName();
+		}
+	}
+
 	/**
 	 * This thread polls the loggers at regular intervals and dumps the stats out the passed print stream.
 	 * @author timfaulkes
@@ -361,6 +718,12 @@ public class DebugAerospikeClient implements IAerospikeClient {
 	 */
 	private class Logger implements Runnable {
 		private volatile boolean started = false;
+		// The intervals ended at this tick, for the metrics exporters
+		private final Map<String, IntervalHistogram> exported = new LinkedHashMap<String, IntervalHistogram>();
+		// Each report is rendered into this and then written to the stream in one go. It is reused every tick.
+		private final ReportStream report = new ReportStream();
+		// Indexed by the node's index in the nodeTable
+		private NodeLabels[] nodeLabels = new NodeLabels[0];
 		private int findMinimumDelayTime() {
 			int minTime = options.getBatchLogging().frequency;
 			if (options.getPutLogging().frequency > 0) {
@@ -384,7 +747,14 @@ public class DebugAerospikeClient implements IAerospikeClient {
 		
 		@Override
 		public void run() {
-			int delayTime = findMinimumDelayTime() * 1000;
+			long tickPeriodMs = findMinimumDelayTime() * 1000L;
+			long now = System.currentTimeMillis();
+			long nextTickMs = nextBoundary(now, tickPeriodMs);
+			// When each of gets, puts and batch is next due
+			long[] nextDueMs = new long[3];
+			for (int category = 0; category < nextDueMs.length; category++) {
+				nextDueMs[category] = nextTickMs;
+			}
 			
 			// We need a latency manager for printing the header.
 			LatencyManager lm = (options.getLatencyManager == null) ? (options.putLatencyManager == null) ? options.batchLatencyManager : options.putLatencyManager : options.getLatencyManager;
@@ -394,188 +764,1152 @@ public class DebugAerospikeClient implements IAerospikeClient {
 				System.err.println("Cannot find a non-null latency manager");
 				return;
 			}
-			while (true) {
+			boolean running = true;
+			while (running) {
 				try {
-					Thread.sleep(delayTime);
+					long sleepTime = nextTickMs - System.currentTimeMillis();
+					if (sleepTime > 0) {
+						Thread.sleep(sleepTime);
+					}
 				}
 				catch (InterruptedException ie) {
-					// This can happen with a clean shutdown of the AerospikeClient
-//					throw new RuntimeException(ie);
-					return;
-				}
-				boolean bufferOutput = true;
-				ByteArrayOutputStream baos = null;
-				PrintStream ps;
-				if (bufferOutput) {
-					baos = new ByteArrayOutputStream();
-					ps = new PrintStream(baos);
+					// This can happen with a clean shutdown of the AerospikeClient. Record the final
+					// partial interval in the latency log, if there is one, then stop.
+					running = false;
 				}
-				else {
-					ps = options.stream;
+				now = System.currentTimeMillis();
+				if (running && now < nextTickMs) {
+					// Woken early, for example by the clock being changed
+					continue;
 				}
+				long reportStartNs = System.nanoTime();
+				// If the thread was held up past several ticks, carry on from the next one rather than catching up
+				nextTickMs = nextBoundary(now, tickPeriodMs);
+				boolean gets = !running || isDue(options.getLogging, nextDueMs, 0, now);
+				boolean puts = !running || isDue(options.putLogging, nextDueMs, 1, now);
+				boolean batch = !running || isDue(options.batchLogging, nextDueMs, 2, now);
+				ReportStream ps = report;
 				
-				lm.printHeader(ps);
-				if (options.getLatencyManager != null) {
-					options.getLatencyManager.printResults(ps, "gets");
+				boolean print = running && options.textOutput;
+				if (print) {
+					ps.printDateTime(now);
+					ps.print('\n');
+					lm.printHeader(ps);
+					if (sampler != null) {
+						sampler.printHeader(ps);
+					}
 				}
-				if (options.putLatencyManager != null) {
-					options.putLatencyManager.printResults(ps, "puts");
+				if (gets) {
+					report(options.getLatencyManager, "gets", "gets", ps, print);
 				}
-				if (options.batchLatencyManager != null) {
-					options.batchLatencyManager.printResults(ps, "batch");
+				if (puts) {
+					report(options.putLatencyManager, "puts", "puts", ps, print);
 				}
+				if (batch) {
+					report(options.batchLatencyManager, "batch", "batch", ps, print);
+				}
+				if (gets && getOperationLatency != null) {
+					for (GetOperation operation : GET_OPERATIONS) {
+						report(getOperationLatency[operation.ordinal()], operation.getLabel(), GET_OPERATION_LOG_NAMES[operation.ordinal()], ps, print);
+					}
+				}
+				if (puts && putOperationLatency != null) {
+					for (PutOperation operation : PUT_OPERATIONS) {
+						report(putOperationLatency[operation.ordinal()], operation.getLabel(), PUT_OPERATION_LOG_NAMES[operation.ordinal()], ps, print);
+					}
+				}
+				if (batch && batchSizeLatency != null) {
+					for (BatchSize size : BATCH_SIZES) {
+						report(batchSizeLatency[size.ordinal()], size.getLabel(), BATCH_SIZE_LOG_NAMES[size.ordinal()], ps, print);
+					}
+				}
+				if (batch && batchFanout != null) {
+					batchFanout.report(ps, print);
+				}
+				if (nodeTable != null) {
+					reportNodes(ps, print, gets, puts, batch);
+				}
+				reportStreams(ps, print);
+				if (sampler != null) {
+					sampler.report(ps, print);
+				}
+				if (slowCalls != null) {
+					slowCalls.report(ps, print);
+				}
+				if (slowest != null) {
+					slowest.report(ps, print);
+				}
+				if (hotKeys != null) {
+					hotKeys.report(ps, print);
+				}
+				if (overhead != null) {
+					overhead.report(ps, print);
+				}
+				export(now);
 				
-				if (bufferOutput) {
-					options.stream.print(baos.toString());
+				if (print) {
 					try {
-						baos.close();
-					} catch (IOException e) {
+						report.writeTo(options.stream);
 					}
+					catch (IOException e) {
+					}
+				}
+				else {
+					report.reset();
+				}
+				if (overhead != null) {
+					overhead.reported(System.nanoTime() - reportStartNs);
+				}
+			}
+			if (options.latencyLog != null) {
+				try {
+					options.latencyLog.close();
+				}
+				catch (IOException ioe) {
+					System.err.println("Error closing latency log: " + ioe.getMessage());
+				}
+			}
+			for (MetricsExporter exporter : options.metricsExporters) {
+				try {
+					exporter.close();
+				}
+				catch (IOException ioe) {
+					System.err.println("Error closing metrics exporter: " + ioe.getMessage());
+				}
+			}
+		}
+
+		private void export(long timeMs) {
+			if (exported.isEmpty()) {
+				return;
+			}
+			for (MetricsExporter exporter : options.metricsExporters) {
+				try {
+					exporter.export(timeMs, exported);
+				}
+				catch (IOException ioe) {
+					// Losing an exporter must not affect the application, so stop using it.
+					System.err.println("Error exporting metrics, disabling the exporter: " + ioe.getMessage());
+					options.metricsExporters.remove(exporter);
+				}
+			}
+			exported.clear();
+		}
+
+		private void reportNodes(PrintStream ps, boolean print, boolean getsDue, boolean putsDue, boolean batchDue) {
+			nodeTable.refresh();
+			int nodes = nodeTable.getNodeCount();
+			ensureCapacity(nodeGetLatency, nodes);
+			ensureCapacity(nodePutLatency, nodes);
+			ensureCapacity(nodeBatchLatency, nodes);
+			for (int i = 0; i < nodes; i++) {
+				LatencyManager gets = nodeGetLatency == null || !getsDue ? null : nodeGetLatency.get(i);
+				LatencyManager puts = nodePutLatency == null || !putsDue ? null : nodePutLatency.get(i);
+				LatencyManager batch = nodeBatchLatency == null || !batchDue ? null : nodeBatchLatency.get(i);
+				boolean hasGets = gets != null && gets.endInterval();
+				boolean hasPuts = puts != null && puts.endInterval();
+				boolean hasBatch = batch != null && batch.endInterval();
+				if (!(hasGets || hasPuts || hasBatch)) {
+					continue;
+				}
+				NodeLabels labels = getNodeLabels(i);
+				if (print) {
+					ps.print(labels.heading);
+				}
+				if (hasGets) {
+					reportInterval(gets, "gets", labels.gets, ps, print);
+				}
+				if (hasPuts) {
+					reportInterval(puts, "puts", labels.puts, ps, print);
+				}
+				if (hasBatch) {
+					reportInterval(batch, "batch", labels.batch, ps, print);
+				}
+			}
+		}
+
+		/**
+		 * The heading and interval names of a node, made once for each node rather than on every report. A node
+		 * which restarts is a new Node object, possibly with a different host, so they are made again for it.
+		 */
+		private NodeLabels getNodeLabels(int index) {
+			Node node = nodeTable.getNode(index);
+			if (index >= nodeLabels.length) {
+				nodeLabels = Arrays.copyOf(nodeLabels, nodeTable.getNodeCount());
+			}
+			NodeLabels labels = nodeLabels[index];
+			if (labels == null || labels.node != node) {
+				labels = new NodeLabels(node);
+				nodeLabels[index] = labels;
+			}
+			return labels;
+		}
+
+		private void reportStreams(PrintStream ps, boolean print) {
+			if (streams.isEmpty()) {
+				return;
+			}
+			if (nodeTable == null) {
+				// Refreshed by reportNodes() from now on
+				nodeTable = new PartitionNodeTable(delegate);
+			}
+			for (StreamMonitor stream : streams) {
+				// Read before printing so a stream which completes while printing gets a final report next time
+				boolean complete = stream.isComplete();
+				if (print) {
+					stream.print(ps, nodeTable);
+				}
+				if (complete) {
+					streams.remove(stream);
+				}
+			}
+		}
+
+		private void ensureCapacity(NodeLatencyManagers managers, int nodes) {
+			if (managers != null) {
+				managers.ensureCapacity(nodes);
+			}
+		}
+
+		private void report(LatencyManager latencyManager, String name, String logName, PrintStream ps, boolean print) {
+			if (latencyManager == null || !latencyManager.endInterval()) {
+				return;
+			}
+			reportInterval(latencyManager, name, logName, ps, print);
+		}
+
+		/**
+		 * Print and log an interval which has already been ended.
+		 */
+		private void reportInterval(LatencyManager latencyManager, String name, String logName, PrintStream ps, boolean print) {
+			if (print) {
+				latencyManager.printInterval(ps, name);
+			}
+			if (!options.metricsExporters.isEmpty()) {
+				exported.put(logName, latencyManager.getLastInterval());
+			}
+			if (options.latencyLog != null) {
+				try {
+					options.latencyLog.write(logName, latencyManager.getLastInterval());
+				}
+				catch (IOException | RuntimeException e) {
+					// Losing the log must not affect the application, so stop logging. The writer also rejects
+					// category names and histograms which cannot fit, and that must not kill this thread either.
+					System.err.println("Error writing latency log, disabling it: " + e);
+					options.latencyLog = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The client's MBean. The totals are read from copies of the latency managers' histograms, so reading
+	 * them does not affect the recording or the periodic output.
+	 */
+	private class ClientBean implements DebugClientMXBean {
+		private final LatencyManager[] latencyManagers = {options.getLatencyManager, options.putLatencyManager, options.batchLatencyManager};
+
+		public String getGetLogging() {
+			return options.getLogging.name();
+		}
+
+		public String getPutLogging() {
+			return options.putLogging.name();
+		}
+
+		public String getBatchLogging() {
+			return options.batchLogging.name();
+		}
+
+		public long getOperations() {
+			long operations = 0;
+			for (LatencyManager latencyManager : latencyManagers) {
+				if (latencyManager != null) {
+					operations += latencyManager.getSnapshot().getOperations();
+				}
+			}
+			return operations;
+		}
+
+		public long getSuccess() {
+			long success = 0;
+			for (LatencyManager latencyManager : latencyManagers) {
+				if (latencyManager != null) {
+					success += latencyManager.getSnapshot().getSuccess();
+				}
+			}
+			return success;
+		}
+
+		public double getOperationsPerSecond() {
+			double operationsPerSecond = 0;
+			for (LatencyManager latencyManager : latencyManagers) {
+				if (latencyManager != null) {
+					operationsPerSecond += Math.max(0, latencyManager.getLastInterval().getOperationsPerSecond());
 				}
 			}
+			return operationsPerSecond;
+		}
+
+		public int getStreamsInProgress() {
+			return streams.size();
+		}
+
+		public long getEventsDropped() {
+			return eventLog == null ? 0 : eventLog.getDropped();
+		}
+
+		public boolean isClosed() {
+			return closeStackTrace != null;
+		}
+	}
+
+	/**
+	 * Get the reads and writes recorded against each partition of a namespace, if
+	 * <code>Options.setPartitionTraffic()</code> is on.
+	 * @return the namespace's traffic, or null if none has been recorded
+	 */
+	public PartitionTraffic getPartitionTraffic(String namespace) {
+		return partitionTraffic == null ? null : getPartitionTraffic(namespace, false);
+	}
+
+	private PartitionTraffic getPartitionTraffic(String namespace, boolean create) {
+		PartitionTraffic traffic = partitionTraffic.get(namespace);
+		if (traffic == null && create) {
+			PartitionTraffic created = new PartitionTraffic(namespace);
+			traffic = partitionTraffic.putIfAbsent(namespace, created);
+			if (traffic == null) {
+				traffic = created;
+			}
+		}
+		return traffic;
+	}
+
+	private static final GetOperation[] GET_OPERATIONS = GetOperation.values();
+	private static final PutOperation[] PUT_OPERATIONS = PutOperation.values();
+	private static final BatchSize[] BATCH_SIZES = BatchSize.values();
+	// The names of the rows' intervals in the latency log and the metrics exporters
+	private static final String[] GET_OPERATION_LOG_NAMES = new String[GET_OPERATIONS.length];
+	private static final String[] PUT_OPERATION_LOG_NAMES = new String[PUT_OPERATIONS.length];
+	private static final String[] BATCH_SIZE_LOG_NAMES = new String[BATCH_SIZES.length];
+	static {
+		for (GetOperation operation : GET_OPERATIONS) {
+			GET_OPERATION_LOG_NAMES[operation.ordinal()] = "gets/" + operation.getLabel();
+		}
+		for (PutOperation operation : PUT_OPERATIONS) {
+			PUT_OPERATION_LOG_NAMES[operation.ordinal()] = "puts/" + operation.getLabel();
+		}
+		for (BatchSize size : BATCH_SIZES) {
+			BATCH_SIZE_LOG_NAMES[size.ordinal()] = "batch/" + size.getLabel();
+		}
+	}
+
+	private static LatencyManager[] createOperationLatencyManagers(LatencyManager template, int operations) {
+		LatencyManager[] managers = new LatencyManager[operations];
+		for (int i = 0; i < operations; i++) {
+			managers[i] = AbstractLatencyManager.duplicateForBreakdown(template);
+		}
+		return managers;
+	}
+
+	private void setOptions(Options options) {
+		this.options = options;
+		if (options != null) {
+			if (options.getBatchLogging() == null) {
+				options.batchLogging = Granularity.NEVER;
+			}
+			if (options.getGetLogging() == null) {
+				options.getLogging = Granularity.NEVER; 
+			}
+			if (options.getPutLogging() == null) {
+				options.putLogging = Granularity.NEVER;
+			}
+			if (options.batchLogging == Granularity.EVERY_CALL || options.getLogging == Granularity.EVERY_CALL || options.putLogging == Granularity.EVERY_CALL) {
+				eventLog = new CallEventLog(options.stream, options.eventBufferSize, options.eventOverflow);
+				eventLog.start();
+			}
+			int maxFrequency = Math.max(options.batchLogging.frequency, Math.max(options.getLogging.frequency, options.putLogging.frequency));
+			if (maxFrequency > 0) {
+				if (options.batchLogging.frequency > 0 && options.batchLatencyManager == null) {
+					options.batchLatencyManager = new ExponentialLatencyManager(options.numColumns, options.bitShift, options.useUs);
+				}
+				if (options.getLogging.frequency > 0 && options.getLatencyManager == null) {
+					options.getLatencyManager = new ExponentialLatencyManager(options.numColumns, options.bitShift, options.useUs);
+				}
+				if (options.putLogging.frequency > 0 && options.putLatencyManager == null) {
+					options.putLatencyManager = new ExponentialLatencyManager(options.numColumns, options.bitShift, options.useUs);
+				}
+				if (options.perNodeLatency) {
+					nodeTable = new PartitionNodeTable(delegate);
+					nodeGetLatency = options.getLatencyManager == null ? null : new NodeLatencyManagers(options.getLatencyManager);
+					nodePutLatency = options.putLatencyManager == null ? null : new NodeLatencyManagers(options.putLatencyManager);
+					nodeBatchLatency = options.batchLatencyManager == null ? null : new NodeLatencyManagers(options.batchLatencyManager);
+					for (NodeLatencyManagers managers : new NodeLatencyManagers[] {nodeGetLatency, nodePutLatency, nodeBatchLatency}) {
+						if (managers != null) {
+							managers.ensureCapacity(nodeTable.getNodeCount());
+						}
+					}
+				}
+				if (options.batchLatencyManager != null && (nodeBatchLatency != null || options.batchFanout)) {
+					if (nodeTable == null) {
+						nodeTable = new PartitionNodeTable(delegate);
+					}
+					batchFanout = new BatchFanout(nodeTable, nodeBatchLatency, options.batchFanout);
+				}
+				if (options.perOperationLatency) {
+					getOperationLatency = options.getLatencyManager == null ? null : createOperationLatencyManagers(options.getLatencyManager, GET_OPERATIONS.length);
+					putOperationLatency = options.putLatencyManager == null ? null : createOperationLatencyManagers(options.putLatencyManager, PUT_OPERATIONS.length);
+				}
+				if (options.perBatchSizeLatency && options.batchLatencyManager != null) {
+					batchSizeLatency = createOperationLatencyManagers(options.batchLatencyManager, BATCH_SIZES.length);
+				}
+				if (options.sampleOneIn > 0 || options.samplesPerInterval > 0) {
+					if (options.sampleOneIn > 0 && eventLog == null) {
+						eventLog = new CallEventLog(options.stream, options.eventBufferSize, options.eventOverflow);
+						eventLog.start();
+					}
+					sampler = new CallSampler(options.sampleOneIn, eventLog, options.samplesPerInterval);
+				}
+				slowCalls = options.slowCallDetector;
+				if (options.slowestCalls > 0) {
+					if (nodeTable == null) {
+						nodeTable = new PartitionNodeTable(delegate);
+					}
+					slowest = new SlowestCalls(options.slowestCalls, nodeTable);
+				}
+				if (options.partitionTraffic) {
+					partitionTraffic = new ConcurrentHashMap<String, PartitionTraffic>();
+				}
+				if (options.hotKeys > 0) {
+					hotKeys = new HotKeys(options.hotKeys);
+				}
+				if (options.overheadSampleOneIn > 0) {
+					overhead = new InstrumentationOverhead(options.overheadSampleOneIn);
+				}
+				Logger logger = new Logger();
+				statsPrinter = new Thread(logger);
+				statsPrinter.setDaemon(true);
+				statsPrinter.start();
+				while (!logger.started) {
+					try {
+						Thread.sleep(10);
+					} catch (InterruptedException e) {
+					}
+				}
+			}
+			if (options.jmxEnabled) {
+				jmx = new JmxBeans(options.jmxName);
+				jmx.registerClient(new ClientBean());
+				jmx.registerLatency("gets", options.getLatencyManager);
+				jmx.registerLatency("puts", options.putLatencyManager);
+				jmx.registerLatency("batch", options.batchLatencyManager);
+			}
+		}
+	}
+
+	/**
+	 * Get the current stack trace as a string, removing this method from the trace
+	 * 
+	 * @return the stack trace
+	 */
+	private String getStackTrace() {
+		Exception e = new Exception();
+		StackTraceElement[] elements = e.getStackTrace();
+		e.setStackTrace(Arrays.copyOfRange(elements, 1, elements.length));
+		StringWriter sw = new StringWriter();
+		PrintWriter pw = new PrintWriter(sw);
+		e.printStackTrace(pw);
+		return sw.toString();
+	}
+	
+	private long startBatchTime() {
+		return (options != null && options.getBatchLogging() != Granularity.NEVER) ? System.nanoTime() : 0;
+	}
+	
+	private void endBatchTime(long startTime, Key[] keys, Record[] records, AerospikeException ae) {
+		if (startTime > 0) {
+			long totalTimeUs = (System.nanoTime() - startTime)/1000;
+			if (slowCalls != null) {
+				slowCalls.check("Batch", totalTimeUs);
+			}
+			logBatchTimes(totalTimeUs, keys, records, ae);
+		}
+	}
+
+	private void endBatchTime(long startTime, Key[] keys, boolean[] exists, AerospikeException ae) {
+		if (startTime > 0) {
+			long totalTimeUs = (System.nanoTime() - startTime)/1000;
+			if (slowCalls != null) {
+				slowCalls.check("Batch", totalTimeUs);
+			}
+			logBatchTimes(totalTimeUs, keys, exists, ae);
+		}
+	}
+
+	private void endBatchTime(long startTime, List<BatchRead> records, AerospikeException ae) {
+		if (startTime > 0) {
+			long totalTimeUs = (System.nanoTime() - startTime)/1000;
+			if (slowCalls != null) {
+				slowCalls.check("Batch", totalTimeUs);
+			}
+			logBatchTimes(totalTimeUs, records, ae);
+		}
+	}
+
+	/*
+	 * Each type of batch result is counted in a single pass, which finds both the number of keys found and,
+	 * if wanted, the number of keys and found keys for each node.
+	 */
+
+	private int[] startNodeTally() {
+		return batchFanout == null ? null : batchFanout.startTally();
+	}
+
+	private void logBatchTimes(long timeInUs, Key[] keys, Record[] records, AerospikeException ae) {
+		long overheadStart = overhead == null ? 0 : overhead.start();
+		int[] nodeCounts = startNodeTally();
+		int successful = 0;
+		for (int i = 0; i < keys.length; i++) {
+			boolean found = records != null && records[i] != null;
+			if (found) {
+				successful++;
+			}
+			if (nodeCounts != null) {
+				batchFanout.tally(nodeCounts, keys[i], found);
+			}
+		}
+		logBatchTimes(timeInUs, keys.length, successful, nodeCounts, ae);
+		if (overheadStart != 0) {
+			overhead.end(overheadStart);
+		}
+	}
+
+	private void logBatchTimes(long timeInUs, Key[] keys, boolean[] exists, AerospikeException ae) {
+		long overheadStart = overhead == null ? 0 : overhead.start();
+		int[] nodeCounts = startNodeTally();
+		int successful = 0;
+		for (int i = 0; i < keys.length; i++) {
+			boolean found = exists != null && exists[i];
+			if (found) {
+				successful++;
+			}
+			if (nodeCounts != null) {
+				batchFanout.tally(nodeCounts, keys[i], found);
+			}
+		}
+		logBatchTimes(timeInUs, keys.length, successful, nodeCounts, ae);
+		if (overheadStart != 0) {
+			overhead.end(overheadStart);
+		}
+	}
+
+	private void logBatchTimes(long timeInUs, List<BatchRead> records, AerospikeException ae) {
+		long overheadStart = overhead == null ? 0 : overhead.start();
+		int[] nodeCounts = startNodeTally();
+		int successful = 0;
+		int total = records.size();
+		for (int i = 0; i < total; i++) {
+			BatchRead batchRead = records.get(i);
+			boolean found = batchRead.record != null;
+			if (found) {
+				successful++;
+			}
+			if (nodeCounts != null) {
+				batchFanout.tally(nodeCounts, batchRead.key, found);
+			}
+		}
+		logBatchTimes(timeInUs, total, successful, nodeCounts, ae);
+		if (overheadStart != 0) {
+			overhead.end(overheadStart);
+		}
+	}
+
+	/**
+	 * Log a batch whose keys are not known, such as a sequence listener's.
+	 */
+	private void logBatchTimes(long timeInUs, int total, int successful, AerospikeException ae) {
+		long overheadStart = overhead == null ? 0 : overhead.start();
+		logBatchTimes(timeInUs, total, successful, null, ae);
+		if (overheadStart != 0) {
+			overhead.end(overheadStart);
+		}
+	}
+
+	/**
+	 * @param nodeCounts - the keys and found keys of each node from <code>startNodeTally()</code>, or null
+	 */
+	private void logBatchTimes(long timeInUs, int total, int successful, int[] nodeCounts, AerospikeException ae) {
+		if (options.getBatchLogging() == Granularity.EVERY_CALL) {
+			eventLog.logBatch(timeInUs, total, successful, ae);
+		}
+		else if (options.getBatchLogging()  != Granularity.NEVER) {
+			options.batchLatencyManager.add(timeInUs, total, successful);
+			if (batchSizeLatency != null) {
+				batchSizeLatency[BatchSize.of(total).ordinal()].add(timeInUs, total, successful);
+			}
+			if (nodeCounts != null) {
+				batchFanout.finish(nodeCounts, timeInUs);
+			}
+			if (sampler != null) {
+				sampler.sampleBatch(timeInUs, total, successful, ae);
+			}
+			if (slowest != null) {
+				slowest.addBatch(total, timeInUs, ae);
+			}
+		}
+	}
+	
+	private long startPutTime() {
+		return (options != null && options.getPutLogging() != Granularity.NEVER) ? System.nanoTime() : 0;
+	}
+	
+	private void endPutTime(long startTime, Key key, PutOperation operation, AerospikeException ae) {
+		if (startTime > 0) {
+			long totalTimeUs = (System.nanoTime() - startTime)/1000;
+			if (slowCalls != null) {
+				slowCalls.check(operation.getName(), totalTimeUs);
+			}
+			logPutTimes(totalTimeUs, key, operation, ae);
+		}
+	}
+
+	private void logPutTimes(long timeInUs, Key key, PutOperation operation, AerospikeException ae) {
+		long overheadStart = overhead == null ? 0 : overhead.start();
+		recordPutTimes(timeInUs, key, operation, ae);
+		if (overheadStart != 0) {
+			overhead.end(overheadStart);
+		}
+	}
+
+	private void recordPutTimes(long timeInUs, Key key, PutOperation operation, AerospikeException ae) {
+		if (options.getPutLogging() == Granularity.EVERY_CALL) {
+			eventLog.logPut(operation.getName(), key, timeInUs, ae);
+		}
+		else if (options.getPutLogging()  != Granularity.NEVER) {
+			options.putLatencyManager.add(timeInUs, 0, ae != null ? 0 : 1);
+			if (putOperationLatency != null) {
+				putOperationLatency[operation.ordinal()].add(timeInUs, 0, ae != null ? 0 : 1);
+			}
+			if (nodePutLatency != null) {
+				nodePutLatency.add(nodeTable.getNodeIndex(key), timeInUs, 0, ae != null ? 0 : 1);
+			}
+			if (sampler != null) {
+				sampler.samplePut(operation.getName(), key, timeInUs, ae);
+			}
+			if (slowest != null) {
+				slowest.add(operation.getName(), key, timeInUs, ae);
+			}
+			if (hotKeys != null) {
+				hotKeys.add(key);
+			}
+			if (partitionTraffic != null) {
+				getPartitionTraffic(key.namespace, true).recordWrite(PartitionNodeTable.getPartitionId(key.digest), timeInUs);
+			}
+		}
+	}
+	
+	private long startGetTime() {
+		return (options != null && options.getGetLogging() != Granularity.NEVER) ? System.nanoTime() : 0;
+	}
+	
+	private void endGetTime(long startTime, Key key, GetOperation operation, boolean found, AerospikeException ae) {
+		if (startTime > 0) {
+			long totalTimeUs = (System.nanoTime() - startTime)/1000;
+			if (slowCalls != null) {
+				slowCalls.check(operation.getName(), totalTimeUs);
+			}
+			logGetTimes(totalTimeUs, key, operation, found, ae);
+		}
+	}
+
+	private void logGetTimes(long timeInUs, Key key, GetOperation operation, boolean found, AerospikeException ae) {
+		long overheadStart = overhead == null ? 0 : overhead.start();
+		recordGetTimes(timeInUs, key, operation, found, ae);
+		if (overheadStart != 0) {
+			overhead.end(overheadStart);
+		}
+	}
+
+	private void recordGetTimes(long timeInUs, Key key, GetOperation operation, boolean found, AerospikeException ae) {
+		if (options.getGetLogging() == Granularity.EVERY_CALL) {
+			eventLog.logGet(operation.getName(), key, timeInUs, found, ae);
+		}
+		else if (options.getGetLogging()  != Granularity.NEVER) {
+			int success = ae == null && found ? 1 : 0;
+			options.getLatencyManager.add(timeInUs, 0, success);
+			if (getOperationLatency != null) {
+				getOperationLatency[operation.ordinal()].add(timeInUs, 0, success);
+			}
+			if (nodeGetLatency != null) {
+				nodeGetLatency.add(nodeTable.getNodeIndex(key), timeInUs, 0, success);
+			}
+			if (sampler != null) {
+				sampler.sampleGet(operation.getName(), key, timeInUs, found, ae);
+			}
+			if (slowest != null) {
+				slowest.add(operation.getName(), key, timeInUs, ae);
+			}
+			if (hotKeys != null) {
+				hotKeys.add(key);
+			}
+			if (partitionTraffic != null) {
+				getPartitionTraffic(key.namespace, true).recordRead(PartitionNodeTable.getPartitionId(key.digest), timeInUs);
+			}
+		}
+	}
+	
+
+	
+	//-------------------------------------------------------
+	// Asynchronous call timing
+	//-------------------------------------------------------
+
+	/*
+	 * The asynchronous calls are timed by passing the delegate a listener which records the latency and then
+	 * calls the application's listener. The timing listeners are recycled through pools, so the fields are
+	 * copied out and the listener released before the application's listener is called: the application may
+	 * well make another call from its listener. If a call is not being timed the application's listener is
+	 * passed straight through.
+	 *
+	 * The delegate either calls the listener or throws, for example when the async queue is full or there is
+	 * no event loop, never both. If it throws, the failure is recorded and the timing listener released
+	 * before the exception is rethrown.
+	 */
+
+	private interface TimedListener {
+		/**
+		 * Record the failure of a call which the delegate rejected without calling the listener, and release the listener.
+		 */
+		void abort(AerospikeException ae);
+	}
+
+	/**
+	 * Abort the timing listener passed to the delegate, if the call was being timed.
+	 */
+	private static void abortTimed(Object timed, Object listener, RuntimeException re) {
+		if (timed != listener) {
+			((TimedListener)timed).abort(re instanceof AerospikeException ? (AerospikeException)re : new AerospikeException(re));
+		}
+	}
+
+	private final ListenerPool<TimedWriteListener> writeListeners = new ListenerPool<TimedWriteListener>() {
+		@Override
+		protected TimedWriteListener create() {
+			return new TimedWriteListener();
+		}
+	};
+	private final ListenerPool<TimedRecordListener> recordListeners = new ListenerPool<TimedRecordListener>() {
+		@Override
+		protected TimedRecordListener create() {
+			return new TimedRecordListener();
+		}
+	};
+	private final ListenerPool<TimedBatchListener> batchListeners = new ListenerPool<TimedBatchListener>() {
+		@Override
+		protected TimedBatchListener create() {
+			return new TimedBatchListener();
+		}
+	};
+	private static final AtomicIntegerFieldUpdater<TimedBatchListener> BATCH_FOUND = AtomicIntegerFieldUpdater.newUpdater(TimedBatchListener.class, "found");
+
+	/**
+	 * Times a single key write or delete.
+	 */
+	private class TimedWriteListener implements WriteListener, DeleteListener, TimedListener {
+		private int stripe;
+		private long startTime;
+		private Key key;
+		private PutOperation operation;
+		private WriteListener writeListener;
+		private DeleteListener deleteListener;
+
+		private TimedWriteListener init(int stripe, long startTime, Key key, PutOperation operation, WriteListener writeListener, DeleteListener deleteListener) {
+			this.stripe = stripe;
+			this.startTime = startTime;
+			this.key = key;
+			this.operation = operation;
+			this.writeListener = writeListener;
+			this.deleteListener = deleteListener;
+			return this;
+		}
+
+		private void complete(AerospikeException ae) {
+			logPutTimes((System.nanoTime() - startTime)/1000, key, operation, ae);
+			key = null;
+			writeListener = null;
+			deleteListener = null;
+			writeListeners.release(this, stripe);
+		}
+
+		@Override
+		public void abort(AerospikeException ae) {
+			complete(ae);
+		}
+
+		@Override
+		public void onSuccess(Key key) {
+			WriteListener listener = writeListener;
+			complete(null);
+			listener.onSuccess(key);
+		}
+
+		@Override
+		public void onSuccess(Key key, boolean existed) {
+			DeleteListener listener = deleteListener;
+			complete(null);
+			listener.onSuccess(key, existed);
+		}
+
+		@Override
+		public void onFailure(AerospikeException ae) {
+			WriteListener writeListener = this.writeListener;
+			DeleteListener deleteListener = this.deleteListener;
+			complete(ae);
+			if (writeListener != null) {
+				writeListener.onFailure(ae);
+			}
+			else {
+				deleteListener.onFailure(ae);
+			}
+		}
+	}
+
+	/**
+	 * Times a single key read, exists or operate.
+	 */
+	private class TimedRecordListener implements RecordListener, ExistsListener, TimedListener {
+		private int stripe;
+		private long startTime;
+		private Key key;
+		// Exactly one of the operations is set
+		private GetOperation getOperation;
+		private PutOperation putOperation;
+		private RecordListener recordListener;
+		private ExistsListener existsListener;
+
+		private TimedRecordListener init(int stripe, long startTime, Key key, GetOperation getOperation, PutOperation putOperation, RecordListener recordListener, ExistsListener existsListener) {
+			this.stripe = stripe;
+			this.startTime = startTime;
+			this.key = key;
+			this.getOperation = getOperation;
+			this.putOperation = putOperation;
+			this.recordListener = recordListener;
+			this.existsListener = existsListener;
+			return this;
+		}
+
+		private void complete(boolean found, AerospikeException ae) {
+			long totalTimeUs = (System.nanoTime() - startTime)/1000;
+			if (putOperation != null) {
+				logPutTimes(totalTimeUs, key, putOperation, ae);
+			}
+			else {
+				logGetTimes(totalTimeUs, key, getOperation, found, ae);
+			}
+			key = null;
+			recordListener = null;
+			existsListener = null;
+			recordListeners.release(this, stripe);
+		}
+
+		@Override
+		public void abort(AerospikeException ae) {
+			complete(false, ae);
+		}
+
+		@Override
+		public void onSuccess(Key key, Record record) {
+			RecordListener listener = recordListener;
+			complete(record != null, null);
+			listener.onSuccess(key, record);
+		}
+
+		@Override
+		public void onSuccess(Key key, boolean exists) {
+			ExistsListener listener = existsListener;
+			complete(exists, null);
+			listener.onSuccess(key, exists);
+		}
+
+		@Override
+		public void onFailure(AerospikeException ae) {
+			RecordListener recordListener = this.recordListener;
+			ExistsListener existsListener = this.existsListener;
+			complete(false, ae);
+			if (recordListener != null) {
+				recordListener.onFailure(ae);
+			}
+			else {
+				existsListener.onFailure(ae);
+			}
+		}
+	}
+
+	/**
+	 * Times a batch call, whichever type of listener it uses. Exactly one of the listeners is set. The
+	 * sequence listeners count the records found as they arrive, which may be on several threads.
+	 */
+	private class TimedBatchListener implements RecordArrayListener, RecordSequenceListener, ExistsArrayListener,
+			ExistsSequenceListener, BatchListListener, BatchSequenceListener, TimedListener {
+		private int stripe;
+		private long startTime;
+		private int total;
+		volatile int found;
+		private RecordArrayListener recordArrayListener;
+		private RecordSequenceListener recordSequenceListener;
+		private ExistsArrayListener existsArrayListener;
+		private ExistsSequenceListener existsSequenceListener;
+		private BatchListListener batchListListener;
+		private BatchSequenceListener batchSequenceListener;
+
+		private TimedBatchListener init(int stripe, long startTime, int total) {
+			this.stripe = stripe;
+			this.startTime = startTime;
+			this.total = total;
+			this.found = 0;
+			return this;
+		}
+
+		private long elapsedUs() {
+			return (System.nanoTime() - startTime)/1000;
+		}
+
+		private void release() {
+			recordArrayListener = null;
+			recordSequenceListener = null;
+			existsArrayListener = null;
+			existsSequenceListener = null;
+			batchListListener = null;
+			batchSequenceListener = null;
+			batchListeners.release(this, stripe);
+		}
+
+		@Override
+		public void abort(AerospikeException ae) {
+			logBatchTimes(elapsedUs(), total, found, ae);
+			release();
+		}
+
+		@Override
+		public void onSuccess(Key[] keys, Record[] records) {
+			RecordArrayListener listener = recordArrayListener;
+			logBatchTimes(elapsedUs(), keys, records, null);
+			release();
+			listener.onSuccess(keys, records);
+		}
+
+		@Override
+		public void onSuccess(Key[] keys, boolean[] exists) {
+			ExistsArrayListener listener = existsArrayListener;
+			logBatchTimes(elapsedUs(), keys, exists, null);
+			release();
+			listener.onSuccess(keys, exists);
+		}
+
+		@Override
+		public void onSuccess(List<BatchRead> records) {
+			BatchListListener listener = batchListListener;
+			logBatchTimes(elapsedUs(), records, null);
+			release();
+			listener.onSuccess(records);
+		}
+
+		@Override
+		public void onRecord(Key key, Record record) throws AerospikeException {
+			if (record != null) {
+				BATCH_FOUND.incrementAndGet(this);
+			}
+			recordSequenceListener.onRecord(key, record);
+		}
+
+		@Override
+		public void onExists(Key key, boolean exists) {
+			if (exists) {
+				BATCH_FOUND.incrementAndGet(this);
+			}
+			existsSequenceListener.onExists(key, exists);
+		}
+
+		@Override
+		public void onRecord(BatchRead record) {
+			if (record.record != null) {
+				BATCH_FOUND.incrementAndGet(this);
+			}
+			batchSequenceListener.onRecord(record);
 		}
-	}
 
-	private void setOptions(Options options) {
-		this.options = options;
-		if (options != null) {
-			if (options.getBatchLogging() == null) {
-				options.batchLogging = Granularity.NEVER;
+		@Override
+		public void onSuccess() {
+			RecordSequenceListener recordSequenceListener = this.recordSequenceListener;
+			ExistsSequenceListener existsSequenceListener = this.existsSequenceListener;
+			BatchSequenceListener batchSequenceListener = this.batchSequenceListener;
+			logBatchTimes(elapsedUs(), total, found, null);
+			release();
+			if (recordSequenceListener != null) {
+				recordSequenceListener.onSuccess();
 			}
-			if (options.getGetLogging() == null) {
-				options.getLogging = Granularity.NEVER; 
+			else if (existsSequenceListener != null) {
+				existsSequenceListener.onSuccess();
 			}
-			if (options.getPutLogging() == null) {
-				options.putLogging = Granularity.NEVER;
+			else {
+				batchSequenceListener.onSuccess();
 			}
-			int maxFrequency = Math.max(options.batchLogging.frequency, Math.max(options.getLogging.frequency, options.putLogging.frequency));
-			if (maxFrequency > 0) {
-				if (options.batchLogging.frequency > 0 && options.batchLatencyManager == null) {
-					options.batchLatencyManager = new ExponentialLatencyManager(options.numColumns, options.bitShift, options.useUs);
-				}
-				if (options.getLogging.frequency > 0 && options.getLatencyManager == null) {
-					options.getLatencyManager = new ExponentialLatencyManager(options.numColumns, options.bitShift, options.useUs);
-				}
-				if (options.putLogging.frequency > 0 && options.putLatencyManager == null) {
-					options.putLatencyManager = new ExponentialLatencyManager(options.numColumns, options.bitShift, options.useUs);
-				}
-				Logger logger = new Logger();
-				statsPrinter = new Thread(logger);
-				statsPrinter.setDaemon(true);
-				statsPrinter.start();
-				while (!logger.started) {
-					try {
-						Thread.sleep(10);
-					} catch (InterruptedException e) {
-					}
-				}
+		}
+
+		@Override
+		public void onFailure(AerospikeException ae) {
+			RecordArrayListener recordArrayListener = this.recordArrayListener;
+			RecordSequenceListener recordSequenceListener = this.recordSequenceListener;
+			ExistsArrayListener existsArrayListener = this.existsArrayListener;
+			ExistsSequenceListener existsSequenceListener = this.existsSequenceListener;
+			BatchListListener batchListListener = this.batchListListener;
+			BatchSequenceListener batchSequenceListener = this.batchSequenceListener;
+			logBatchTimes(elapsedUs(), total, found, ae);
+			release();
+			if (recordArrayListener != null) {
+				recordArrayListener.onFailure(ae);
+			}
+			else if (recordSequenceListener != null) {
+				recordSequenceListener.onFailure(ae);
+			}
+			else if (existsArrayListener != null) {
+				existsArrayListener.onFailure(ae);
+			}
+			else if (existsSequenceListener != null) {
+				existsSequenceListener.onFailure(ae);
+			}
+			else if (batchListListener != null) {
+				batchListListener.onFailure(ae);
+			}
+			else {
+				batchSequenceListener.onFailure(ae);
 			}
 		}
 	}
 
-	/**
-	 * Get the current stack trace as a string, removing this method from the trace
-	 * 
-	 * @return the stack trace
-	 */
-	private String getStackTrace() {
-		Exception e = new Exception();
-		StackTraceElement[] elements = e.getStackTrace();
-		e.setStackTrace(Arrays.copyOfRange(elements, 1, elements.length));
-		StringWriter sw = new StringWriter();
-		PrintWriter pw = new PrintWriter(sw);
-		e.printStackTrace(pw);
-		return sw.toString();
-	}
-	
-	private long startBatchTime() {
-		return (options != null && options.getBatchLogging() != Granularity.NEVER) ? System.nanoTime() : 0;
+	private WriteListener timeWrite(WriteListener listener, Key key, PutOperation operation) {
+		long startTime = startPutTime();
+		if (startTime == 0) {
+			return listener;
+		}
+		int stripe = writeListeners.stripe();
+		return writeListeners.acquire(stripe).init(stripe, startTime, key, operation, listener, null);
 	}
-	
-	private void endBatchTime(long startTime, Key[] keys, Record[] records, AerospikeException ae) {
-		if (startTime > 0) {
-			long totalTimeUs = (System.nanoTime() - startTime)/1000;
-			logBatchTimes(totalTimeUs, keys, records, ae);
+
+	private DeleteListener timeDelete(DeleteListener listener, Key key) {
+		long startTime = startPutTime();
+		if (startTime == 0) {
+			return listener;
 		}
+		int stripe = writeListeners.stripe();
+		return writeListeners.acquire(stripe).init(stripe, startTime, key, PutOperation.DELETE, null, listener);
 	}
 
-	private void logBatchTimes(long timeInUs, Key[] keys, Record[] records, AerospikeException ae) {
-		int total = keys.length;
-		int successful = 0;
-		for (int i = 0; records != null && i < total; i++) {
-			successful += records[i] != null ? 1 : 0;
+	private RecordListener timeRead(RecordListener listener, Key key, GetOperation operation) {
+		long startTime = startGetTime();
+		if (startTime == 0) {
+			return listener;
 		}
-		if (options.getBatchLogging() == Granularity.EVERY_CALL) {
-			if (ae != null) {
-				options.stream.printf("Batch: [%d keys] threw %s (%d:%s) in %,.3fms\n", keys.length, ae.getClass(), ae.getResultCode(), ae.getMessage(), timeInUs/1000.0);
-			}
-			else {
-				options.stream.printf("Batch: [%d/%d keys] took %,.3fms\n", successful, keys.length, timeInUs/1000.0);
-			}
+		int stripe = recordListeners.stripe();
+		return recordListeners.acquire(stripe).init(stripe, startTime, key, operation, null, listener, null);
+	}
+
+	private ExistsListener timeExists(ExistsListener listener, Key key) {
+		long startTime = startGetTime();
+		if (startTime == 0) {
+			return listener;
 		}
-		else if (options.getBatchLogging()  != Granularity.NEVER) {
-			options.batchLatencyManager.add(timeInUs, keys.length, successful);
+		int stripe = recordListeners.stripe();
+		return recordListeners.acquire(stripe).init(stripe, startTime, key, GetOperation.EXISTS, null, null, listener);
+	}
+
+	private RecordListener timeOperate(RecordListener listener, Key key) {
+		long startTime = startPutTime();
+		if (startTime == 0) {
+			return listener;
 		}
+		int stripe = recordListeners.stripe();
+		return recordListeners.acquire(stripe).init(stripe, startTime, key, null, PutOperation.OPERATE, listener, null);
 	}
-	
-	private long startPutTime() {
-		return (options != null && options.getPutLogging() != Granularity.NEVER) ? System.nanoTime() : 0;
+
+	/**
+	 * Start monitoring a scan or query, or return null if nothing is being reported.
+	 */
+	private StreamMonitor startStream(String operation, String namespace, String setName, ScanCallback callback, RecordSequenceListener listener) {
+		if (statsPrinter == null) {
+			return null;
+		}
+		StreamMonitor monitor = new StreamMonitor(operation + " " + namespace + (setName == null ? "" : "." + setName), namespace, callback, listener);
+		streams.add(monitor);
+		return monitor;
 	}
-	
-	private void endPutTime(long startTime, Key key, PutOperation operation, AerospikeException ae) {
-		if (startTime > 0) {
-			long totalTimeUs = (System.nanoTime() - startTime)/1000;
-			logPutTimes(totalTimeUs, key, operation, ae);
+
+	/**
+	 * Get a batch timing listener with no application listener set yet, or null if batches are not being timed.
+	 */
+	private TimedBatchListener timeBatch(int total) {
+		long startTime = startBatchTime();
+		if (startTime == 0) {
+			return null;
 		}
+		int stripe = batchListeners.stripe();
+		return batchListeners.acquire(stripe).init(stripe, startTime, total);
 	}
 
-	private AtomicLong thresholdCount = new AtomicLong(0); 
-	private void logPutTimes(long timeInUs, Key key, PutOperation operation, AerospikeException ae) {
-		if (options.getPutLogging() == Granularity.EVERY_CALL) {
-			if (ae != null) {
-				options.stream.printf("%s: [%s] threw %s (%d:%s) in %,.3fms\n", operation.getName(), key.toString(), ae.getClass(), ae.getResultCode(), ae.getMessage(), timeInUs/1000.0);
-			}
-			else {
-				options.stream.printf("%s: [%s] took %,.3fms\n", operation.getName(), key.toString(), timeInUs/1000.0);
-			}
+	private RecordArrayListener timeBatch(RecordArrayListener listener, Key[] keys) {
+		TimedBatchListener timed = timeBatch(keys.length);
+		if (timed == null) {
+			return listener;
 		}
-		else if (options.getPutLogging()  != Granularity.NEVER) {
-			options.putLatencyManager.add(timeInUs, 0, ae != null ? 0 : 1);
+		timed.recordArrayListener = listener;
+		return timed;
+	}
+
+	private RecordSequenceListener timeBatch(RecordSequenceListener listener, Key[] keys) {
+		TimedBatchListener timed = timeBatch(keys.length);
+		if (timed == null) {
+			return listener;
 		}
-//		if (timeInUs > 30000) {
-//			if (thresholdCount.incrementAndGet() > 100) {
-//				options.stream.printf("Time Violation: call took %,.3fms\n%s\n", timeInUs/1000.0, getStackTrace());
-//			}
-//		}
+		timed.recordSequenceListener = listener;
+		return timed;
 	}
-	
-	private long startGetTime() {
-		return (options != null && options.getGetLogging() != Granularity.NEVER) ? System.nanoTime() : 0;
+
+	private ExistsArrayListener timeBatch(ExistsArrayListener listener, Key[] keys) {
+		TimedBatchListener timed = timeBatch(keys.length);
+		if (timed == null) {
+			return listener;
+		}
+		timed.existsArrayListener = listener;
+		return timed;
 	}
-	
-	private void endGetTime(long startTime, Key key, Record result, AerospikeException ae) {
-		if (startTime > 0) {
-			long totalTimeUs = (System.nanoTime() - startTime)/1000;
-			logGetTimes(totalTimeUs, key, result, ae);
+
+	private ExistsSequenceListener timeBatch(ExistsSequenceListener listener, Key[] keys) {
+		TimedBatchListener timed = timeBatch(keys.length);
+		if (timed == null) {
+			return listener;
 		}
+		timed.existsSequenceListener = listener;
+		return timed;
 	}
 
-	private void logGetTimes(long timeInUs, Key key, Record record, AerospikeException ae) {
-		if (options.getGetLogging() == Granularity.EVERY_CALL) {
-			if (ae != null) {
-				options.stream.printf("Get: [%s] threw %s (%d:%s) in %,.3fms\n", key.toString(), ae.getClass(), ae.getResultCode(), ae.getMessage(), timeInUs/1000.0);
-			}
-			else {
-				options.stream.printf("Get: [%s] took %,.3fms, record %sfound\n", key.toString(), timeInUs/1000.0, record == null ? "not " : "");
-			}
+	private BatchListListener timeBatch(BatchListListener listener, List<BatchRead> records) {
+		TimedBatchListener timed = timeBatch(records.size());
+		if (timed == null) {
+			return listener;
 		}
-		else if (options.getGetLogging()  != Granularity.NEVER) {
-			options.getLatencyManager.add(timeInUs, 0, ae != null ? 0 : record == null ? 0 : 1);
+		timed.batchListListener = listener;
+		return timed;
+	}
+
+	private BatchSequenceListener timeBatch(BatchSequenceListener listener, List<BatchRead> records) {
+		TimedBatchListener timed = timeBatch(records.size());
+		if (timed == null) {
+			return listener;
 		}
+		timed.batchSequenceListener = listener;
+		return timed;
 	}
-	
 
-	
 	@Override
 	public void close() {
 		if (this.closeStackTrace != null) {
@@ -585,7 +1919,14 @@ public class DebugAerospikeClient implements IAerospikeClient {
 		if (statsPrinter != null) {
 			statsPrinter.interrupt();
 		}
+		if (jmx != null) {
+			jmx.unregister();
+			jmx = null;
+		}
 		delegate.close();
+		if (eventLog != null) {
+			eventLog.close();
+		}
 	}
 
 	public Policy getReadPolicyDefault() {
@@ -647,7 +1988,14 @@ public class DebugAerospikeClient implements IAerospikeClient {
 
 	public void put(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key, Bin... bins)
 			throws AerospikeException {
-		delegate.put(eventLoop, listener, policy, key, bins);
+		WriteListener timed = timeWrite(listener, key, PutOperation.PUT);
+		try {
+			delegate.put(eventLoop, timed, policy, key, bins);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public void append(WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
@@ -664,7 +2012,14 @@ public class DebugAerospikeClient implements IAerospikeClient {
 
 	public void append(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key, Bin... bins)
 			throws AerospikeException {
-		delegate.append(eventLoop, listener, policy, key, bins);
+		WriteListener timed = timeWrite(listener, key, PutOperation.APPEND);
+		try {
+			delegate.append(eventLoop, timed, policy, key, bins);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public void prepend(WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
@@ -681,7 +2036,14 @@ public class DebugAerospikeClient implements IAerospikeClient {
 
 	public void prepend(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key, Bin... bins)
 			throws AerospikeException {
-		delegate.prepend(eventLoop, listener, policy, key, bins);
+		WriteListener timed = timeWrite(listener, key, PutOperation.PREPEND);
+		try {
+			delegate.prepend(eventLoop, timed, policy, key, bins);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public void add(WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
@@ -698,7 +2060,14 @@ public class DebugAerospikeClient implements IAerospikeClient {
 
 	public void add(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key, Bin... bins)
 			throws AerospikeException {
-		delegate.add(eventLoop, listener, policy, key, bins);
+		WriteListener timed = timeWrite(listener, key, PutOperation.ADD);
+		try {
+			delegate.add(eventLoop, timed, policy, key, bins);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public boolean delete(WritePolicy policy, Key key) throws AerospikeException {
@@ -716,7 +2085,14 @@ public class DebugAerospikeClient implements IAerospikeClient {
 
 	public void delete(EventLoop eventLoop, DeleteListener listener, WritePolicy policy, Key key)
 			throws AerospikeException {
-		delegate.delete(eventLoop, listener, policy, key);
+		DeleteListener timed = timeDelete(listener, key);
+		try {
+			delegate.delete(eventLoop, timed, policy, key);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public void truncate(InfoPolicy policy, String ns, String set, Calendar beforeLastUpdate)
@@ -738,87 +2114,185 @@ public class DebugAerospikeClient implements IAerospikeClient {
 
 	public void touch(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key)
 			throws AerospikeException {
-		delegate.touch(eventLoop, listener, policy, key);
+		WriteListener timed = timeWrite(listener, key, PutOperation.TOUCH);
+		try {
+			delegate.touch(eventLoop, timed, policy, key);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public boolean exists(Policy policy, Key key) throws AerospikeException {
-		return delegate.exists(policy, key);
+		long now = startGetTime();
+		try {
+			boolean result = delegate.exists(policy, key);
+			endGetTime(now, key, GetOperation.EXISTS, result, null);
+			return result;
+		}
+		catch (AerospikeException ae) {
+			endGetTime(now, key, GetOperation.EXISTS, false, ae);
+			throw ae;
+		}
 	}
 
 	public void exists(EventLoop eventLoop, ExistsListener listener, Policy policy, Key key) throws AerospikeException {
-		delegate.exists(eventLoop, listener, policy, key);
+		ExistsListener timed = timeExists(listener, key);
+		try {
+			delegate.exists(eventLoop, timed, policy, key);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public boolean[] exists(BatchPolicy policy, Key[] keys) throws AerospikeException {
-		return delegate.exists(policy, keys);
+		long now = startBatchTime();
+		try {
+			boolean[] results = delegate.exists(policy, keys);
+			endBatchTime(now, keys, results, null);
+			return results;
+		}
+		catch (AerospikeException ae) {
+			endBatchTime(now, keys, (boolean[])null, ae);
+			throw ae;
+		}
 	}
 
 	public void exists(EventLoop eventLoop, ExistsArrayListener listener, BatchPolicy policy, Key[] keys)
 			throws AerospikeException {
-		delegate.exists(eventLoop, listener, policy, keys);
+		ExistsArrayListener timed = timeBatch(listener, keys);
+		try {
+			delegate.exists(eventLoop, timed, policy, keys);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public void exists(EventLoop eventLoop, ExistsSequenceListener listener, BatchPolicy policy, Key[] keys)
 			throws AerospikeException {
-		delegate.exists(eventLoop, listener, policy, keys);
+		ExistsSequenceListener timed = timeBatch(listener, keys);
+		try {
+			delegate.exists(eventLoop, timed, policy, keys);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public Record get(Policy policy, Key key) throws AerospikeException {
 		long now = startGetTime();
 		try {
 			Record result = delegate.get(policy, key);
-			endGetTime(now, key, result, null);
+			endGetTime(now, key, GetOperation.GET, result != null, null);
 			return result;
 		}
 		catch (AerospikeException ae) {
-			endGetTime(now, key, null, ae);
+			endGetTime(now, key, GetOperation.GET, false, ae);
 			throw ae;
 		}
 	}
 
 	public void get(EventLoop eventLoop, RecordListener listener, Policy policy, Key key) throws AerospikeException {
-		delegate.get(eventLoop, listener, policy, key);
+		RecordListener timed = timeRead(listener, key, GetOperation.GET);
+		try {
+			delegate.get(eventLoop, timed, policy, key);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public Record get(Policy policy, Key key, String... binNames) throws AerospikeException {
 		long now = startGetTime();
 		try {
 			Record result = delegate.get(policy, key, binNames);
-			endGetTime(now, key, result, null);
+			endGetTime(now, key, GetOperation.GET_BINS, result != null, null);
 			return result;
 		}
 		catch (AerospikeException ae) {
-			endGetTime(now, key, null, ae);
+			endGetTime(now, key, GetOperation.GET_BINS, false, ae);
 			throw ae;
 		}
 	}
 
 	public void get(EventLoop eventLoop, RecordListener listener, Policy policy, Key key, String... binNames)
 			throws AerospikeException {
-		delegate.get(eventLoop, listener, policy, key, binNames);
+		RecordListener timed = timeRead(listener, key, GetOperation.GET_BINS);
+		try {
+			delegate.get(eventLoop, timed, policy, key, binNames);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public Record getHeader(Policy policy, Key key) throws AerospikeException {
-		return delegate.getHeader(policy, key);
+		long now = startGetTime();
+		try {
+			Record result = delegate.getHeader(policy, key);
+			endGetTime(now, key, GetOperation.GET_HEADER, result != null, null);
+			return result;
+		}
+		catch (AerospikeException ae) {
+			endGetTime(now, key, GetOperation.GET_HEADER, false, ae);
+			throw ae;
+		}
 	}
 
 	public void getHeader(EventLoop eventLoop, RecordListener listener, Policy policy, Key key)
 			throws AerospikeException {
-		delegate.getHeader(eventLoop, listener, policy, key);
+		RecordListener timed = timeRead(listener, key, GetOperation.GET_HEADER);
+		try {
+			delegate.getHeader(eventLoop, timed, policy, key);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public void get(BatchPolicy policy, List<BatchRead> records) throws AerospikeException {
-		delegate.get(policy, records);
+		long now = startBatchTime();
+		try {
+			delegate.get(policy, records);
+			endBatchTime(now, records, null);
+		}
+		catch (AerospikeException ae) {
+			endBatchTime(now, records, ae);
+			throw ae;
+		}
 	}
 
 	public void get(EventLoop eventLoop, BatchListListener listener, BatchPolicy policy, List<BatchRead> records)
 			throws AerospikeException {
-		delegate.get(eventLoop, listener, policy, records);
+		BatchListListener timed = timeBatch(listener, records);
+		try {
+			delegate.get(eventLoop, timed, policy, records);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public void get(EventLoop eventLoop, BatchSequenceListener listener, BatchPolicy policy, List<BatchRead> records)
 			throws AerospikeException {
-		delegate.get(eventLoop, listener, policy, records);
+		BatchSequenceListener timed = timeBatch(listener, records);
+		try {
+			delegate.get(eventLoop, timed, policy, records);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public Record[] get(BatchPolicy policy, Key[] keys) throws AerospikeException {
@@ -829,19 +2303,33 @@ public class DebugAerospikeClient implements IAerospikeClient {
 			return results;
 		}
 		catch (AerospikeException ae) {
-			endBatchTime(now, keys, null, ae);
+			endBatchTime(now, keys, (Record[])null, ae);
 			throw ae;
 		}
 	}
 
 	public void get(EventLoop eventLoop, RecordArrayListener listener, BatchPolicy policy, Key[] keys)
 			throws AerospikeException {
-		delegate.get(eventLoop, listener, policy, keys);
+		RecordArrayListener timed = timeBatch(listener, keys);
+		try {
+			delegate.get(eventLoop, timed, policy, keys);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public void get(EventLoop eventLoop, RecordSequenceListener listener, BatchPolicy policy, Key[] keys)
 			throws AerospikeException {
-		delegate.get(eventLoop, listener, policy, keys);
+		RecordSequenceListener timed = timeBatch(listener, keys);
+		try {
+			delegate.get(eventLoop, timed, policy, keys);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public Record[] get(BatchPolicy policy, Key[] keys, String... binNames) throws AerospikeException {
@@ -852,33 +2340,70 @@ public class DebugAerospikeClient implements IAerospikeClient {
 			return results;
 		}
 		catch (AerospikeException ae) {
-			endBatchTime(now, keys, null, ae);
+			endBatchTime(now, keys, (Record[])null, ae);
 			throw ae;
 		}
 	}
 
 	public void get(EventLoop eventLoop, RecordArrayListener listener, BatchPolicy policy, Key[] keys,
 			String... binNames) throws AerospikeException {
-		delegate.get(eventLoop, listener, policy, keys, binNames);
+		RecordArrayListener timed = timeBatch(listener, keys);
+		try {
+			delegate.get(eventLoop, timed, policy, keys, binNames);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public void get(EventLoop eventLoop, RecordSequenceListener listener, BatchPolicy policy, Key[] keys,
 			String... binNames) throws AerospikeException {
-		delegate.get(eventLoop, listener, policy, keys, binNames);
+		RecordSequenceListener timed = timeBatch(listener, keys);
+		try {
+			delegate.get(eventLoop, timed, policy, keys, binNames);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public Record[] getHeader(BatchPolicy policy, Key[] keys) throws AerospikeException {
-		return delegate.getHeader(policy, keys);
+		long now = startBatchTime();
+		try {
+			Record[] results = delegate.getHeader(policy, keys);
+			endBatchTime(now, keys, results, null);
+			return results;
+		}
+		catch (AerospikeException ae) {
+			endBatchTime(now, keys, (Record[])null, ae);
+			throw ae;
+		}
 	}
 
 	public void getHeader(EventLoop eventLoop, RecordArrayListener listener, BatchPolicy policy, Key[] keys)
 			throws AerospikeException {
-		delegate.getHeader(eventLoop, listener, policy, keys);
+		RecordArrayListener timed = timeBatch(listener, keys);
+		try {
+			delegate.getHeader(eventLoop, timed, policy, keys);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public void getHeader(EventLoop eventLoop, RecordSequenceListener listener, BatchPolicy policy, Key[] keys)
 			throws AerospikeException {
-		delegate.getHeader(eventLoop, listener, policy, keys);
+		RecordSequenceListener timed = timeBatch(listener, keys);
+		try {
+			delegate.getHeader(eventLoop, timed, policy, keys);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public Record operate(WritePolicy policy, Key key, Operation... operations) throws AerospikeException {
@@ -896,27 +2421,79 @@ public class DebugAerospikeClient implements IAerospikeClient {
 
 	public void operate(EventLoop eventLoop, RecordListener listener, WritePolicy policy, Key key,
 			Operation... operations) throws AerospikeException {
-		delegate.operate(eventLoop, listener, policy, key, operations);
+		RecordListener timed = timeOperate(listener, key);
+		try {
+			delegate.operate(eventLoop, timed, policy, key, operations);
+		}
+		catch (RuntimeException re) {
+			abortTimed(timed, listener, re);
+			throw re;
+		}
 	}
 
 	public void scanAll(ScanPolicy policy, String namespace, String setName, ScanCallback callback, String... binNames)
 			throws AerospikeException {
-		delegate.scanAll(policy, namespace, setName, callback, binNames);
+		StreamMonitor monitor = startStream("scanAll", namespace, setName, callback, null);
+		if (monitor == null) {
+			delegate.scanAll(policy, namespace, setName, callback, binNames);
+			return;
+		}
+		try {
+			delegate.scanAll(policy, namespace, setName, monitor, binNames);
+			monitor.complete(null);
+		}
+		catch (RuntimeException re) {
+			monitor.complete(re);
+			throw re;
+		}
 	}
 
 	public void scanAll(EventLoop eventLoop, RecordSequenceListener listener, ScanPolicy policy, String namespace,
 			String setName, String... binNames) throws AerospikeException {
-		delegate.scanAll(eventLoop, listener, policy, namespace, setName, binNames);
+		StreamMonitor monitor = startStream("scanAll", namespace, setName, null, listener);
+		try {
+			delegate.scanAll(eventLoop, monitor == null ? listener : monitor, policy, namespace, setName, binNames);
+		}
+		catch (RuntimeException re) {
+			if (monitor != null) {
+				monitor.complete(re);
+			}
+			throw re;
+		}
 	}
 
 	public void scanNode(ScanPolicy policy, String nodeName, String namespace, String setName, ScanCallback callback,
 			String... binNames) throws AerospikeException {
-		delegate.scanNode(policy, nodeName, namespace, setName, callback, binNames);
+		StreamMonitor monitor = startStream("scanNode " + nodeName, namespace, setName, callback, null);
+		if (monitor == null) {
+			delegate.scanNode(policy, nodeName, namespace, setName, callback, binNames);
+			return;
+		}
+		try {
+			delegate.scanNode(policy, nodeName, namespace, setName, monitor, binNames);
+			monitor.complete(null);
+		}
+		catch (RuntimeException re) {
+			monitor.complete(re);
+			throw re;
+		}
 	}
 
 	public void scanNode(ScanPolicy policy, Node node, String namespace, String setName, ScanCallback callback,
 			String... binNames) throws AerospikeException {
-		delegate.scanNode(policy, node, namespace, setName, callback, binNames);
+		StreamMonitor monitor = startStream("scanNode " + node.getName(), namespace, setName, callback, null);
+		if (monitor == null) {
+			delegate.scanNode(policy, node, namespace, setName, callback, binNames);
+			return;
+		}
+		try {
+			delegate.scanNode(policy, node, namespace, setName, monitor, binNames);
+			monitor.complete(null);
+		}
+		catch (RuntimeException re) {
+			monitor.complete(re);
+			throw re;
+		}
 	}
 
 	public RegisterTask register(Policy policy, String clientPath, String serverPath, Language language)
@@ -938,6 +2515,10 @@ public class DebugAerospikeClient implements IAerospikeClient {
 		delegate.removeUdf(policy, serverPath);
 	}
 
+	/*
+	 * UDF calls are not timed, synchronous or asynchronous: their latency is mostly the time the function takes
+	 * to run on the server, which would distort the put latencies.
+	 */
 	public Object execute(WritePolicy policy, Key key, String packageName, String functionName, Value... args)
 			throws AerospikeException {
 		return delegate.execute(policy, key, packageName, functionName, args);
@@ -953,13 +2534,27 @@ public class DebugAerospikeClient implements IAerospikeClient {
 		return delegate.execute(policy, statement, packageName, functionName, functionArgs);
 	}
 
+	/*
+	 * RecordSet is final and is filled directly by the client's query threads, so the records read through it
+	 * cannot be counted without adding a second hand-off per record. The synchronous queries are therefore
+	 * not monitored; the asynchronous ones are.
+	 */
 	public RecordSet query(QueryPolicy policy, Statement statement) throws AerospikeException {
 		return delegate.query(policy, statement);
 	}
 
 	public void query(EventLoop eventLoop, RecordSequenceListener listener, QueryPolicy policy, Statement statement)
 			throws AerospikeException {
-		delegate.query(eventLoop, listener, policy, statement);
+		StreamMonitor monitor = startStream("query", statement.getNamespace(), statement.getSetName(), null, listener);
+		try {
+			delegate.query(eventLoop, monitor == null ? listener : monitor, policy, statement);
+		}
+		catch (RuntimeException re) {
+			if (monitor != null) {
+				monitor.complete(re);
+			}
+			throw re;
+		}
 	}
 
 	public RecordSet queryNode(QueryPolicy policy, Statement statement, Node node) throws AerospikeException {
@@ -1058,46 +2653,75 @@ public class DebugAerospikeClient implements IAerospikeClient {
 	@Override
 	public void scanPartitions(ScanPolicy policy, PartitionFilter partitionFilter, String namespace, String setName,
 			ScanCallback callback, String... binNames) throws AerospikeException {
-
-		delegate.scanPartitions(policy, partitionFilter, namespace, setName, callback, binNames);
+		StreamMonitor monitor = startStream("scanPartitions", namespace, setName, callback, null);
+		if (monitor == null) {
+			delegate.scanPartitions(policy, partitionFilter, namespace, setName, callback, binNames);
+			return;
+		}
+		try {
+			delegate.scanPartitions(policy, partitionFilter, namespace, setName, monitor, binNames);
+			monitor.complete(null);
+		}
+		catch (RuntimeException re) {
+			monitor.complete(re);
+			throw re;
+		}
 	}
 
 	@Override
 	public void scanPartitions(EventLoop eventLoop, RecordSequenceListener listener, ScanPolicy policy,
 			PartitionFilter partitionFilter, String namespace, String setName, String... binNames)
 			throws AerospikeException {
-		delegate.scanPartitions(eventLoop, listener, policy, partitionFilter, namespace, setName, binNames);
+		StreamMonitor monitor = startStream("scanPartitions", namespace, setName, null, listener);
+		try {
+			delegate.scanPartitions(eventLoop, monitor == null ? listener : monitor, policy, partitionFilter, namespace, setName, binNames);
+		}
+		catch (RuntimeException re) {
+			if (monitor != null) {
+				monitor.complete(re);
+			}
+			throw re;
+		}
 	}
 
 	@Override
 	public RecordSet queryPartitions(QueryPolicy policy, Statement statement, PartitionFilter partitionFilter)
 			throws AerospikeException {
-		return queryPartitions(policy, statement, partitionFilter);
+		return delegate.queryPartitions(policy, statement, partitionFilter);
 	}
 
 	@Override
 	public void queryPartitions(EventLoop eventLoop, RecordSequenceListener listener, QueryPolicy policy,
 			Statement statement, PartitionFilter partitionFilter) throws AerospikeException {
-		queryPartitions(eventLoop, listener, policy, statement, partitionFilter);
+		StreamMonitor monitor = startStream("queryPartitions", statement.getNamespace(), statement.getSetName(), null, listener);
+		try {
+			delegate.queryPartitions(eventLoop, monitor == null ? listener : monitor, policy, statement, partitionFilter);
+		}
+		catch (RuntimeException re) {
+			if (monitor != null) {
+				monitor.complete(re);
+			}
+			throw re;
+		}
 	}
 
 	@Override
 	public void createIndex(EventLoop eventLoop, IndexListener listener, Policy policy, String namespace,
 			String setName, String indexName, String binName, IndexType indexType,
 			IndexCollectionType indexCollectionType) throws AerospikeException {
-		createIndex(eventLoop, listener, policy, namespace, setName, indexName, binName, indexType, indexCollectionType);
+		delegate.createIndex(eventLoop, listener, policy, namespace, setName, indexName, binName, indexType, indexCollectionType);
 	}
 
 	@Override
 	public void dropIndex(EventLoop eventLoop, IndexListener listener, Policy policy, String namespace, String setName,
 			String indexName) throws AerospikeException {
-		dropIndex(eventLoop, listener, policy, namespace, setName, indexName);
+		delegate.dropIndex(eventLoop, listener, policy, namespace, setName, indexName);
 	}
 
 	@Override
 	public void info(EventLoop eventLoop, InfoListener listener, InfoPolicy policy, Node node, String... commands)
 			throws AerospikeException {
-		info(eventLoop, listener, policy, node, commands);
+		delegate.info(eventLoop, listener, policy, node, commands);
 	}
 
 	@Override
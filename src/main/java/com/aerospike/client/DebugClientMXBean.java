@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+/**
+ * A <code>DebugAerospikeClient</code> as seen through JMX. The latencies of each category of calls are in
+ * their own <code>LatencyMXBean</code> alongside this one.
+ */
+public interface DebugClientMXBean {
+	public String getGetLogging();
+
+	public String getPutLogging();
+
+	public String getBatchLogging();
+
+	/** The operations of all the categories in all the intervals reported so far */
+	public long getOperations();
+
+	/** The successful operations of all the categories in all the intervals reported so far */
+	public long getSuccess();
+
+	/** The operations per second of all the categories in the intervals most recently reported */
+	public double getOperationsPerSecond();
+
+	/** The number of scans and asynchronous queries being monitored */
+	public int getStreamsInProgress();
+
+	/** The number of EVERY_CALL events which were dropped because the buffer was full */
+	public long getEventsDropped();
+
+	public boolean isClosed();
+}
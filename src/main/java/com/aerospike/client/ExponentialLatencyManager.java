@@ -17,39 +17,39 @@
 package com.aerospike.client;
 
 import java.io.PrintStream;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class ExponentialLatencyManager extends AbstractLatencyManager implements LatencyManager {
-	private final AtomicInteger[] buckets;
+	private final int columns;
 	private final int lastBucket;
 	private final int multiplyer;
 	private final boolean showMicroSeconds;
     private String header;
+	// Reused by the reporting thread for each line
+	private final long[] cumulativeBuckets;
 
 	public ExponentialLatencyManager(int columns, int bitShift, boolean showMicroSeconds) {
-		super();
+		super(columns);
+		this.columns = columns;
+		this.cumulativeBuckets = new long[columns];
 		this.lastBucket = columns - 1;
 		this.multiplyer = bitShift;
 		this.showMicroSeconds = showMicroSeconds;
-		buckets = new AtomicInteger[columns];
-		for (int i = 0; i < columns; i++) {
-			buckets[i] = new AtomicInteger();
-		}
 		formHeader();
 	}
 
 	@Override
 	public LatencyManager duplicate() {
-		return new ExponentialLatencyManager(buckets.length, this.multiplyer, this.showMicroSeconds);
+		return copySettings(new ExponentialLatencyManager(columns, this.multiplyer, this.showMicroSeconds));
 	}
 
-	private void formHeader() {
+	@Override
+	protected void formHeader() {
 		int limit = 1;
 		String units = showMicroSeconds ? "us" : "ms";
 		StringBuilder s = new StringBuilder(64);
 		s.append("      <=1").append(units).append(" >1").append(units);
 
-		for (int i = 2; i < buckets.length; i++) {			
+		for (int i = 2; i < columns; i++) {			
 			limit <<= multiplyer;
 			s.append(" >").append(limit).append(units);
 		}
@@ -57,13 +57,8 @@ public class ExponentialLatencyManager extends AbstractLatencyManager implements
 		header = s.toString();
 	}
 
-	public void add(long elapsedUs, int count, int success) {
-		int index = getIndex(elapsedUs);
-		buckets[index].incrementAndGet();
-		super.add(elapsedUs, count, success);
-	}
-
-	private int getIndex(long elapsedUs) {
+	@Override
+	protected int getIndex(long elapsedUs) {
 		long limit = 1L;
 		if (!showMicroSeconds) {
 			elapsedUs /= US_TO_MS;
@@ -83,26 +78,23 @@ public class ExponentialLatencyManager extends AbstractLatencyManager implements
 	
 	/**
 	 * Print latency percents for specified cumulative ranges.
-	 * This function is not absolutely accurate for a given time slice because this method 
-	 * is not synchronized with the add() method.  Some values will slip into the next iteration.  
-	 * It is not a good idea to add extra locks just to measure performance since that actually 
-	 * affects performance.  Fortunately, the values will even out over time
-	 * (ie. no double counting).
+	 * The buckets passed are a stable snapshot of the interval, taken at the same time as the
+	 * other columns on the line.
 	 */
 	@Override
-	public void printLatencyResults(PrintStream stream, String prefix) {
-		// Capture snapshot and make buckets cumulative.
-		int[] array = new int[buckets.length];
-		int sum = 0;
-		int count;
+	public void printLatencyResults(PrintStream stream, String prefix, long[] buckets) {
+		// Make buckets cumulative.
+		long[] array = cumulativeBuckets;
+		long sum = 0;
+		long count;
 
 		for (int i = buckets.length - 1; i >= 1 ; i--) {
-			count = buckets[i].getAndSet(0);
+			count = buckets[i];
 			array[i] = count + sum;
 			sum += count;
 		}
 		// The first bucket (<=1ms) does not need a cumulative adjustment.
-		count = buckets[0].getAndSet(0);
+		count = buckets[0];
 		array[0] = count;
 		sum += count;
 
@@ -139,7 +131,7 @@ public class ExponentialLatencyManager extends AbstractLatencyManager implements
 		}
 		else {
 			int i = 2;
-			while (i <= index && i < buckets.length) {			
+			while (i <= index && i < columns) {			
 				limit += multiplyer;
 				if ( i == index ) {
 					retStr = new String(">" + limit + units);
@@ -150,19 +142,25 @@ public class ExponentialLatencyManager extends AbstractLatencyManager implements
 		return retStr;
 	}
 
+	/**
+	 * Get the number of operations in the interval most recently reported which were at or above the
+	 * passed bucket. This does not reset anything, so it does not take operations from the periodic output.
+	 */
 	public double getBucketValue(int index ) {
-		int[] array = new int[buckets.length];
-		int sum = 0;
-		int count, i;
+		long[] buckets = getLastIntervalBuckets();
+		long[] array = new long[buckets.length];
+		long sum = 0;
+		long count;
+		int i;
 
 		for (i = buckets.length - 1; i >= 1; i--) {
-			count = buckets[i].getAndSet(0);
+			count = buckets[i];
 			array[i] = count + sum;
 			sum += count;
 		}
 
 		// The first bucket (<=1ms) does not need a cumulative adjustment;
-		count = buckets[0].getAndSet(0);
+		count = buckets[0];
 		array[0] = count;
 		sum += count;
 		if ( index < buckets.length){
@@ -174,18 +172,24 @@ public class ExponentialLatencyManager extends AbstractLatencyManager implements
 
 	}
 
+	/**
+	 * Get the cumulative bucket counts of the interval most recently reported, as printed. This does not
+	 * reset anything, so it does not take operations from the periodic output.
+	 */
 	public double[] getBucketArray() {
+		long[] buckets = getLastIntervalBuckets();
 		double[] array = new double[buckets.length];
-		int sum = 0;
-		int count, i;
+		long sum = 0;
+		long count;
+		int i;
 
 		for (i = buckets.length - 1; i >= 1; i--) {
-			count = buckets[i].getAndSet(0);
+			count = buckets[i];
 			array[i] = count + sum;
 			sum += count;
 		}
 		// The first bucket (<=1ms) does not need a cumulative adjustment;
-		count = buckets[0].getAndSet(0);
+		count = buckets[0];
 		array[0] = count;
 		return array;
 	}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.PrintStream;
+
+/**
+ * A latency manager which records into a log-linear (HdrHistogram style) set of buckets with microsecond
+ * resolution, so sub-millisecond latencies are reported accurately. The relative precision of the
+ * buckets is set by the number of significant digits, the memory used is fixed at construction and
+ * recording is O(1).
+ * <p/>
+ * Rather than a column per bucket, each line shows the latency at a set of percentiles for the interval,
+ * by default the 50th, 90th, 99th, 99.9th and 99.99th. These are computed from this manager's own buckets
+ * rather than the compact histogram the other managers use.
+ * <p/>
+ * For example, to use it for all operations:
+ * <pre>
+ * options.setLatencyManager(new HdrLatencyManager(2));
+ * </pre>
+ */
+public class HdrLatencyManager extends AbstractLatencyManager implements LatencyManager {
+	/** The default highest trackable latency, 10 minutes */
+	public static final long DEFAULT_HIGHEST_TRACKABLE_US = HIGHEST_TRACKABLE_US;
+	private static final double[] DEFAULT_PERCENTILES = new double[] {50.0, 90.0, 99.0, 99.9, 99.99};
+
+	private final LogLinearBuckets layout;
+	private String header;
+
+	public HdrLatencyManager(int significantDigits, long highestTrackableUs) {
+		this(new LogLinearBuckets(significantDigits, highestTrackableUs));
+	}
+
+	public HdrLatencyManager(int significantDigits) {
+		this(significantDigits, DEFAULT_HIGHEST_TRACKABLE_US);
+	}
+
+	public HdrLatencyManager() {
+		this(2);
+	}
+
+	private HdrLatencyManager(LogLinearBuckets layout) {
+		// The percentile histogram is our histogram, so there are no other buckets to record.
+		super(0, 0, layout);
+		this.layout = layout;
+		setPercentiles(DEFAULT_PERCENTILES);
+	}
+
+	@Override
+	public LatencyManager duplicate() {
+		return copySettings(new HdrLatencyManager(layout.getSignificantDigits(), layout.getHighestTrackableValue()));
+	}
+
+	@Override
+	protected void formHeader() {
+		header = "      " + this.formHeaderSuffix();
+	}
+
+	@Override
+	protected int getIndex(long elapsedUs) {
+		return -1;
+	}
+
+	public void printHeader(PrintStream stream) {
+		stream.println(header);
+	}
+
+	@Override
+	public void printLatencyResults(PrintStream stream, String prefix, long[] buckets) {
+		stream.print(prefix);
+		for (int j = prefix.length(); j < 6; j++) {
+			stream.print(' ');
+		}
+	}
+}
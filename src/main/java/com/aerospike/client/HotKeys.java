@@ -0,0 +1,239 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.aerospike.client.command.Buffer;
+
+/**
+ * Finds the most frequently used keys in each reporting interval with the space-saving algorithm, in fixed
+ * memory per thread whatever the size of the keyspace. Each thread counts its own calls in its own sketch, so
+ * threads never wait for each other, even when they are all using the same key; the sketches are only merged
+ * when the interval is reported. Each sketch keeps a small table of keys and counts; a key which is not in a
+ * full table replaces the one with the lowest count and inherits that count, which is kept as the error of its
+ * count.
+ * <p/>
+ * Any key with more than <code>1/capacity</code> of a thread's calls is guaranteed to be in that thread's table,
+ * so with the defaults any key with more than about 1.6% of the calls of the threads using it is found.
+ */
+class HotKeys {
+	static final int THREAD_CAPACITY = 64;
+
+	private final int topKeys;
+	private final List<Sketch> sketches = new CopyOnWriteArrayList<Sketch>();
+	private final ThreadLocal<Sketch> threadSketch = new ThreadLocal<Sketch>() {
+		@Override
+		protected Sketch initialValue() {
+			Sketch sketch = new Sketch();
+			sketches.add(sketch);
+			return sketch;
+		}
+	};
+
+	/**
+	 * The keys counted by one thread in one interval. Only the owning thread adds to a table, and only
+	 * the reporter drains it once the owner has left it, so the table needs no locking.
+	 */
+	private static final class Table {
+		final long[] hashes = new long[THREAD_CAPACITY];
+		final Key[] keys = new Key[THREAD_CAPACITY];
+		final long[] counts = new long[THREAD_CAPACITY];
+		final long[] errors = new long[THREAD_CAPACITY];
+		int size;
+		long total;
+
+		void add(long hash, Key key) {
+			total++;
+			for (int i = 0; i < size; i++) {
+				if (hashes[i] == hash && sameKey(i, key)) {
+					counts[i]++;
+					return;
+				}
+			}
+			int slot;
+			long inherited = 0;
+			if (size < THREAD_CAPACITY) {
+				slot = size++;
+			}
+			else {
+				slot = 0;
+				for (int i = 1; i < THREAD_CAPACITY; i++) {
+					if (counts[i] < counts[slot]) {
+						slot = i;
+					}
+				}
+				inherited = counts[slot];
+			}
+			hashes[slot] = hash;
+			keys[slot] = key;
+			counts[slot] = inherited + 1;
+			errors[slot] = inherited;
+		}
+
+		private boolean sameKey(int i, Key key) {
+			Key other = keys[i];
+			if (other == key) {
+				return true;
+			}
+			byte[] digest = other.digest;
+			for (int b = 8; b < digest.length; b++) {
+				if (digest[b] != key.digest[b]) {
+					return false;
+				}
+			}
+			return key.namespace.equals(other.namespace);
+		}
+
+		long drain(Map<Key, HotKey> into) {
+			for (int i = 0; i < size; i++) {
+				Key key = keys[i];
+				HotKey previous = into.get(key);
+				if (previous == null) {
+					into.put(key, new HotKey(key.namespace, key.setName, key.digest, counts[i], errors[i]));
+				}
+				else {
+					into.put(key, new HotKey(key.namespace, key.setName, key.digest, previous.count + counts[i], previous.error + errors[i]));
+				}
+				keys[i] = null;
+			}
+			size = 0;
+			long result = total;
+			total = 0;
+			return result;
+		}
+	}
+
+	/**
+	 * A thread's pair of tables. The owner adds to the active one while the reporter flips to the other
+	 * and drains the one the owner has left, with the same writer/reader phaser as <code>StripedLatencyRecorder</code>.
+	 */
+	private static final class Sketch {
+		final Thread owner = Thread.currentThread();
+		final Table[] tables = {new Table(), new Table()};
+		final AtomicLong startEpoch = new AtomicLong(0);
+		final AtomicLong evenEndEpoch = new AtomicLong(0);
+		final AtomicLong oddEndEpoch = new AtomicLong(Long.MIN_VALUE);
+
+		void add(long hash, Key key) {
+			long epoch = startEpoch.getAndIncrement();
+			try {
+				tables[epoch < 0 ? 1 : 0].add(hash, key);
+			}
+			finally {
+				(epoch < 0 ? oddEndEpoch : evenEndEpoch).getAndIncrement();
+			}
+		}
+
+		/**
+		 * Make the other table active, and wait for the owner to leave the previously active one.
+		 * @return the table which is now inactive
+		 */
+		Table flip() {
+			boolean nextPhaseIsEven = startEpoch.get() < 0;
+			long initialStartValue = nextPhaseIsEven ? 0 : Long.MIN_VALUE;
+			(nextPhaseIsEven ? evenEndEpoch : oddEndEpoch).set(initialStartValue);
+			long startValueAtFlip = startEpoch.getAndSet(initialStartValue);
+			AtomicLong endEpoch = nextPhaseIsEven ? oddEndEpoch : evenEndEpoch;
+			while (endEpoch.get() != startValueAtFlip) {
+				Thread.yield();
+			}
+			return tables[nextPhaseIsEven ? 1 : 0];
+		}
+	}
+
+	/**
+	 * A key and its count in an interval. The true count is between <code>count - error</code> and <code>count</code>.
+	 */
+	static final class HotKey {
+		final String namespace;
+		final String setName;
+		final byte[] digest;
+		final long count;
+		final long error;
+
+		HotKey(String namespace, String setName, byte[] digest, long count, long error) {
+			this.namespace = namespace;
+			this.setName = setName;
+			this.digest = digest;
+			this.count = count;
+			this.error = error;
+		}
+	}
+
+	/**
+	 * @param topKeys - the number of keys to report each interval
+	 */
+	HotKeys(int topKeys) {
+		this.topKeys = topKeys;
+	}
+
+	void add(Key key) {
+		byte[] digest = key.digest;
+		// Digests are uniformly distributed, so their first 8 bytes make a good hash
+		long hash = 0;
+		for (int i = 0; i < 8; i++) {
+			hash = (hash << 8) | (digest[i] & 0xFF);
+		}
+		threadSketch.get().add(hash, key);
+	}
+
+	/**
+	 * End the interval, printing the hottest keys and their share of the calls if there were any and
+	 * <code>print</code> is set, and start counting again. The sketches of threads which have ended are
+	 * dropped once they have been drained.
+	 */
+	void report(PrintStream stream, boolean print) {
+		Map<Key, HotKey> merged = new HashMap<Key, HotKey>();
+		long total = 0;
+		for (Sketch sketch : sketches) {
+			// Checked before the flip, so an ended thread's last calls are in the table drained now
+			boolean ended = !sketch.owner.isAlive();
+			total += sketch.flip().drain(merged);
+			if (ended) {
+				sketches.remove(sketch);
+			}
+		}
+		List<HotKey> keys = new ArrayList<HotKey>(merged.values());
+		if (!print || total == 0) {
+			return;
+		}
+		Collections.sort(keys, new Comparator<HotKey>() {
+			@Override
+			public int compare(HotKey o1, HotKey o2) {
+				return Long.compare(o2.count, o1.count);
+			}
+		});
+		stream.printf("Hottest keys of %,d calls:\n", total);
+		for (int i = 0; i < keys.size() && i < topKeys; i++) {
+			HotKey key = keys.get(i);
+			stream.printf("   %5.1f%% %,d", 100.0 * key.count / total, key.count);
+			if (key.error > 0) {
+				stream.printf(" (up to %,d over)", key.error);
+			}
+			stream.printf(" %s:%s:%s\n", key.namespace, key.setName == null ? "" : key.setName, Buffer.bytesToHexString(key.digest));
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures what the client's own instrumentation costs, so it can be shown to be cheap enough to leave on.
+ * 1 in N calls is chosen by a random draw, and the time spent recording it (the latency managers, samplers,
+ * hot keys and so on) and the bytes the calling thread allocated while doing so are measured. The other calls
+ * only pay for the random draw. The two clock reads which time every call are added to the time, and the cost
+ * of the measurement itself is subtracted.
+ * <p/>
+ * The cost of a clock read is measured by the reporting thread at each report, as the fastest of several
+ * batches of reads and the fastest seen so far. A single measurement taken at start up would run before the
+ * JIT has compiled anything and overstate it, so the first report runs enough batches, a few milliseconds'
+ * worth, for the loop to be compiled part way through. The figure used is printed with the overhead.
+ * <p/>
+ * Bytes are counted with <code>com.sun.management.ThreadMXBean</code>, if the JVM supports it. The time the
+ * reporting thread takes over each report is recorded by the reporting thread.
+ */
+class InstrumentationOverhead {
+	private static final int CALIBRATION_BATCHES = 10;
+	private static final int CALIBRATION_ROUNDS = 100;
+	// Enough clock reads for the JIT to compile the calibration loop
+	private static final int WARM_UP_BATCHES = 2000;
+	private final int oneInN;
+	private final com.sun.management.ThreadMXBean threads;
+	// The allocated bytes when a sample started, by thread
+	private final ThreadLocal<long[]> sampleStartBytes = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[1];
+		}
+	};
+	private final long byteCountCost;
+	private final LongAdder samples = new LongAdder();
+	private final LongAdder sampledNs = new LongAdder();
+	private final LongAdder sampledBytes = new LongAdder();
+	// Only used by the reporting thread
+	private long lastReportNs = -1;
+	private long clockCostNs = Long.MAX_VALUE;
+
+	/**
+	 * @param oneInN - measure 1 in this many calls
+	 */
+	InstrumentationOverhead(int oneInN) {
+		this.oneInN = oneInN;
+		this.threads = getThreadBean();
+		long cost = 0;
+		if (threads != null) {
+			// The smallest number of bytes reading the count allocates itself
+			cost = Long.MAX_VALUE;
+			for (int i = 0; i < 10; i++) {
+				long before = allocatedBytes();
+				cost = Math.min(cost, allocatedBytes() - before);
+			}
+		}
+		this.byteCountCost = cost;
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+				if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+					return threads;
+				}
+			}
+		}
+		catch (LinkageError le) {
+			// Not a JVM with the com.sun.management extensions
+		}
+		return null;
+	}
+
+	private long allocatedBytes() {
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Decide whether to measure this call's recording, and if so start measuring it.
+	 * @return the start time to pass to <code>end</code>, or 0 if this call is not being measured
+	 */
+	long start() {
+		if (ThreadLocalRandom.current().nextInt(oneInN) != 0) {
+			return 0;
+		}
+		if (threads != null) {
+			sampleStartBytes.get()[0] = allocatedBytes();
+		}
+		long now = System.nanoTime();
+		return now == 0 ? 1 : now;
+	}
+
+	/**
+	 * Finish measuring a call which <code>start</code> chose. The clock costs are applied when the samples are reported.
+	 */
+	void end(long startNs) {
+		long ns = System.nanoTime() - startNs;
+		if (threads != null) {
+			sampledBytes.add(Math.max(0, allocatedBytes() - sampleStartBytes.get()[0] - byteCountCost));
+		}
+		sampledNs.add(ns);
+		samples.increment();
+	}
+
+	/**
+	 * Measure the cost of a clock read again, keeping the fastest seen so far.
+	 */
+	private void calibrateClock() {
+		int batches = clockCostNs == Long.MAX_VALUE ? WARM_UP_BATCHES : CALIBRATION_BATCHES;
+		for (int batch = 0; batch < batches; batch++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+				System.nanoTime();
+			}
+			clockCostNs = Math.min(clockCostNs, (System.nanoTime() - start) / (CALIBRATION_ROUNDS + 1));
+		}
+	}
+
+	/**
+	 * The cost of a clock read used for the last report, in nanoseconds.
+	 */
+	long getClockCostNs() {
+		return clockCostNs;
+	}
+
+	/**
+	 * Record how long the reporting thread took over a report, for the next report.
+	 */
+	void reported(long reportNs) {
+		lastReportNs = reportNs;
+	}
+
+	/**
+	 * Print the cost of the calls measured since the last report, and start again.
+	 */
+	void report(PrintStream stream, boolean print) {
+		long count = samples.sumThenReset();
+		long ns = sampledNs.sumThenReset();
+		long bytes = sampledBytes.sumThenReset();
+		calibrateClock();
+		if (!print) {
+			return;
+		}
+		stream.print("instrumentation: ");
+		if (count == 0) {
+			stream.print("no calls measured");
+		}
+		else {
+			// Each sample includes one clock read, while the call was timed with one clock read before it and one after
+			long mean = (ns + count / 2) / count;
+			stream.print(Math.max(0, mean - clockCostNs) + 2 * clockCostNs);
+			stream.print("ns/op (clock ");
+			stream.print(clockCostNs);
+			stream.print("ns), ");
+			if (threads != null) {
+				stream.print((bytes + count / 2) / count);
+			}
+			else {
+				stream.print("n/a");
+			}
+			stream.print(" B/op");
+		}
+		if (lastReportNs >= 0) {
+			long tenthsOfMs = (lastReportNs + 50000) / 100000;
+			stream.print(", reporter ");
+			stream.print(tenthsOfMs / 10);
+			stream.print('.');
+			stream.print(tenthsOfMs % 10);
+			stream.print("ms");
+		}
+		stream.print('\n');
+	}
+}
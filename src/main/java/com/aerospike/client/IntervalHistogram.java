@@ -0,0 +1,479 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * The latencies recorded by a latency manager over an interval: the operation counts, total, min and max
+ * latency, and a log-linear histogram of the latencies in microseconds which the percentiles are computed from.
+ * <p/>
+ * Histograms with the same layout can be merged exactly, so the percentiles of a merged histogram are the
+ * same as if all the operations had been recorded into one histogram. This allows histograms from many
+ * processes to be combined into fleet-wide percentiles:
+ * <pre>
+ * IntervalHistogram fleet = null;
+ * for (byte[] snapshot : snapshotsFromEachHost) {
+ *     if (fleet == null) {
+ *         fleet = IntervalHistogram.decode(ByteBuffer.wrap(snapshot));
+ *     }
+ *     else {
+ *         fleet.addEncoded(ByteBuffer.wrap(snapshot));
+ *     }
+ * }
+ * long p99 = fleet.getValueAtPercentile(99.0);
+ * </pre>
+ * The encoding is compact and versioned. After a version byte, every number is a LEB128 varint, with
+ * signed values zig-zag encoded. Only the non-empty buckets are written: a run of empty buckets is a
+ * single negative number giving the length of the run.
+ * <p/>
+ * This class is not thread safe.
+ */
+public final class IntervalHistogram {
+	/** The version of the encoding written by <code>encode</code> */
+	public static final int ENCODING_VERSION = 1;
+	// version, 2 layout fields, 2 times and 6 counters, each up to 10 bytes as a varint, plus the bucket payload length
+	private static final int MAX_HEADER_SIZE = 1 + 11 * 10 + 5;
+
+	private final LogLinearBuckets layout;
+	private final long[] counts;
+	private long startTimeMs;
+	private long endTimeMs;
+	private long operations;
+	private long totalLatency;
+	private long min;
+	private long max;
+	private long count;
+	private long success;
+
+	/**
+	 * Create an empty histogram.
+	 * @param significantDigits - the precision of the buckets, 1 to 4
+	 * @param highestTrackableUs - the largest latency, in microseconds, which is tracked
+	 */
+	public IntervalHistogram(int significantDigits, long highestTrackableUs) {
+		this(new LogLinearBuckets(significantDigits, highestTrackableUs));
+	}
+
+	IntervalHistogram(LogLinearBuckets layout) {
+		this.layout = layout;
+		this.counts = new long[layout.getBucketCount()];
+		reset();
+	}
+
+	/**
+	 * Create a copy of the passed histogram.
+	 */
+	public IntervalHistogram(IntervalHistogram other) {
+		this(other.layout);
+		set(other);
+	}
+
+	/**
+	 * Clear all the counters.
+	 */
+	public void reset() {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = 0;
+		}
+		startTimeMs = 0;
+		endTimeMs = 0;
+		operations = 0;
+		totalLatency = 0;
+		min = -1;
+		max = -1;
+		count = 0;
+		success = 0;
+	}
+
+	/**
+	 * Overwrite this histogram with the contents of another one with the same layout.
+	 */
+	public void set(IntervalHistogram other) {
+		checkLayout(other.getSignificantDigits(), other.getHighestTrackableUs());
+		System.arraycopy(other.counts, 0, counts, 0, counts.length);
+		this.startTimeMs = other.startTimeMs;
+		this.endTimeMs = other.endTimeMs;
+		this.operations = other.operations;
+		this.totalLatency = other.totalLatency;
+		this.min = other.min;
+		this.max = other.max;
+		this.count = other.count;
+		this.success = other.success;
+	}
+
+	/**
+	 * Load the interval from the raw counters drained from a <code>StripedLatencyRecorder</code>.
+	 */
+	void load(long[] raw, int bucketOffset, long startTimeMs, long endTimeMs) {
+		System.arraycopy(raw, bucketOffset, counts, 0, counts.length);
+		this.startTimeMs = startTimeMs;
+		this.endTimeMs = endTimeMs;
+		this.operations = raw[StripedLatencyRecorder.OPERATIONS];
+		this.totalLatency = raw[StripedLatencyRecorder.TOTAL_LATENCY];
+		this.min = raw[StripedLatencyRecorder.MIN];
+		this.max = raw[StripedLatencyRecorder.MAX];
+		this.count = raw[StripedLatencyRecorder.COUNT];
+		this.success = raw[StripedLatencyRecorder.SUCCESS];
+	}
+
+	private void checkLayout(int significantDigits, long highestTrackableUs) {
+		if (significantDigits != layout.getSignificantDigits() || highestTrackableUs != layout.getHighestTrackableValue()) {
+			throw new IllegalArgumentException(String.format("Cannot combine a histogram with %d significant digits up to %dus with one with %d significant digits up to %dus",
+					significantDigits, highestTrackableUs, layout.getSignificantDigits(), layout.getHighestTrackableValue()));
+		}
+	}
+
+	private void addCounters(long startTimeMs, long endTimeMs, long operations, long totalLatency, long min, long max, long count, long success) {
+		if (operations == 0 && count == 0 && success == 0) {
+			return;
+		}
+		if (this.startTimeMs == 0 || (startTimeMs > 0 && startTimeMs < this.startTimeMs)) {
+			this.startTimeMs = startTimeMs;
+		}
+		this.endTimeMs = Math.max(this.endTimeMs, endTimeMs);
+		this.operations += operations;
+		this.totalLatency += totalLatency;
+		if (min >= 0 && (this.min < 0 || min < this.min)) {
+			this.min = min;
+		}
+		this.max = Math.max(this.max, max);
+		this.count += count;
+		this.success += success;
+	}
+
+	/**
+	 * Merge another histogram with the same layout into this one.
+	 */
+	public void add(IntervalHistogram other) {
+		checkLayout(other.getSignificantDigits(), other.getHighestTrackableUs());
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		addCounters(other.startTimeMs, other.endTimeMs, other.operations, other.totalLatency, other.min, other.max, other.count, other.success);
+	}
+
+	public int getSignificantDigits() {
+		return layout.getSignificantDigits();
+	}
+
+	public long getHighestTrackableUs() {
+		return layout.getHighestTrackableValue();
+	}
+
+	/** The time the interval started, in milliseconds since the epoch */
+	public long getStartTimeMs() {
+		return startTimeMs;
+	}
+
+	/** The time the interval ended, in milliseconds since the epoch */
+	public long getEndTimeMs() {
+		return endTimeMs;
+	}
+
+	/** The number of operations in the interval */
+	public long getOperations() {
+		return operations;
+	}
+
+	/** The sum of the latencies of all the operations, in microseconds */
+	public long getTotalLatencyUs() {
+		return totalLatency;
+	}
+
+	/** The smallest latency in microseconds, or -1 if there were no operations */
+	public long getMinUs() {
+		return min;
+	}
+
+	/** The largest latency in microseconds, or -1 if there were no operations */
+	public long getMaxUs() {
+		return max;
+	}
+
+	/** The number of records the operations were for (batch operations only) */
+	public long getCount() {
+		return count;
+	}
+
+	/** The number of successful operations, or records found for reads */
+	public long getSuccess() {
+		return success;
+	}
+
+	/**
+	 * The operations per second over the interval, from its real start and end times, or -1 if the
+	 * interval has no length.
+	 */
+	public double getOperationsPerSecond() {
+		long durationMs = endTimeMs - startTimeMs;
+		return durationMs <= 0 ? -1 : operations * 1000.0 / durationMs;
+	}
+
+	public double getMeanUs() {
+		return operations == 0 ? -1 : ((double)totalLatency) / operations;
+	}
+
+	public int getBucketCount() {
+		return counts.length;
+	}
+
+	public long getCountAtBucket(int index) {
+		return counts[index];
+	}
+
+	/** The smallest latency, in microseconds, which falls into the bucket */
+	public long getBucketLowestUs(int index) {
+		return layout.getLowestValue(index);
+	}
+
+	/** The largest latency, in microseconds, which falls into the bucket */
+	public long getBucketHighestUs(int index) {
+		return layout.getHighestValue(index);
+	}
+
+	/**
+	 * Get the latency, in microseconds, at the passed percentile, or -1 if there were no operations.
+	 * The value is the top of the bucket the percentile falls in, capped at the exact maximum.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] result = new long[1];
+		getValuesAtPercentiles(new double[] {percentile}, result);
+		return result[0];
+	}
+
+	/**
+	 * Get the latencies at several percentiles with a single pass over the buckets. Each percentile is turned
+	 * into a count of operations once, so the pass only compares counts.
+	 * @param percentiles - the percentiles wanted, in ascending order
+	 * @param into - where to put the latencies, in microseconds. -1 is used if there were no operations.
+	 */
+	public void getValuesAtPercentiles(double[] percentiles, long[] into) {
+		long total = 0;
+		for (int i = 0; i < counts.length; i++) {
+			total += counts[i];
+		}
+		int percentile = 0;
+		long threshold = total == 0 ? 0 : getThreshold(total, percentiles[0]);
+		long cumulative = 0;
+		for (int i = 0; i < counts.length && percentile < percentiles.length && total > 0; i++) {
+			cumulative += counts[i];
+			while (cumulative >= threshold) {
+				into[percentile++] = max >= 0 ? Math.min(layout.getHighestValue(i), max) : layout.getHighestValue(i);
+				if (percentile >= percentiles.length) {
+					break;
+				}
+				threshold = getThreshold(total, percentiles[percentile]);
+			}
+		}
+		for (; percentile < percentiles.length; percentile++) {
+			into[percentile] = -1;
+		}
+	}
+
+	private static long getThreshold(long total, double percentile) {
+		return Math.max(1, (long)Math.ceil(total * percentile / 100.0));
+	}
+
+	// ---------------------------------
+	// Encoding
+	// ---------------------------------
+
+	/**
+	 * The largest number of bytes <code>encode</code> can write for this histogram.
+	 */
+	public int getMaxEncodedSize() {
+		return MAX_HEADER_SIZE + 10 * counts.length;
+	}
+
+	/**
+	 * Encode the histogram into a new byte array.
+	 */
+	public byte[] encode() {
+		ByteBuffer buffer = ByteBuffer.allocate(getMaxEncodedSize());
+		encode(buffer);
+		byte[] result = new byte[buffer.position()];
+		System.arraycopy(buffer.array(), 0, result, 0, result.length);
+		return result;
+	}
+
+	/**
+	 * Encode the histogram into the buffer at its current position, which must have at least
+	 * <code>getMaxEncodedSize()</code> bytes remaining.
+	 * @return the number of bytes written
+	 */
+	public int encode(ByteBuffer buffer) {
+		int start = buffer.position();
+		buffer.put((byte)ENCODING_VERSION);
+		putVarLong(buffer, layout.getSignificantDigits());
+		putVarLong(buffer, layout.getHighestTrackableValue());
+		putVarLong(buffer, startTimeMs);
+		putVarLong(buffer, endTimeMs - startTimeMs);
+		putVarLong(buffer, operations);
+		putVarLong(buffer, totalLatency);
+		putVarLong(buffer, zigZag(min));
+		putVarLong(buffer, zigZag(max));
+		putVarLong(buffer, count);
+		putVarLong(buffer, success);
+
+		// Leave room for the length of the bucket payload, which is written afterwards.
+		int lengthPosition = buffer.position();
+		buffer.position(lengthPosition + 5);
+		int zeros = 0;
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] == 0) {
+				zeros++;
+			}
+			else {
+				if (zeros > 0) {
+					putVarLong(buffer, zigZag(-zeros));
+					zeros = 0;
+				}
+				putVarLong(buffer, zigZag(counts[i]));
+			}
+		}
+		int end = buffer.position();
+		// Fixed width varint so the length does not move the payload.
+		int payloadLength = end - lengthPosition - 5;
+		for (int i = 0; i < 4; i++) {
+			buffer.put(lengthPosition + i, (byte)((payloadLength >>> (7 * i)) & 0x7F | 0x80));
+		}
+		buffer.put(lengthPosition + 4, (byte)((payloadLength >>> 28) & 0x7F));
+		return end - start;
+	}
+
+	/**
+	 * Decode a histogram written by <code>encode</code>, starting at the buffer's current position. The position
+	 * is left after the encoded histogram.
+	 */
+	public static IntervalHistogram decode(ByteBuffer buffer) {
+		int start = buffer.position();
+		checkVersion(buffer);
+		int significantDigits = (int)getVarLong(buffer);
+		long highestTrackableUs = getVarLong(buffer);
+		buffer.position(start);
+		IntervalHistogram histogram = new IntervalHistogram(significantDigits, highestTrackableUs);
+		histogram.addEncoded(buffer);
+		return histogram;
+	}
+
+	/**
+	 * Merge an encoded histogram into this one without creating an intermediate histogram. The encoded
+	 * histogram must have the same layout as this one. The buffer's position is left after the encoded histogram.
+	 * The whole record is checked before anything is merged, so if it is truncated or malformed an
+	 * <code>IllegalArgumentException</code> is thrown and neither this histogram nor the buffer's position is changed.
+	 */
+	public void addEncoded(ByteBuffer buffer) {
+		int start = buffer.position();
+		try {
+			checkVersion(buffer);
+			checkLayout((int)getVarLong(buffer), getVarLong(buffer));
+			long startTimeMs = getVarLong(buffer);
+			long endTimeMs = startTimeMs + getVarLong(buffer);
+			long operations = getVarLong(buffer);
+			long totalLatency = getVarLong(buffer);
+			long min = unZigZag(getVarLong(buffer));
+			long max = unZigZag(getVarLong(buffer));
+			long count = getVarLong(buffer);
+			long success = getVarLong(buffer);
+			long payloadLength = getVarLong(buffer);
+			if (payloadLength < 0 || payloadLength > buffer.remaining()) {
+				throw new IllegalArgumentException("Encoded histogram is truncated");
+			}
+			int payloadStart = buffer.position();
+			int end = payloadStart + (int)payloadLength;
+			addBuckets(buffer, end, false);
+			buffer.position(payloadStart);
+			addBuckets(buffer, end, true);
+			addCounters(startTimeMs, endTimeMs, operations, totalLatency, min, max, count, success);
+		}
+		catch (BufferUnderflowException bue) {
+			buffer.position(start);
+			throw new IllegalArgumentException("Encoded histogram is truncated", bue);
+		}
+		catch (IllegalArgumentException iae) {
+			buffer.position(start);
+			throw iae;
+		}
+	}
+
+	/**
+	 * Read the encoded bucket counts up to <code>end</code>, adding them to the counts if <code>apply</code> is
+	 * set. Called once without applying to check the whole payload, so a bad payload is never partly merged.
+	 */
+	private void addBuckets(ByteBuffer buffer, int end, boolean apply) {
+		int index = 0;
+		while (buffer.position() < end) {
+			long value = unZigZag(getVarLong(buffer));
+			if (value < 0) {
+				// A run of empty buckets, which may reach the end of the layout but not past it
+				if (value < index - counts.length) {
+					throw new IllegalArgumentException("Encoded histogram has more buckets than its layout allows");
+				}
+				index -= value;
+			}
+			else {
+				if (index >= counts.length) {
+					throw new IllegalArgumentException("Encoded histogram has more buckets than its layout allows");
+				}
+				if (apply) {
+					counts[index] += value;
+				}
+				index++;
+			}
+		}
+		if (buffer.position() != end) {
+			throw new IllegalArgumentException("Encoded histogram bucket counts overrun their length");
+		}
+	}
+
+	private static void checkVersion(ByteBuffer buffer) {
+		int version = buffer.get();
+		if (version != ENCODING_VERSION) {
+			throw new IllegalArgumentException("Unsupported histogram encoding version " + version + ", expected " + ENCODING_VERSION);
+		}
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte)value);
+	}
+
+	private static long getVarLong(ByteBuffer buffer) {
+		long result = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			result |= ((long)(b & 0x7F)) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint in encoded histogram");
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Registers the MBeans of one client with the platform MBean server, under the domain
+ * <code>com.aerospike.client</code>: <code>type=DebugAerospikeClient,name=&lt;name&gt;</code> for the client
+ * and the same with <code>category=gets</code>, <code>puts</code> or <code>batch</code> for each latency manager.
+ * Failing to register is reported but does not stop the client being used.
+ */
+class JmxBeans {
+	public static final String DOMAIN = "com.aerospike.client";
+	private static final AtomicInteger nextId = new AtomicInteger();
+	private final MBeanServer server;
+	private final String name;
+	private final List<ObjectName> registered = new ArrayList<ObjectName>();
+
+	/**
+	 * @param name - the name of the client in the object names, or null to number the clients in the
+	 * order they are created
+	 */
+	JmxBeans(String name) {
+		this.server = ManagementFactory.getPlatformMBeanServer();
+		this.name = name == null ? "client-" + nextId.incrementAndGet() : name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public ObjectName getClientObjectName() throws JMException {
+		return new ObjectName(DOMAIN + ":type=DebugAerospikeClient,name=" + ObjectName.quote(name));
+	}
+
+	public ObjectName getLatencyObjectName(String category) throws JMException {
+		return new ObjectName(DOMAIN + ":type=DebugAerospikeClient,name=" + ObjectName.quote(name) + ",category=" + category);
+	}
+
+	public void registerClient(DebugClientMXBean client) {
+		try {
+			register(getClientObjectName(), new StandardMBean(client, DebugClientMXBean.class, true));
+		}
+		catch (JMException jme) {
+			System.err.println("Error registering the client MBean: " + jme.getMessage());
+		}
+	}
+
+	/**
+	 * Register a latency manager, if there is one.
+	 */
+	public void registerLatency(String category, LatencyManager latencyManager) {
+		if (latencyManager == null) {
+			return;
+		}
+		try {
+			register(getLatencyObjectName(category), new StandardMBean(new LatencyBean(latencyManager), LatencyMXBean.class, true));
+		}
+		catch (JMException jme) {
+			System.err.println("Error registering the " + category + " latency MBean: " + jme.getMessage());
+		}
+	}
+
+	private synchronized void register(ObjectName objectName, StandardMBean bean) throws JMException {
+		server.registerMBean(bean, objectName);
+		registered.add(objectName);
+	}
+
+	/**
+	 * Unregister all the MBeans of the client. Called when the client is closed.
+	 */
+	public synchronized void unregister() {
+		for (ObjectName objectName : registered) {
+			try {
+				server.unregisterMBean(objectName);
+			}
+			catch (JMException jme) {
+				System.err.println("Error unregistering MBean " + objectName + ": " + jme.getMessage());
+			}
+		}
+		registered.clear();
+	}
+
+	/**
+	 * Reads the latencies through the copies returned by <code>getLastInterval()</code> and
+	 * <code>getSnapshot()</code>, so the recording and the reporting thread are never disturbed.
+	 */
+	static class LatencyBean implements LatencyMXBean {
+		private static final double[] INTERVAL_PERCENTILES = {50, 90, 99, 99.9};
+		private final LatencyManager latencyManager;
+
+		LatencyBean(LatencyManager latencyManager) {
+			this.latencyManager = latencyManager;
+		}
+
+		private long getIntervalPercentile(int index) {
+			long[] values = new long[INTERVAL_PERCENTILES.length];
+			latencyManager.getLastInterval().getValuesAtPercentiles(INTERVAL_PERCENTILES, values);
+			return values[index];
+		}
+
+		public long getOperations() {
+			return latencyManager.getSnapshot().getOperations();
+		}
+
+		public long getSuccess() {
+			return latencyManager.getSnapshot().getSuccess();
+		}
+
+		public long getRecords() {
+			return latencyManager.getSnapshot().getCount();
+		}
+
+		public double getMeanUs() {
+			return latencyManager.getSnapshot().getMeanUs();
+		}
+
+		public long getP99Us() {
+			return latencyManager.getSnapshot().getValueAtPercentile(99);
+		}
+
+		public long getIntervalEndTime() {
+			return latencyManager.getLastInterval().getEndTimeMs();
+		}
+
+		public long getIntervalOperations() {
+			return latencyManager.getLastInterval().getOperations();
+		}
+
+		public long getIntervalSuccess() {
+			return latencyManager.getLastInterval().getSuccess();
+		}
+
+		public double getIntervalOperationsPerSecond() {
+			return Math.max(0, latencyManager.getLastInterval().getOperationsPerSecond());
+		}
+
+		public double getIntervalMeanUs() {
+			return latencyManager.getLastInterval().getMeanUs();
+		}
+
+		public long getIntervalMinUs() {
+			return latencyManager.getLastInterval().getMinUs();
+		}
+
+		public long getIntervalMaxUs() {
+			return latencyManager.getLastInterval().getMaxUs();
+		}
+
+		public long getIntervalP50Us() {
+			return getIntervalPercentile(0);
+		}
+
+		public long getIntervalP90Us() {
+			return getIntervalPercentile(1);
+		}
+
+		public long getIntervalP99Us() {
+			return getIntervalPercentile(2);
+		}
+
+		public long getIntervalP999Us() {
+			return getIntervalPercentile(3);
+		}
+	}
+}
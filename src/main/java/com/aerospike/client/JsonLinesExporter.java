@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes each interval as a JSON object on its own line, for example
+ * <pre>
+ * {"time":1591018800000,"name":"gets","start":1591018799000,"end":1591018800000,"ops":1520,"opsPerSec":1520.0,"success":1519,"records":0,"meanUs":412.5,"minUs":96,"maxUs":20991,"p50":351,"p90":639,"p99":2047,"p99.9":20991}
+ * </pre>
+ * Latencies are in microseconds. A percentile is -1 if the interval had no operations.
+ */
+public class JsonLinesExporter implements MetricsExporter {
+	private final Writer writer;
+	private final double[] percentiles;
+	private final String[] percentileNames;
+	private final long[] values;
+	private final StringBuilder line = new StringBuilder(256);
+
+	public JsonLinesExporter(OutputStream stream) {
+		this(stream, DEFAULT_PERCENTILES);
+	}
+
+	/**
+	 * @param percentiles - the percentiles to include, in ascending order
+	 */
+	public JsonLinesExporter(OutputStream stream, double ... percentiles) {
+		this.writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+		this.percentiles = percentiles.clone();
+		this.percentileNames = new String[percentiles.length];
+		for (int i = 0; i < percentiles.length; i++) {
+			percentileNames[i] = formatPercentileName(percentiles[i]);
+		}
+		this.values = new long[percentiles.length];
+	}
+
+	/**
+	 * The name of a percentile, for example "p99" or "p99.9".
+	 */
+	static String formatPercentileName(double percentile) {
+		String number = Double.toString(percentile);
+		if (number.endsWith(".0")) {
+			number = number.substring(0, number.length() - 2);
+		}
+		return "p" + number;
+	}
+
+	@Override
+	public void export(long timeMs, Map<String, IntervalHistogram> intervals) throws IOException {
+		for (Map.Entry<String, IntervalHistogram> entry : intervals.entrySet()) {
+			IntervalHistogram interval = entry.getValue();
+			line.setLength(0);
+			line.append("{\"time\":").append(timeMs);
+			line.append(",\"name\":\"");
+			appendEscaped(line, entry.getKey());
+			line.append("\",\"start\":").append(interval.getStartTimeMs());
+			line.append(",\"end\":").append(interval.getEndTimeMs());
+			line.append(",\"ops\":").append(interval.getOperations());
+			line.append(",\"opsPerSec\":").append(String.format(Locale.ROOT, "%.1f", interval.getOperationsPerSecond()));
+			line.append(",\"success\":").append(interval.getSuccess());
+			line.append(",\"records\":").append(interval.getCount());
+			line.append(",\"meanUs\":").append(String.format(Locale.ROOT, "%.1f", interval.getMeanUs()));
+			line.append(",\"minUs\":").append(interval.getMinUs());
+			line.append(",\"maxUs\":").append(interval.getMaxUs());
+			interval.getValuesAtPercentiles(percentiles, values);
+			for (int i = 0; i < values.length; i++) {
+				line.append(",\"").append(percentileNames[i]).append("\":").append(values[i]);
+			}
+			line.append("}\n");
+			writer.append(line);
+		}
+		writer.flush();
+	}
+
+	private static void appendEscaped(StringBuilder builder, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				builder.append('\\').append(c);
+			}
+			else if (c < ' ') {
+				builder.append(String.format("\\u%04x", (int)c));
+			}
+			else {
+				builder.append(c);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
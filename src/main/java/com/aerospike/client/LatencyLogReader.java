@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+/**
+ * Reads the files written by a <code>LatencyLogWriter</code>, merging the intervals in a time range into one
+ * histogram. The percentiles of the result are exactly those of all the operations in the range. This can
+ * also be run from the command line:
+ * <pre>
+ * java -cp debug-aerospike-client-1.0-full.jar com.aerospike.client.LatencyLogReader &lt;directory&gt; &lt;baseName&gt; &lt;category&gt; &lt;from&gt; &lt;to&gt;
+ * </pre>
+ * where the times are either milliseconds since the epoch or local times like <code>2020-06-01T13:45:00</code>.
+ */
+public class LatencyLogReader {
+	private static final double[] REPORT_PERCENTILES = new double[] {50, 90, 99, 99.9, 99.99, AbstractLatencyManager.MAX_PERCENTILE};
+	private final File directory;
+	private final String baseName;
+
+	public LatencyLogReader(File directory, String baseName) {
+		this.directory = directory;
+		this.baseName = baseName;
+	}
+
+	/**
+	 * Merge all the intervals of a category which ended in the passed time range.
+	 * @param category - the category the histograms were written with, for example "gets"
+	 * @param fromMs - the start of the range, in milliseconds since the epoch, inclusive
+	 * @param toMs - the end of the range, in milliseconds since the epoch, inclusive
+	 * @return the merged histogram, or null if no intervals were found.
+	 */
+	public IntervalHistogram aggregate(String category, long fromMs, long toMs) throws IOException {
+		byte[] name = category.getBytes(StandardCharsets.UTF_8);
+		IntervalHistogram result = null;
+		for (File file : LatencyLogWriter.listFiles(directory, baseName)) {
+			result = aggregate(file, name, fromMs, toMs, result);
+		}
+		return result;
+	}
+
+	private static IntervalHistogram aggregate(File file, byte[] name, long fromMs, long toMs, IntervalHistogram result) throws IOException {
+		ByteBuffer buffer;
+		RandomAccessFile raf;
+		try {
+			raf = new RandomAccessFile(file, "r");
+		}
+		catch (IOException ioe) {
+			// The file was rolled away by the writer after it was listed
+			return result;
+		}
+		try {
+			FileChannel channel = raf.getChannel();
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally {
+			raf.close();
+		}
+		if (buffer.remaining() < LatencyLogWriter.FILE_HEADER_SIZE || buffer.getInt() != LatencyLogWriter.MAGIC) {
+			throw new IOException(file + " is not a latency log");
+		}
+		int version = buffer.getInt();
+		if (version != LatencyLogWriter.FORMAT_VERSION) {
+			throw new IOException(file + " has unsupported format version " + version);
+		}
+		while (buffer.remaining() >= 4) {
+			int length = buffer.getInt();
+			if (length <= 0 || length > buffer.remaining()) {
+				// End of the records, or one which was not finished
+				break;
+			}
+			int next = buffer.position() + length;
+			long timestamp = buffer.getLong();
+			if (timestamp >= fromMs && timestamp <= toMs && matches(buffer, name)) {
+				buffer.position(buffer.position() + 1 + name.length);
+				if (result == null) {
+					result = IntervalHistogram.decode(buffer);
+				}
+				else {
+					result.addEncoded(buffer);
+				}
+			}
+			buffer.position(next);
+		}
+		return result;
+	}
+
+	private static boolean matches(ByteBuffer buffer, byte[] name) {
+		int position = buffer.position();
+		if ((buffer.get(position) & 0xFF) != name.length) {
+			return false;
+		}
+		for (int i = 0; i < name.length; i++) {
+			if (buffer.get(position + 1 + i) != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long parseTime(String time) {
+		try {
+			return Long.parseLong(time);
+		}
+		catch (NumberFormatException nfe) {
+			try {
+				return LocalDateTime.parse(time).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+			}
+			catch (DateTimeParseException dtpe) {
+				System.out.printf("Cannot parse time '%s', expected milliseconds since the epoch or a local time like 2020-06-01T13:45:00\n", time);
+				usage();
+				return 0;
+			}
+		}
+	}
+
+	private static void usage() {
+		System.out.println("Usage: LatencyLogReader <directory> <baseName> <category> <from> <to>");
+		System.out.println("   Prints the latency of the operations in <category> (eg gets, puts, batch) which completed between <from> and <to>.");
+		System.out.println("   Times are milliseconds since the epoch or local times like 2020-06-01T13:45:00");
+		System.exit(-1);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 5) {
+			usage();
+		}
+		long from = parseTime(args[3]);
+		long to = parseTime(args[4]);
+		IntervalHistogram histogram = new LatencyLogReader(new File(args[0]), args[1]).aggregate(args[2], from, to);
+		if (histogram == null) {
+			System.out.printf("No %s intervals found between %s and %s\n", args[2], new Date(from), new Date(to));
+			return;
+		}
+		System.out.printf("%s from %s to %s\n", args[2], new Date(histogram.getStartTimeMs()), new Date(histogram.getEndTimeMs()));
+		System.out.printf("   operations: %d, success: %d, records: %d\n", histogram.getOperations(), histogram.getSuccess(), histogram.getCount());
+		System.out.printf("   avg: %.1fus, min: %dus\n", histogram.getMeanUs(), histogram.getMinUs());
+		long[] values = new long[REPORT_PERCENTILES.length];
+		histogram.getValuesAtPercentiles(REPORT_PERCENTILES, values);
+		for (int i = 0; i < REPORT_PERCENTILES.length; i++) {
+			System.out.printf("   %6s: %dus\n", REPORT_PERCENTILES[i] == AbstractLatencyManager.MAX_PERCENTILE ? "max" : "p" + REPORT_PERCENTILES[i], values[i]);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Appends the histogram of each interval to a set of rolling, memory-mapped files so that latencies can be
+ * analysed after the fact with a <code>LatencyLogReader</code>, whether or not the text output was enabled.
+ * <p/>
+ * The files are called <code>&lt;baseName&gt;-&lt;sequence&gt;.latlog</code>. Each is created at its full size
+ * and mapped, so a write is a copy into memory and the data survives the JVM crashing. When a file is full the
+ * next one is started and the oldest files beyond <code>maxFiles</code> are deleted.
+ * <p/>
+ * Each file starts with a magic number and format version, followed by records of:
+ * <pre>
+ * int   length of the rest of the record
+ * long  time the interval ended, in milliseconds since the epoch
+ * byte  length of the category name, followed by the name in UTF-8
+ * ...   the histogram, as written by IntervalHistogram.encode()
+ * </pre>
+ * The length is written last, so a record which was being written when the process died reads as the end of the file.
+ * <p/>
+ * This class is not thread safe, it is intended to be written to by the thread which ends the intervals.
+ */
+public class LatencyLogWriter implements Closeable {
+	static final int MAGIC = 0x41534C4C;
+	static final int FORMAT_VERSION = 1;
+	static final int FILE_HEADER_SIZE = 8;
+	static final String SUFFIX = ".latlog";
+	public static final int DEFAULT_FILE_SIZE = 16 * 1024 * 1024;
+	public static final int DEFAULT_MAX_FILES = 8;
+	private static final int MIN_FILE_SIZE = 64 * 1024;
+
+	private final File directory;
+	private final String baseName;
+	private final int fileSize;
+	private final int maxFiles;
+	private long sequence;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private ByteBuffer scratch = ByteBuffer.allocate(0);
+
+	public LatencyLogWriter(File directory, String baseName) throws IOException {
+		this(directory, baseName, DEFAULT_FILE_SIZE, DEFAULT_MAX_FILES);
+	}
+
+	/**
+	 * @param directory - where to put the files. It is created if it does not exist.
+	 * @param baseName - the start of the name of each file
+	 * @param fileSize - the size of each file in bytes. An interval of one category is typically a few hundred bytes.
+	 * @param maxFiles - the number of files to keep, including the one being written.
+	 */
+	public LatencyLogWriter(File directory, String baseName, int fileSize, int maxFiles) throws IOException {
+		if (fileSize < MIN_FILE_SIZE) {
+			throw new IllegalArgumentException("fileSize must be at least " + MIN_FILE_SIZE + " bytes, not " + fileSize);
+		}
+		if (maxFiles < 1) {
+			throw new IllegalArgumentException("maxFiles must be at least 1, not " + maxFiles);
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create directory " + directory);
+		}
+		this.directory = directory;
+		this.baseName = baseName;
+		this.fileSize = fileSize;
+		this.maxFiles = maxFiles;
+		File[] existing = listFiles(directory, baseName);
+		this.sequence = existing.length == 0 ? 0 : getSequence(existing[existing.length - 1], baseName) + 1;
+	}
+
+	/**
+	 * List the log files with the passed base name, oldest first.
+	 */
+	static File[] listFiles(File directory, final String baseName) {
+		File[] files = directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				if (!name.startsWith(baseName + "-") || !name.endsWith(SUFFIX)) {
+					return false;
+				}
+				String sequence = name.substring(baseName.length() + 1, name.length() - SUFFIX.length());
+				for (int i = 0; i < sequence.length(); i++) {
+					if (!Character.isDigit(sequence.charAt(i))) {
+						return false;
+					}
+				}
+				return !sequence.isEmpty();
+			}
+		});
+		if (files == null) {
+			return new File[0];
+		}
+		Arrays.sort(files);
+		return files;
+	}
+
+	private static long getSequence(File file, String baseName) {
+		String name = file.getName();
+		return Long.parseLong(name.substring(baseName.length() + 1, name.length() - SUFFIX.length()));
+	}
+
+	/**
+	 * Append a histogram to the log. Empty histograms are not written.
+	 * @param category - the name of what was timed, for example "gets". At most 255 bytes in UTF-8.
+	 */
+	public void write(String category, IntervalHistogram histogram) throws IOException {
+		if (histogram.getOperations() == 0) {
+			return;
+		}
+		byte[] name = category.getBytes(StandardCharsets.UTF_8);
+		if (name.length > 255) {
+			throw new IllegalArgumentException("Category name is too long: " + category);
+		}
+		// Encode first so the record takes only the space it needs.
+		if (scratch.capacity() < histogram.getMaxEncodedSize()) {
+			scratch = ByteBuffer.allocate(histogram.getMaxEncodedSize());
+		}
+		scratch.clear();
+		histogram.encode(scratch);
+		scratch.flip();
+
+		int length = 8 + 1 + name.length + scratch.remaining();
+		if (4 + length > fileSize - FILE_HEADER_SIZE) {
+			throw new IllegalArgumentException("A histogram of " + length + " bytes does not fit in a file of " + fileSize + " bytes");
+		}
+		if (buffer == null || buffer.remaining() < 4 + length) {
+			roll();
+		}
+		int start = buffer.position();
+		buffer.position(start + 4);
+		buffer.putLong(histogram.getEndTimeMs());
+		buffer.put((byte)name.length);
+		buffer.put(name);
+		buffer.put(scratch);
+		buffer.putInt(start, length);
+	}
+
+	private void roll() throws IOException {
+		closeCurrent();
+		File file = new File(directory, String.format("%s-%010d%s", baseName, sequence++, SUFFIX));
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(fileSize);
+			channel = raf.getChannel();
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+		}
+		catch (IOException ioe) {
+			raf.close();
+			throw ioe;
+		}
+		buffer.putInt(MAGIC);
+		buffer.putInt(FORMAT_VERSION);
+
+		File[] files = listFiles(directory, baseName);
+		for (int i = 0; i < files.length - maxFiles; i++) {
+			files[i].delete();
+		}
+	}
+
+	private void closeCurrent() throws IOException {
+		if (buffer != null) {
+			buffer.force();
+			buffer = null;
+		}
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		closeCurrent();
+	}
+}
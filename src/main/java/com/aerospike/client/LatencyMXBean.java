@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+/**
+ * The latencies of one category of calls (gets, puts or batch) of a <code>DebugAerospikeClient</code>, as seen
+ * through JMX. The interval attributes are from the interval most recently reported, and the totals are over
+ * all the intervals reported so far. Reading them never resets or drains anything, so any number of consoles
+ * can watch alongside the periodic output.
+ */
+public interface LatencyMXBean {
+	/** The number of operations in all the intervals reported so far */
+	public long getOperations();
+
+	/** The number of successful operations, or records found for reads, in all the intervals reported so far */
+	public long getSuccess();
+
+	/** The number of records the operations were for, in all the intervals reported so far (batch only) */
+	public long getRecords();
+
+	/** The mean latency over all the intervals reported so far, in microseconds, or -1 if there were none */
+	public double getMeanUs();
+
+	/** The latency at the 99th percentile over all the intervals reported so far, in microseconds */
+	public long getP99Us();
+
+	/** The time the last interval ended, in milliseconds since the epoch, or 0 if none has been reported */
+	public long getIntervalEndTime();
+
+	public long getIntervalOperations();
+
+	public long getIntervalSuccess();
+
+	public double getIntervalOperationsPerSecond();
+
+	public double getIntervalMeanUs();
+
+	public long getIntervalMinUs();
+
+	public long getIntervalMaxUs();
+
+	public long getIntervalP50Us();
+
+	public long getIntervalP90Us();
+
+	public long getIntervalP99Us();
+
+	public long getIntervalP999Us();
+}
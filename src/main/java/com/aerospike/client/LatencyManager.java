@@ -25,13 +25,47 @@ public interface LatencyManager {
 	
 	/**
 	 * Print latency percents for specified cumulative ranges.
-	 * This function is not absolutely accurate for a given time slice because this method 
-	 * is not synchronized with the add() method.  Some values will slip into the next iteration.  
-	 * It is not a good idea to add extra locks just to measure performance since that actually 
-	 * affects performance.  Fortunately, the values will even out over time
-	 * (ie. no double counting).
+	 * The recording is double buffered: this method atomically switches add() to a spare set of
+	 * counters and prints the ones which were active, so every column on the line describes exactly
+	 * the same set of operations. add() is never blocked by this.
 	 */
 	public void printResults(PrintStream stream, String prefix);
+
+	/**
+	 * End the current interval without printing it, making it available through <code>getLastInterval()</code>
+	 * and <code>printInterval()</code>. <code>printResults()</code> is this followed by <code>printInterval()</code>.
+	 * @return false if there were no operations in the interval, in which case the last interval is unchanged.
+	 */
+	public boolean endInterval();
+
+	/**
+	 * Print the interval most recently ended by <code>endInterval()</code>. Only the thread which ends the
+	 * intervals should call this.
+	 */
+	public void printInterval(PrintStream stream, String prefix);
+
+	/**
+	 * Get a copy of the histogram of the interval most recently printed. Histograms from different
+	 * processes can be encoded, shipped and merged to give exact percentiles across all of them.
+	 */
+	public IntervalHistogram getLastInterval();
+
+	/**
+	 * Get a copy of all the intervals ended so far merged together, without affecting them.
+	 */
+	public IntervalHistogram getCumulative();
+
+	/**
+	 * Get an immutable snapshot of all the intervals ended so far. This never resets anything, so it can be
+	 * called from any thread, by any number of consumers.
+	 */
+	public LatencySnapshot getSnapshot();
+
+	/**
+	 * Start following the intervals ended from now on. Each consumer should have its own cursor, and close
+	 * it when it is done.
+	 */
+	public SnapshotCursor newCursor();
 	
 	/**
 	 * Duplicate the latency manager. This is package protected by design.
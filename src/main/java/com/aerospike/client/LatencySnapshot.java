@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+/**
+ * An immutable view of the latencies recorded by a latency manager over some period: the operation counts,
+ * total, min and max latency, and the log-linear histogram of the latencies in microseconds with each
+ * bucket's bounds. Snapshots are taken with <code>LatencyManager.getSnapshot()</code>, for everything reported
+ * so far, or from a <code>SnapshotCursor</code>, for what was reported since the cursor was last read. Taking
+ * one never resets anything, so any number of consumers can take them alongside the periodic output.
+ * <p/>
+ * Snapshots are safe to share between threads.
+ */
+public final class LatencySnapshot {
+	// Never changed after construction
+	private final IntervalHistogram histogram;
+
+	/**
+	 * @param histogram - the latencies, which the snapshot takes ownership of. It must not be changed afterwards.
+	 */
+	LatencySnapshot(IntervalHistogram histogram) {
+		this.histogram = histogram;
+	}
+
+	/** The time the first interval in the snapshot started, in milliseconds since the epoch, or 0 if it is empty */
+	public long getStartTimeMs() {
+		return histogram.getStartTimeMs();
+	}
+
+	/** The time the last interval in the snapshot ended, in milliseconds since the epoch, or 0 if it is empty */
+	public long getEndTimeMs() {
+		return histogram.getEndTimeMs();
+	}
+
+	/** The number of operations */
+	public long getOperations() {
+		return histogram.getOperations();
+	}
+
+	/** The sum of the latencies of all the operations, in microseconds */
+	public long getTotalLatencyUs() {
+		return histogram.getTotalLatencyUs();
+	}
+
+	/** The smallest latency in microseconds, or -1 if there were no operations */
+	public long getMinUs() {
+		return histogram.getMinUs();
+	}
+
+	/** The largest latency in microseconds, or -1 if there were no operations */
+	public long getMaxUs() {
+		return histogram.getMaxUs();
+	}
+
+	/** The number of records the operations were for (batch operations only) */
+	public long getCount() {
+		return histogram.getCount();
+	}
+
+	/** The number of successful operations, or records found for reads */
+	public long getSuccess() {
+		return histogram.getSuccess();
+	}
+
+	public double getMeanUs() {
+		return histogram.getMeanUs();
+	}
+
+	/** The operations per second between the start and end times, or -1 if the snapshot has no length */
+	public double getOperationsPerSecond() {
+		return histogram.getOperationsPerSecond();
+	}
+
+	public int getBucketCount() {
+		return histogram.getBucketCount();
+	}
+
+	public long getCountAtBucket(int index) {
+		return histogram.getCountAtBucket(index);
+	}
+
+	/** The smallest latency, in microseconds, which falls into the bucket */
+	public long getBucketLowestUs(int index) {
+		return histogram.getBucketLowestUs(index);
+	}
+
+	/** The largest latency, in microseconds, which falls into the bucket */
+	public long getBucketHighestUs(int index) {
+		return histogram.getBucketHighestUs(index);
+	}
+
+	/**
+	 * Get the latency, in microseconds, at the passed percentile, or -1 if there were no operations.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		return histogram.getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * Get the latencies at several percentiles with a single pass over the buckets.
+	 * @param percentiles - the percentiles wanted, in ascending order
+	 * @param into - where to put the latencies, in microseconds. -1 is used if there were no operations.
+	 */
+	public void getValuesAtPercentiles(double[] percentiles, long[] into) {
+		histogram.getValuesAtPercentiles(percentiles, into);
+	}
+
+	/**
+	 * Get a copy of the snapshot as a histogram, for example to encode it or merge it with others.
+	 */
+	public IntervalHistogram toHistogram() {
+		return new IntervalHistogram(histogram);
+	}
+}
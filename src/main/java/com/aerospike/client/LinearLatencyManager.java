@@ -17,10 +17,9 @@
 package com.aerospike.client;
 
 import java.io.PrintStream;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class LinearLatencyManager extends AbstractLatencyManager implements LatencyManager {
-    private final AtomicInteger[] buckets;
+    private final int columns;
     private final int lastBucket;
     private final int multiplyer;
     private static final int COLUMN_WIDTH = 6;
@@ -28,18 +27,18 @@ public class LinearLatencyManager extends AbstractLatencyManager implements Late
     private final boolean cumulative;
     private String header;
     private final int decimalPlaces;
+    // Reused by the reporting thread for each line
+    private final long[] cumulativeBuckets;
     
     public LinearLatencyManager(int columns, int bitShift, boolean showMicroSeconds, boolean cumulative, final int decimalPlaces) {
-		super(decimalPlaces);
+		super(columns, decimalPlaces);
+		this.columns = columns;
 		this.decimalPlaces = decimalPlaces;
+		this.cumulativeBuckets = new long[columns];
 		this.cumulative = cumulative;
     	this.lastBucket = columns - 1;
     	this.multiplyer = bitShift;
     	this.showMicroSeconds = showMicroSeconds;
-		buckets = new AtomicInteger[columns];
-		for (int i = 0; i < columns; i++) {
-			buckets[i] = new AtomicInteger();
-		}
 		formHeader();
     }
 
@@ -51,7 +50,7 @@ public class LinearLatencyManager extends AbstractLatencyManager implements Late
     }    
     @Override
     public LatencyManager duplicate() {
-		return new LinearLatencyManager(buckets.length, this.multiplyer, this.showMicroSeconds, this.cumulative, this.decimalPlaces);
+		return copySettings(new LinearLatencyManager(columns, this.multiplyer, this.showMicroSeconds, this.cumulative, this.decimalPlaces));
     }
 
     private void padString(StringBuilder builder, int count) {
@@ -59,7 +58,8 @@ public class LinearLatencyManager extends AbstractLatencyManager implements Late
 			builder.append(' ');
 		}
     }
-    private void formHeader() {
+    @Override
+    protected void formHeader() {
 		int limit = 1;
 		String units = showMicroSeconds ? "us" : "ms";
 		StringBuilder s = new StringBuilder(64);
@@ -69,7 +69,7 @@ public class LinearLatencyManager extends AbstractLatencyManager implements Late
 		s.append(" >1").append(units);
 		this.padString(s, width - 4 - units.length());
 		
-		for (int i = 2; i < buckets.length; i++) {			
+		for (int i = 2; i < columns; i++) {			
 			limit += multiplyer;
 			String str = " >" + limit + units;
 			s.append(str);
@@ -80,14 +80,8 @@ public class LinearLatencyManager extends AbstractLatencyManager implements Late
 		header = s.toString();
     }
     
-	public void add(long elapsedUs, int count, int success) {
-		int index = getIndex(elapsedUs);
-		buckets[index].incrementAndGet();
-		
-		super.add(elapsedUs, count, success);
-	}
-
-	private int getIndex(long elapsedUs) {
+	@Override
+	protected int getIndex(long elapsedUs) {
 		if (!showMicroSeconds) {
 			elapsedUs /= US_TO_MS;
 		}
@@ -105,26 +99,23 @@ public class LinearLatencyManager extends AbstractLatencyManager implements Late
 	
 	/**
 	 * Print latency percents for specified cumulative ranges.
-	 * This function is not absolutely accurate for a given time slice because this method 
-	 * is not synchronized with the add() method.  Some values will slip into the next iteration.  
-	 * It is not a good idea to add extra locks just to measure performance since that actually 
-	 * affects performance.  Fortunately, the values will even out over time
-	 * (ie. no double counting).
+	 * The buckets passed are a stable snapshot of the interval, taken at the same time as the
+	 * other columns on the line.
 	 */
 	@Override
-	public void printLatencyResults(PrintStream stream, String prefix) {
+	public void printLatencyResults(PrintStream stream, String prefix, long[] buckets) {
 		//TimingResults results = getResults();
-		// Capture snapshot and make buckets cumulative.
-		int[] array = new int[buckets.length];
-		int sum = 0;
-		int count;
+		// Make buckets cumulative.
+		long[] array = cumulativeBuckets;
+		long sum = 0;
+		long count;
 		for (int i = buckets.length - 1; i >= 1 ; i--) {
-			 count = buckets[i].getAndSet(0);
+			 count = buckets[i];
 			 array[i] = cumulative ? count + sum : count;
 			 sum += count;
 		}
 		// The first bucket (<=1ms) does not need a cumulative adjustment.
-		count = buckets[0].getAndSet(0);
+		count = buckets[0];
 		array[0] = count;
 		sum += count;
 		// Print cumulative results.
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded pool of reusable objects, used to recycle the listeners which time asynchronous calls.
+ * <p/>
+ * The pool is an array of slots split into stripes, with each thread using the stripe chosen by its id, the
+ * same way as the <code>StripedLatencyRecorder</code>. Taking an object swaps a full slot for null and
+ * returning one swaps an empty slot for the object, each with a single compare and set on the slot. There
+ * are no links between the slots, so unlike a lock-free stack there is no ABA problem.
+ * <p/>
+ * The thread which completes an asynchronous call is normally an event loop thread, not the one which made it,
+ * so an object is returned to the stripe it was taken from. If the stripe is empty a new object is created, and
+ * if it is full the object is left to the garbage collector, so the pool never blocks and is only garbage free
+ * while each thread has no more than <code>STRIPE_WIDTH</code> calls in flight.
+ */
+abstract class ListenerPool<T> {
+	static final int STRIPE_WIDTH = 16;
+	private final AtomicReferenceArray<T> slots;
+	private final int stripeMask;
+
+	ListenerPool() {
+		this(StripedLatencyRecorder.defaultStripes());
+	}
+
+	ListenerPool(int stripes) {
+		if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+			throw new IllegalArgumentException("Number of stripes must be a positive power of 2, not " + stripes);
+		}
+		this.slots = new AtomicReferenceArray<T>(stripes * STRIPE_WIDTH);
+		this.stripeMask = stripes - 1;
+	}
+
+	/**
+	 * Create a new object when the stripe has none to reuse.
+	 */
+	protected abstract T create();
+
+	/**
+	 * The stripe the calling thread should take objects from.
+	 */
+	int stripe() {
+		return (int)Thread.currentThread().getId() & stripeMask;
+	}
+
+	T acquire(int stripe) {
+		int base = stripe * STRIPE_WIDTH;
+		for (int i = base; i < base + STRIPE_WIDTH; i++) {
+			T item = slots.get(i);
+			if (item != null && slots.compareAndSet(i, item, null)) {
+				return item;
+			}
+		}
+		return create();
+	}
+
+	void release(T item, int stripe) {
+		int base = stripe * STRIPE_WIDTH;
+		for (int i = base; i < base + STRIPE_WIDTH; i++) {
+			if (slots.get(i) == null && slots.compareAndSet(i, null, item)) {
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+/**
+ * A log-linear bucket layout in the style of HdrHistogram. Values are divided into power of 2
+ * magnitudes, and each magnitude is split into a fixed number of linear sub-buckets. This gives
+ * a constant relative precision (determined by the number of significant decimal digits) across
+ * the whole range, with a fixed number of buckets and an O(1) index calculation.
+ * <p/>
+ * The unit of the values is whatever the caller records, normally microseconds.
+ */
+final class LogLinearBuckets {
+	private final int significantDigits;
+	private final long highestTrackableValue;
+	private final int subBucketHalfCountMagnitude;
+	private final int subBucketHalfCount;
+	private final long subBucketMask;
+	private final int leadingZeroCountBase;
+	private final int bucketCount;
+
+	/**
+	 * @param significantDigits - the number of significant decimal digits to maintain, 1 to 4
+	 * @param highestTrackableValue - the largest value which can be tracked. Larger values are
+	 * counted in the last bucket.
+	 */
+	LogLinearBuckets(int significantDigits, long highestTrackableValue) {
+		if (significantDigits < 1 || significantDigits > 4) {
+			throw new IllegalArgumentException("Significant digits must be between 1 and 4, not " + significantDigits);
+		}
+		if (highestTrackableValue < 2) {
+			throw new IllegalArgumentException("Highest trackable value must be at least 2, not " + highestTrackableValue);
+		}
+		this.significantDigits = significantDigits;
+		this.highestTrackableValue = highestTrackableValue;
+
+		long largestValueWithSingleUnitResolution = 2 * (long)Math.pow(10, significantDigits);
+		int subBucketCountMagnitude = (int)Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+		this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+		int subBucketCount = 1 << subBucketCountMagnitude;
+		this.subBucketHalfCount = subBucketCount / 2;
+		this.subBucketMask = subBucketCount - 1;
+		this.leadingZeroCountBase = 64 - subBucketHalfCountMagnitude - 1;
+
+		// Work out how many power of 2 magnitudes are needed to cover the highest trackable value
+		long smallestUntrackableValue = ((long)subBucketCount);
+		int magnitudes = 1;
+		while (smallestUntrackableValue <= highestTrackableValue) {
+			if (smallestUntrackableValue > (Long.MAX_VALUE / 2)) {
+				magnitudes++;
+				break;
+			}
+			smallestUntrackableValue <<= 1;
+			magnitudes++;
+		}
+		this.bucketCount = (magnitudes + 1) * subBucketHalfCount;
+	}
+
+	int getSignificantDigits() {
+		return significantDigits;
+	}
+
+	long getHighestTrackableValue() {
+		return highestTrackableValue;
+	}
+
+	/**
+	 * The total number of buckets in this layout.
+	 */
+	int getBucketCount() {
+		return bucketCount;
+	}
+
+	/**
+	 * Return the bucket the value falls into. Negative values go into the first bucket, values
+	 * above the highest trackable value go into the last bucket.
+	 */
+	int getIndex(long value) {
+		if (value <= 0) {
+			return 0;
+		}
+		int magnitude = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+		int subBucketIndex = (int)(value >>> magnitude);
+		int index = ((magnitude + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+		return index < bucketCount ? index : bucketCount - 1;
+	}
+
+	/**
+	 * The smallest value which falls into the passed bucket.
+	 */
+	long getLowestValue(int index) {
+		int magnitude = (index >> subBucketHalfCountMagnitude) - 1;
+		int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+		if (magnitude < 0) {
+			subBucketIndex -= subBucketHalfCount;
+			magnitude = 0;
+		}
+		return ((long)subBucketIndex) << magnitude;
+	}
+
+	/**
+	 * The largest value which falls into the passed bucket.
+	 */
+	long getHighestValue(int index) {
+		int magnitude = Math.max(0, (index >> subBucketHalfCountMagnitude) - 1);
+		return getLowestValue(index) + (1L << magnitude) - 1;
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Receives the latencies of each reporting interval, so they can be sent to a monitoring system without
+ * parsing the text output. Exporters are added with <code>Options.addMetricsExporter</code> and are called
+ * by the reporting thread, never by the threads making calls, so they can take their time. An exporter which
+ * throws an <code>IOException</code> is not called again. Exporters are closed when the client is closed.
+ * <p/>
+ * The intervals are named the same way as in the latency log: <code>gets</code>, <code>puts</code> and
+ * <code>batch</code>, <code>gets/&lt;operation&gt;</code> and <code>puts/&lt;operation&gt;</code> for the per
+ * operation latencies, <code>batch/&lt;size&gt;</code> for the batch sizes and <code>gets@&lt;node&gt;</code> and so
+ * on for the per node latencies.
+ */
+public interface MetricsExporter extends Closeable {
+	/** The percentiles exporters include unless they are told otherwise */
+	public static final double[] DEFAULT_PERCENTILES = {50, 90, 99, 99.9};
+
+	/**
+	 * Export the intervals ended at one tick of the reporting thread. Only intervals with operations are passed.
+	 * @param timeMs - the time of the tick, in milliseconds since the epoch
+	 * @param intervals - the intervals by name, in the order they are reported. The exporter may keep them.
+	 */
+	public void export(long timeMs, Map<String, IntervalHistogram> intervals) throws IOException;
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+/**
+ * One latency manager per node, indexed by the node's index in a <code>PartitionNodeTable</code>. Only the
+ * reporting thread grows the array, so a call to a node which has just been added to the table may be missed
+ * until the next report.
+ */
+class NodeLatencyManagers {
+	private final LatencyManager template;
+	private volatile LatencyManager[] managers = new LatencyManager[0];
+
+	NodeLatencyManagers(LatencyManager template) {
+		this.template = template.duplicate();
+	}
+
+	public void add(int nodeIndex, long elapsedUs, int count, int success) {
+		LatencyManager[] current = managers;
+		if (nodeIndex >= 0 && nodeIndex < current.length) {
+			current[nodeIndex].add(elapsedUs, count, success);
+		}
+	}
+
+	/**
+	 * Make sure there is a latency manager for every node. Only called from the reporting thread.
+	 */
+	public void ensureCapacity(int nodes) {
+		LatencyManager[] current = managers;
+		if (nodes > current.length) {
+			LatencyManager[] grown = new LatencyManager[nodes];
+			System.arraycopy(current, 0, grown, 0, current.length);
+			for (int i = current.length; i < nodes; i++) {
+				grown[i] = AbstractLatencyManager.duplicateForBreakdown(template);
+			}
+			managers = grown;
+		}
+	}
+
+	/**
+	 * Get the latency manager of a node, or null if the node has not been seen yet.
+	 */
+	public LatencyManager get(int nodeIndex) {
+		LatencyManager[] current = managers;
+		return nodeIndex < current.length ? current[nodeIndex] : null;
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the latencies in the Prometheus text format at <code>http://&lt;host&gt;:&lt;port&gt;/metrics</code>, using the
+ * HTTP server built into the JDK. Each series is a summary named <code>debug_aerospike_client_latency_seconds</code>
+ * whose quantiles are those of the last interval and whose sum and count cover the life of the client, with
+ * counters of the successes and records and a gauge of the throughput of the last interval.
+ * <p/>
+ * The page is rendered by the reporting thread when it exports an interval, so a scrape only copies the last
+ * page out and never touches the latency managers.
+ */
+public class PrometheusExporter implements MetricsExporter {
+	private static final String PREFIX = "debug_aerospike_client_";
+	private static final byte[] EMPTY_PAGE = new byte[0];
+
+	private final HttpServer server;
+	private final double[] percentiles;
+	private final String[] quantiles;
+	private final long[] values;
+	// Totals over the life of the client of each series: operations, total latency, successes and records
+	private final Map<String, long[]> totals = new LinkedHashMap<String, long[]>();
+	// The last value of the throughput and percentiles of each series
+	private final Map<String, double[]> latest = new LinkedHashMap<String, double[]>();
+	private volatile byte[] page = EMPTY_PAGE;
+
+	public PrometheusExporter(int port) throws IOException {
+		this(new InetSocketAddress(port), DEFAULT_PERCENTILES);
+	}
+
+	/**
+	 * @param address - the address to listen on. A port of 0 picks a free port, see <code>getPort()</code>.
+	 * @param percentiles - the quantiles to serve, as percentiles in ascending order
+	 */
+	public PrometheusExporter(InetSocketAddress address, double ... percentiles) throws IOException {
+		this.percentiles = percentiles.clone();
+		this.quantiles = new String[percentiles.length];
+		for (int i = 0; i < percentiles.length; i++) {
+			quantiles[i] = BigDecimal.valueOf(percentiles[i]).movePointLeft(2).stripTrailingZeros().toPlainString();
+		}
+		this.values = new long[percentiles.length];
+		this.server = HttpServer.create(address, 0);
+		server.createContext("/metrics", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] body = page;
+				exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+				exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		});
+		server.start();
+	}
+
+	/** The port the server is listening on */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	@Override
+	public void export(long timeMs, Map<String, IntervalHistogram> intervals) throws IOException {
+		for (Map.Entry<String, IntervalHistogram> entry : intervals.entrySet()) {
+			IntervalHistogram interval = entry.getValue();
+			long[] total = totals.get(entry.getKey());
+			double[] last = latest.get(entry.getKey());
+			if (total == null) {
+				total = new long[4];
+				totals.put(entry.getKey(), total);
+				last = new double[1 + percentiles.length];
+				latest.put(entry.getKey(), last);
+			}
+			total[0] += interval.getOperations();
+			total[1] += interval.getTotalLatencyUs();
+			total[2] += interval.getSuccess();
+			total[3] += interval.getCount();
+			last[0] = Math.max(0, interval.getOperationsPerSecond());
+			interval.getValuesAtPercentiles(percentiles, values);
+			for (int i = 0; i < values.length; i++) {
+				last[1 + i] = values[i] / 1e6;
+			}
+		}
+		page = render().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private String render() {
+		StringBuilder text = new StringBuilder(256 * (totals.size() + 1));
+		text.append("# HELP ").append(PREFIX).append("latency_seconds Latency of the calls, quantiles over the last interval\n");
+		text.append("# TYPE ").append(PREFIX).append("latency_seconds summary\n");
+		for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+			String label = "series=\"" + escape(entry.getKey()) + "\"";
+			double[] last = latest.get(entry.getKey());
+			for (int i = 0; i < percentiles.length; i++) {
+				text.append(PREFIX).append("latency_seconds{").append(label)
+						.append(",quantile=\"").append(quantiles[i]).append("\"} ").append(formatNumber(last[1 + i])).append('\n');
+			}
+			text.append(PREFIX).append("latency_seconds_sum{").append(label).append("} ").append(formatNumber(entry.getValue()[1] / 1e6)).append('\n');
+			text.append(PREFIX).append("latency_seconds_count{").append(label).append("} ").append(entry.getValue()[0]).append('\n');
+		}
+		appendSeries(text, "success_total", "counter", "Successful calls, or records found for reads", 2);
+		appendSeries(text, "records_total", "counter", "Records requested by batch calls", 3);
+		text.append("# HELP ").append(PREFIX).append("operations_per_second Calls per second over the last interval\n");
+		text.append("# TYPE ").append(PREFIX).append("operations_per_second gauge\n");
+		for (Map.Entry<String, double[]> entry : latest.entrySet()) {
+			text.append(PREFIX).append("operations_per_second{series=\"").append(escape(entry.getKey())).append("\"} ")
+					.append(formatNumber(entry.getValue()[0])).append('\n');
+		}
+		return text.toString();
+	}
+
+	private void appendSeries(StringBuilder text, String name, String type, String help, int index) {
+		text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+		text.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+		for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+			text.append(PREFIX).append(name).append("{series=\"").append(escape(entry.getKey())).append("\"} ")
+					.append(entry.getValue()[index]).append('\n');
+		}
+	}
+
+	private static String formatNumber(double value) {
+		return Double.toString(value);
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+}
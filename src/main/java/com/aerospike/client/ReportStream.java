@@ -0,0 +1,192 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * The stream the reporting thread renders each report into. It is created once and reset after each
+ * report is written out, so its buffer is reused. Characters and strings which are plain ASCII, which is
+ * everything the latency tables print, go straight into the buffer as bytes rather than through the
+ * character encoder, so printing them does not allocate.
+ * <p/>
+ * This is only used by the reporting thread, so it is not thread safe.
+ */
+class ReportStream extends PrintStream {
+	private static class Buffer extends ByteArrayOutputStream {
+		Buffer() {
+			super(16 * 1024);
+		}
+
+		void writeAscii(char c) {
+			if (count == buf.length) {
+				// Let the superclass grow the buffer
+				write(c);
+			}
+			else {
+				buf[count++] = (byte)c;
+			}
+		}
+	}
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+	private final Buffer buffer;
+	// Formatter's %tF and %tT use a calendar of the default format locale
+	private final Calendar calendar = Calendar.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+	private final char[] digits = new char[20];
+
+	ReportStream() {
+		this(new Buffer());
+	}
+
+	private ReportStream(Buffer buffer) {
+		super(buffer);
+		this.buffer = buffer;
+	}
+
+	@Override
+	public void print(char c) {
+		if (c < 0x80) {
+			buffer.writeAscii(c);
+		}
+		else {
+			super.print(c);
+		}
+	}
+
+	@Override
+	public void println() {
+		print(LINE_SEPARATOR);
+	}
+
+	@Override
+	public void println(String s) {
+		print(s);
+		println();
+	}
+
+	@Override
+	public void print(String s) {
+		if (s == null) {
+			super.print(s);
+			return;
+		}
+		int length = s.length();
+		for (int i = 0; i < length; i++) {
+			if (s.charAt(i) >= 0x80) {
+				// Leave anything else to the encoder, after the ASCII part
+				super.print(s.substring(i));
+				return;
+			}
+			buffer.writeAscii(s.charAt(i));
+		}
+	}
+
+	/**
+	 * Print part of a character array, as <code>print(new String(chars, offset, length))</code> does.
+	 */
+	public void write(char[] chars, int offset, int length) {
+		int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			if (chars[i] >= 0x80) {
+				super.print(new String(chars, i, end - i));
+				return;
+			}
+			buffer.writeAscii(chars[i]);
+		}
+	}
+
+	/**
+	 * Print a number in decimal.
+	 */
+	@Override
+	public void print(long value) {
+		if (value < 0) {
+			if (value == Long.MIN_VALUE) {
+				super.print(value);
+				return;
+			}
+			buffer.writeAscii('-');
+			value = -value;
+		}
+		int start = digits.length;
+		do {
+			digits[--start] = (char)('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+		for (int i = start; i < digits.length; i++) {
+			buffer.writeAscii(digits[i]);
+		}
+	}
+
+	@Override
+	public void print(int value) {
+		print((long)value);
+	}
+
+	private void printTwoDigits(int value) {
+		buffer.writeAscii((char)('0' + value / 10));
+		buffer.writeAscii((char)('0' + value % 10));
+	}
+
+	/**
+	 * Print the time as <code>printf("%tF %&lt;tT", timeMs)</code> does, in the default time zone.
+	 */
+	public void printDateTime(long timeMs) {
+		calendar.setTimeInMillis(timeMs);
+		int year = calendar.get(Calendar.YEAR);
+		if (year < 1000) {
+			// %tY pads to 4 digits
+			for (int digits = year < 10 ? 3 : year < 100 ? 2 : 1; digits > 0; digits--) {
+				buffer.writeAscii('0');
+			}
+		}
+		print(year);
+		buffer.writeAscii('-');
+		printTwoDigits(calendar.get(Calendar.MONTH) + 1);
+		buffer.writeAscii('-');
+		printTwoDigits(calendar.get(Calendar.DAY_OF_MONTH));
+		buffer.writeAscii(' ');
+		printTwoDigits(calendar.get(Calendar.HOUR_OF_DAY));
+		buffer.writeAscii(':');
+		printTwoDigits(calendar.get(Calendar.MINUTE));
+		buffer.writeAscii(':');
+		printTwoDigits(calendar.get(Calendar.SECOND));
+	}
+
+	/**
+	 * Discard everything rendered since the last reset.
+	 */
+	public void reset() {
+		flush();
+		buffer.reset();
+	}
+
+	/**
+	 * Write everything rendered since the last reset to the passed stream, then reset.
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		flush();
+		buffer.writeTo(out);
+		buffer.reset();
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds the code paths which make slow calls. When a synchronous call takes longer than the threshold, the
+ * calling thread's stack is captured, cut down to the application's frames, and counted against its call site.
+ * Each interval the call sites with the most slow calls are reported.
+ * <p/>
+ * Capturing a stack is expensive, so captures are limited by a token bucket which holds up to
+ * <code>capturesPerSecond</code> tokens and refills at that rate. Slow calls beyond that are only counted.
+ * A call under the threshold costs a single comparison. Asynchronous calls complete on an event loop thread,
+ * whose stack says nothing about who made the call, so they are not captured.
+ */
+public class SlowCallDetector {
+	public static final int DEFAULT_TOP_SITES = 10;
+	// Distinct call sites kept per interval, so a pathological application cannot grow the map without bound
+	private static final int MAX_SITES = 1000;
+	// Only the wrapper's own frames are dropped, as applications may live under com.aerospike.client too
+	private static final String DETECTOR_CLASS = SlowCallDetector.class.getName();
+	private static final String CLIENT_CLASS = DebugAerospikeClient.class.getName();
+	private static final String CLIENT_INNER_CLASS_PREFIX = CLIENT_CLASS + "$";
+
+	private final long thresholdUs;
+	private final long refillNs;
+	private final long burstNs;
+	private final int maxFrames;
+	private int topSites = DEFAULT_TOP_SITES;
+
+	// The time the bucket will be full again, in System.nanoTime(); a token is available while this is under now + burst
+	private final AtomicLong fullAtNs = new AtomicLong(System.nanoTime());
+	private final LongAdder slowCalls = new LongAdder();
+	private final LongAdder captured = new LongAdder();
+	private volatile ConcurrentHashMap<CallSite, CallSite> sites = new ConcurrentHashMap<CallSite, CallSite>();
+
+	private static final class CallSite {
+		final String operation;
+		final StackTraceElement[] frames;
+		final int hash;
+		final AtomicLong count = new AtomicLong();
+		final AtomicLong maxUs = new AtomicLong();
+
+		CallSite(String operation, StackTraceElement[] frames) {
+			this.operation = operation;
+			this.frames = frames;
+			this.hash = 31 * operation.hashCode() + Arrays.hashCode(frames);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CallSite)) {
+				return false;
+			}
+			CallSite other = (CallSite)obj;
+			return hash == other.hash && operation.equals(other.operation) && Arrays.equals(frames, other.frames);
+		}
+	}
+
+	/**
+	 * @param thresholdUs - calls which take at least this long, in microseconds, are slow
+	 * @param capturesPerSecond - the most stacks to capture per second, averaged over a second
+	 * @param maxFrames - the most application frames to keep for each call site
+	 */
+	public SlowCallDetector(long thresholdUs, int capturesPerSecond, int maxFrames) {
+		if (capturesPerSecond <= 0 || maxFrames <= 0) {
+			throw new IllegalArgumentException("capturesPerSecond and maxFrames must be positive");
+		}
+		this.thresholdUs = thresholdUs;
+		this.refillNs = TimeUnit.SECONDS.toNanos(1) / capturesPerSecond;
+		this.burstNs = TimeUnit.SECONDS.toNanos(1);
+		this.maxFrames = maxFrames;
+	}
+
+	/**
+	 * Set how many call sites are reported each interval. The default is 10.
+	 */
+	public SlowCallDetector setTopSites(int topSites) {
+		this.topSites = topSites;
+		return this;
+	}
+
+	public long getThresholdUs() {
+		return thresholdUs;
+	}
+
+	/**
+	 * Check a call which has just finished, on the thread which made it.
+	 */
+	void check(String operation, long timeUs) {
+		if (timeUs < thresholdUs) {
+			return;
+		}
+		slowCalls.increment();
+		if (!takeToken()) {
+			return;
+		}
+		captured.increment();
+		CallSite site = new CallSite(operation, callerFrames(new Throwable().getStackTrace()));
+		ConcurrentHashMap<CallSite, CallSite> current = sites;
+		CallSite existing = current.get(site);
+		if (existing == null) {
+			if (current.size() >= MAX_SITES) {
+				return;
+			}
+			existing = current.putIfAbsent(site, site);
+			if (existing == null) {
+				existing = site;
+			}
+		}
+		existing.count.incrementAndGet();
+		long max;
+		while ((max = existing.maxUs.get()) < timeUs && !existing.maxUs.compareAndSet(max, timeUs)) {
+		}
+	}
+
+	private boolean takeToken() {
+		while (true) {
+			long now = System.nanoTime();
+			long fullAt = fullAtNs.get();
+			long from = Math.max(fullAt, now);
+			if (from - now + refillNs > burstNs) {
+				return false;
+			}
+			if (fullAtNs.compareAndSet(fullAt, from + refillNs)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Drop the frames of this detector and the DebugAerospikeClient from the top of the stack, then keep at most
+	 * <code>maxFrames</code> of the application's frames.
+	 */
+	StackTraceElement[] callerFrames(StackTraceElement[] stack) {
+		int first = 0;
+		while (first < stack.length && isWrapperFrame(stack[first].getClassName())) {
+			first++;
+		}
+		return Arrays.copyOfRange(stack, first, Math.min(stack.length, first + maxFrames));
+	}
+
+	private static boolean isWrapperFrame(String className) {
+		return className.equals(DETECTOR_CLASS) || className.equals(CLIENT_CLASS) || className.startsWith(CLIENT_INNER_CLASS_PREFIX);
+	}
+
+	/**
+	 * End the interval, printing the slow calls and their top call sites if there were any and
+	 * <code>print</code> is set.
+	 */
+	void report(PrintStream stream, boolean print) {
+		ConcurrentHashMap<CallSite, CallSite> current = sites;
+		sites = new ConcurrentHashMap<CallSite, CallSite>();
+		long slow = slowCalls.sumThenReset();
+		long captures = captured.sumThenReset();
+		if (!print || slow == 0) {
+			return;
+		}
+		List<CallSite> sorted = new ArrayList<CallSite>(current.values());
+		Collections.sort(sorted, new Comparator<CallSite>() {
+			@Override
+			public int compare(CallSite o1, CallSite o2) {
+				return Long.compare(o2.count.get(), o1.count.get());
+			}
+		});
+		stream.printf("Slow calls over %,.3fms: %,d, %,d captured, top call sites:\n", thresholdUs / 1000.0, slow, captures);
+		for (int i = 0; i < sorted.size() && i < topSites; i++) {
+			CallSite site = sorted.get(i);
+			stream.printf("   %,d x %s, max %,.3fms", site.count.get(), site.operation, site.maxUs.get() / 1000.0);
+			for (int frame = 0; frame < site.frames.length; frame++) {
+				stream.print(frame == 0 ? " at " : " < ");
+				stream.print(site.frames[frame]);
+			}
+			stream.println();
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.PrintStream;
+
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.cluster.PartitionNodeTable;
+import com.aerospike.client.command.Buffer;
+
+/**
+ * Keeps the K slowest calls of each reporting interval, so the calls behind the high percentiles can be
+ * identified. The calls are held in a min-heap by latency in fixed arrays. Once the heap is full, a call only
+ * costs a volatile read and a comparison against the fastest call kept unless it is slower than that.
+ * <p/>
+ * A full interval's fastest call is carried into the next interval as its threshold, so that the start of
+ * each interval does not send every call through the lock. If the next interval has fewer than K calls slower
+ * than that, it reports only those, and the interval after it starts with no threshold again.
+ */
+class SlowestCalls {
+	private final int size;
+	private final PartitionNodeTable nodeTable;
+	// The heap, guarded by this
+	private final long[] latenciesUs;
+	private final String[] operations;
+	private final String[] namespaces;
+	private final String[] setNames;
+	private final byte[][] digests;
+	private final int[] keyCounts;
+	private final int[] nodes;
+	private final int[] resultCodes;
+	private int count;
+	// The latency a call must exceed to be kept: the fastest call kept once the heap is full, and before that
+	// the fastest call of the previous interval if its heap filled
+	private volatile long thresholdUs = -1;
+
+	/**
+	 * @param nodeTable - used to find the node each key is predicted to be served by, or null
+	 */
+	SlowestCalls(int size, PartitionNodeTable nodeTable) {
+		this.size = size;
+		this.nodeTable = nodeTable;
+		this.latenciesUs = new long[size];
+		this.operations = new String[size];
+		this.namespaces = new String[size];
+		this.setNames = new String[size];
+		this.digests = new byte[size][];
+		this.keyCounts = new int[size];
+		this.nodes = new int[size];
+		this.resultCodes = new int[size];
+	}
+
+	void add(String operation, Key key, long timeUs, AerospikeException ae) {
+		if (timeUs > thresholdUs) {
+			insert(operation, key, 1, timeUs, ae);
+		}
+	}
+
+	void addBatch(int keys, long timeUs, AerospikeException ae) {
+		if (timeUs > thresholdUs) {
+			insert("Batch", null, keys, timeUs, ae);
+		}
+	}
+
+	private synchronized void insert(String operation, Key key, int keys, long timeUs, AerospikeException ae) {
+		int slot;
+		if (count < size) {
+			slot = count++;
+		}
+		else if (timeUs > latenciesUs[0]) {
+			slot = 0;
+		}
+		else {
+			return;
+		}
+		latenciesUs[slot] = timeUs;
+		operations[slot] = operation;
+		namespaces[slot] = key == null ? null : key.namespace;
+		setNames[slot] = key == null ? null : key.setName;
+		digests[slot] = key == null ? null : key.digest;
+		keyCounts[slot] = keys;
+		nodes[slot] = key == null || nodeTable == null ? PartitionNodeTable.UNKNOWN_NODE : nodeTable.getNodeIndex(key);
+		resultCodes[slot] = ae == null ? ResultCode.OK : ae.getResultCode();
+		if (slot == 0) {
+			siftDown(0);
+		}
+		else {
+			siftUp(slot);
+		}
+		if (count == size) {
+			thresholdUs = latenciesUs[0];
+		}
+	}
+
+	private void siftUp(int slot) {
+		while (slot > 0) {
+			int parent = (slot - 1) / 2;
+			if (latenciesUs[parent] <= latenciesUs[slot]) {
+				return;
+			}
+			swap(parent, slot);
+			slot = parent;
+		}
+	}
+
+	private void siftDown(int slot) {
+		while (true) {
+			int smallest = slot;
+			int left = 2 * slot + 1;
+			int right = left + 1;
+			if (left < count && latenciesUs[left] < latenciesUs[smallest]) {
+				smallest = left;
+			}
+			if (right < count && latenciesUs[right] < latenciesUs[smallest]) {
+				smallest = right;
+			}
+			if (smallest == slot) {
+				return;
+			}
+			swap(slot, smallest);
+			slot = smallest;
+		}
+	}
+
+	private void swap(int i, int j) {
+		long latency = latenciesUs[i];
+		latenciesUs[i] = latenciesUs[j];
+		latenciesUs[j] = latency;
+		swap(operations, i, j);
+		swap(namespaces, i, j);
+		swap(setNames, i, j);
+		byte[] digest = digests[i];
+		digests[i] = digests[j];
+		digests[j] = digest;
+		int value = keyCounts[i];
+		keyCounts[i] = keyCounts[j];
+		keyCounts[j] = value;
+		value = nodes[i];
+		nodes[i] = nodes[j];
+		nodes[j] = value;
+		value = resultCodes[i];
+		resultCodes[i] = resultCodes[j];
+		resultCodes[j] = value;
+	}
+
+	private static void swap(String[] values, int i, int j) {
+		String value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+
+	/**
+	 * End the interval, printing the slowest calls, slowest first, if there were any and <code>print</code> is
+	 * set, and empty the heap.
+	 */
+	synchronized void report(PrintStream stream, boolean print) {
+		long nextThresholdUs = count == size ? latenciesUs[0] : -1;
+		if (print && count > 0) {
+			stream.printf("Slowest %d calls:\n", count);
+			// Taking the root each time gives the calls fastest first, so fill the lines in from the end
+			String[] lines = new String[count];
+			for (int line = count - 1; line >= 0; line--) {
+				lines[line] = describe(0);
+				count--;
+				if (count > 0) {
+					swap(0, count);
+					siftDown(0);
+				}
+			}
+			for (String line : lines) {
+				stream.println(line);
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			operations[i] = null;
+			namespaces[i] = null;
+			setNames[i] = null;
+			digests[i] = null;
+		}
+		count = 0;
+		thresholdUs = nextThresholdUs;
+	}
+
+	private String describe(int slot) {
+		String target;
+		if (digests[slot] == null) {
+			target = String.format("[%d keys]", keyCounts[slot]);
+		}
+		else {
+			Node node = nodes[slot] < 0 ? null : nodeTable.getNode(nodes[slot]);
+			target = String.format("%s:%s:%s node %s", namespaces[slot], setNames[slot] == null ? "" : setNames[slot],
+					Buffer.bytesToHexString(digests[slot]), node == null ? "unknown" : node.getName());
+		}
+		return String.format("   %,.3fms %s %s result %d", latenciesUs[slot] / 1000.0, operations[slot], target, resultCodes[slot]);
+	}
+}
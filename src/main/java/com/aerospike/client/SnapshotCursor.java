@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.Closeable;
+
+/**
+ * A consumer's position in the intervals reported by a latency manager. Each call to <code>next()</code>
+ * returns a snapshot of the intervals ended since the previous call, or since the cursor was created, so a
+ * dashboard, a test and an exporter can each follow the same latency manager at their own pace without
+ * taking data from each other or from the periodic output:
+ * <pre>
+ * SnapshotCursor cursor = options.getGetLatencyManager().newCursor();
+ * ...
+ * LatencySnapshot sinceLastTime = cursor.next();
+ * long p99 = sinceLastTime.getValueAtPercentile(99);
+ * </pre>
+ * The reporting thread merges each interval it ends into every open cursor, which costs one pass over the
+ * histogram's buckets per cursor. Close the cursor when it is no longer needed.
+ */
+public final class SnapshotCursor implements Closeable {
+	private final AbstractLatencyManager owner;
+	// The intervals ended since the last call to next(), guarded by this cursor's monitor
+	private final IntervalHistogram pending;
+
+	SnapshotCursor(AbstractLatencyManager owner, IntervalHistogram empty) {
+		this.owner = owner;
+		this.pending = empty;
+	}
+
+	/**
+	 * Called by the reporting thread for each interval it ends.
+	 */
+	synchronized void add(IntervalHistogram interval) {
+		pending.add(interval);
+	}
+
+	/**
+	 * Get the intervals ended since the previous call, and start again from now. The snapshot has no
+	 * operations if no interval with operations has ended since.
+	 */
+	public synchronized LatencySnapshot next() {
+		LatencySnapshot snapshot = new LatencySnapshot(new IntervalHistogram(pending));
+		pending.reset();
+		return snapshot;
+	}
+
+	/**
+	 * Stop following the latency manager.
+	 */
+	@Override
+	public void close() {
+		owner.removeCursor(this);
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.cluster.PartitionNodeTable;
+import com.aerospike.client.listener.RecordSequenceListener;
+
+/**
+ * Tracks the progress of one scan or query by sitting between the client and the application's callback or
+ * listener. Each record costs a volatile read, an increment of its partition's counter and, for 1 in
+ * <code>SAMPLE_RATE</code> records, an estimate of its size. Everything else, including the breakdown by
+ * node, is worked out by the reporting thread from the partition counters.
+ */
+class StreamMonitor implements ScanCallback, RecordSequenceListener {
+	static final int SAMPLE_RATE = 64;
+	private static final AtomicLongFieldUpdater<StreamMonitor> FIRST_RECORD_NS = AtomicLongFieldUpdater.newUpdater(StreamMonitor.class, "firstRecordNs");
+	// Rough size of a record's key and header, so records with small bins are not estimated at nothing
+	private static final int RECORD_OVERHEAD = 20 + 8;
+
+	private final String description;
+	private final String namespace;
+	private final ScanCallback callback;
+	private final RecordSequenceListener listener;
+	private final long startNs;
+	volatile long firstRecordNs;
+	private volatile long endNs;
+	private volatile Throwable failure;
+	private final AtomicLongArray partitionRecords = new AtomicLongArray(Node.PARTITIONS);
+	private final AtomicLong sampledRecords = new AtomicLong();
+	private final AtomicLong sampledBytes = new AtomicLong();
+
+	// Only used by the reporting thread
+	private long lastRecords;
+	private long lastBytes;
+	private long lastReportNs;
+
+	StreamMonitor(String description, String namespace, ScanCallback callback, RecordSequenceListener listener) {
+		this.description = description;
+		this.namespace = namespace;
+		this.callback = callback;
+		this.listener = listener;
+		this.startNs = System.nanoTime();
+		this.lastReportNs = startNs;
+	}
+
+	private void record(Key key, Record record) {
+		if (firstRecordNs == 0) {
+			FIRST_RECORD_NS.compareAndSet(this, 0, System.nanoTime());
+		}
+		long count = partitionRecords.incrementAndGet(PartitionNodeTable.getPartitionId(key.digest));
+		if (count % SAMPLE_RATE == 1) {
+			sampledRecords.incrementAndGet();
+			sampledBytes.addAndGet(estimateSize(record));
+		}
+	}
+
+	static long estimateSize(Record record) {
+		long size = RECORD_OVERHEAD;
+		if (record == null || record.bins == null) {
+			return size;
+		}
+		for (Map.Entry<String, Object> bin : record.bins.entrySet()) {
+			size += bin.getKey().length() + estimateSize(bin.getValue());
+		}
+		return size;
+	}
+
+	private static long estimateSize(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		else if (value instanceof String) {
+			return ((String)value).length();
+		}
+		else if (value instanceof byte[]) {
+			return ((byte[])value).length;
+		}
+		else if (value instanceof List) {
+			return 8L * ((List<?>)value).size();
+		}
+		else if (value instanceof Map) {
+			return 16L * ((Map<?, ?>)value).size();
+		}
+		return 8;
+	}
+
+	void complete(Throwable failure) {
+		if (endNs == 0) {
+			this.failure = failure;
+			this.endNs = System.nanoTime();
+		}
+	}
+
+	boolean isComplete() {
+		return endNs != 0;
+	}
+
+	@Override
+	public void scanCallback(Key key, Record record) throws AerospikeException {
+		record(key, record);
+		callback.scanCallback(key, record);
+	}
+
+	@Override
+	public void onRecord(Key key, Record record) throws AerospikeException {
+		record(key, record);
+		listener.onRecord(key, record);
+	}
+
+	@Override
+	public void onSuccess() {
+		complete(null);
+		listener.onSuccess();
+	}
+
+	@Override
+	public void onFailure(AerospikeException ae) {
+		complete(ae);
+		listener.onFailure(ae);
+	}
+
+	private static String formatBytes(double bytes) {
+		if (bytes < 1024 * 1024) {
+			return String.format("%.1fKB", bytes / 1024);
+		}
+		else if (bytes < 1024.0 * 1024 * 1024) {
+			return String.format("%.1fMB", bytes / (1024 * 1024));
+		}
+		return String.format("%.1fGB", bytes / (1024.0 * 1024 * 1024));
+	}
+
+	/**
+	 * Print the progress since the last report, broken down by node if the node table is known.
+	 */
+	void print(PrintStream stream, PartitionNodeTable nodeTable) {
+		long end = endNs;
+		long now = end == 0 ? System.nanoTime() : end;
+		int nodes = nodeTable == null ? 0 : nodeTable.getNodeCount();
+		// The last slot is for partitions with no known node
+		long[] nodeRecords = new long[nodes + 1];
+		int[] nodePartitions = new int[nodes + 1];
+		long records = 0;
+		int partitions = 0;
+		for (int partition = 0; partition < Node.PARTITIONS; partition++) {
+			long count = partitionRecords.get(partition);
+			if (count > 0) {
+				int node = nodeTable == null ? PartitionNodeTable.UNKNOWN_NODE : nodeTable.getNodeIndex(namespace, partition);
+				if (node < 0) {
+					node = nodes;
+				}
+				nodeRecords[node] += count;
+				nodePartitions[node]++;
+				records += count;
+				partitions++;
+			}
+		}
+		long samples = sampledRecords.get();
+		long bytes = samples == 0 ? 0 : (long)(records * ((double)sampledBytes.get() / samples));
+		double seconds = Math.max(1, now - lastReportNs) / 1e9;
+
+		stream.printf("%s: %,d records, %,.0f/s, ~%s, %s/s, %d partitions, ", description, records,
+				(records - lastRecords) / seconds, formatBytes(bytes), formatBytes((bytes - lastBytes) / seconds), partitions);
+		long first = firstRecordNs;
+		if (first != 0) {
+			stream.printf("first record %.1fms, ", (first - startNs) / 1e6);
+		}
+		if (end == 0) {
+			stream.printf("running for %.1fs\n", (now - startNs) / 1e9);
+		}
+		else if (failure != null) {
+			stream.printf("failed after %.1fs: %s\n", (now - startNs) / 1e9, failure.getMessage());
+		}
+		else {
+			stream.printf("completed in %.1fs\n", (now - startNs) / 1e9);
+		}
+		for (int node = 0; node < nodes; node++) {
+			if (nodeRecords[node] > 0) {
+				stream.printf("   Node %s: %,d records, %d partitions\n", nodeTable.getNode(node).getName(), nodeRecords[node], nodePartitions[node]);
+			}
+		}
+		lastRecords = records;
+		lastBytes = bytes;
+		lastReportNs = now;
+	}
+}
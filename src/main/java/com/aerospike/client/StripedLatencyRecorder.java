@@ -0,0 +1,284 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records latencies into a set of stripes, each of which holds a full set of counters
+ * (operations, total latency, min, max, count, success and the histogram buckets). A calling
+ * thread always updates the same stripe, so with enough stripes the application threads do not
+ * contend with each other. The stripes are padded so that two stripes never share a cache line,
+ * and they are only merged when the statistics are reported.
+ * <p/>
+ * A stripe is only allocated the first time a thread records into it, so a recorder which is never
+ * used, or only used by a few threads, costs little more than its array of stripe references. The
+ * reporter only reads the stripes which have been allocated.
+ * <p/>
+ * Each stripe is double buffered: writers record into the active bank while the reporter flips
+ * to the spare one and reads it. The flip uses a writer/reader phaser per stripe: a writer
+ * increments the stripe's start epoch on entry, the sign of which tells it which bank is active,
+ * and increments the matching end epoch on exit. The reporter swaps the sign of the start epoch and
+ * waits until the end epoch of the old phase catches up, after which no writer can be touching the
+ * old bank. Writers never wait, and every interval which is drained describes exactly the same set
+ * of operations across all of its counters.
+ * <p/>
+ * The layout of each bank is: the header slots below, then the latency manager's buckets,
+ * then the percentile buckets.
+ */
+public class StripedLatencyRecorder {
+	static final int OPERATIONS = 0;
+	static final int TOTAL_LATENCY = 1;
+	static final int MIN = 2;
+	static final int MAX = 3;
+	static final int COUNT = 4;
+	static final int SUCCESS = 5;
+	static final int HEADER_SLOTS = 6;
+
+	/** Values reported by MIN and MAX when no operations were recorded */
+	static final long NO_VALUE = -1;
+
+	private static final int MAX_STRIPES = 64;
+	// 8 longs is one 64 byte cache line. Pad with a whole line either side of each stripe.
+	private static final int LINE_LONGS = 8;
+
+	// Phaser slots at the start of each stripe, after the leading padding
+	private static final int START_EPOCH = LINE_LONGS;
+	private static final int EVEN_END_EPOCH = LINE_LONGS + 1;
+	private static final int ODD_END_EPOCH = LINE_LONGS + 2;
+	private static final int PHASER_SLOTS = LINE_LONGS;
+
+	private final AtomicReferenceArray<AtomicLongArray> stripes;
+	private final int buckets;
+	private final int percentileBuckets;
+	private final int width;
+	private final int bankStride;
+	private final int stride;
+	private final int mask;
+
+	StripedLatencyRecorder(int buckets, int percentileBuckets) {
+		this(buckets, percentileBuckets, defaultStripes());
+	}
+
+	StripedLatencyRecorder(int buckets, int percentileBuckets, int stripes) {
+		if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+			throw new IllegalArgumentException("Number of stripes must be a positive power of 2, not " + stripes);
+		}
+		this.buckets = buckets;
+		this.percentileBuckets = percentileBuckets;
+		this.width = HEADER_SLOTS + buckets + percentileBuckets;
+		this.bankStride = ((width + LINE_LONGS - 1) / LINE_LONGS) * LINE_LONGS;
+		this.stride = LINE_LONGS + PHASER_SLOTS + 2 * bankStride + LINE_LONGS;
+		this.mask = stripes - 1;
+		this.stripes = new AtomicReferenceArray<AtomicLongArray>(stripes);
+	}
+
+	/**
+	 * The number of stripes to use for counters which every application thread updates: twice the number of
+	 * CPUs rounded to a power of 2, up to 64. Other striped counters, such as those in the cluster package,
+	 * are sized from this too.
+	 */
+	public static int defaultStripes() {
+		int cpus = Runtime.getRuntime().availableProcessors();
+		int stripes = Integer.highestOneBit(Math.max(1, cpus - 1)) << 1;
+		return Math.min(MAX_STRIPES, Math.max(1, stripes));
+	}
+
+	/**
+	 * The number of bytes a stripe takes once it has been allocated.
+	 */
+	long getStripeBytes() {
+		return 8L * stride;
+	}
+
+	/**
+	 * The number of stripes which have been allocated so far.
+	 */
+	int getAllocatedStripes() {
+		int allocated = 0;
+		for (int i = 0; i <= mask; i++) {
+			if (stripes.get(i) != null) {
+				allocated++;
+			}
+		}
+		return allocated;
+	}
+
+	private int bank(int bank) {
+		return LINE_LONGS + PHASER_SLOTS + bank * bankStride;
+	}
+
+	private void resetMinMax(AtomicLongArray cells, int bank) {
+		cells.set(bank + MIN, Long.MAX_VALUE);
+		cells.set(bank + MAX, Long.MIN_VALUE);
+	}
+
+	/**
+	 * Thread ids are handed out sequentially, so using the low bits gives an even spread
+	 * of the threads in a pool across the stripes.
+	 */
+	private AtomicLongArray stripe() {
+		int index = (int)Thread.currentThread().getId() & mask;
+		AtomicLongArray cells = stripes.get(index);
+		if (cells == null) {
+			cells = new AtomicLongArray(stride);
+			cells.set(ODD_END_EPOCH, Long.MIN_VALUE);
+			resetMinMax(cells, bank(0));
+			resetMinMax(cells, bank(1));
+			if (!stripes.compareAndSet(index, null, cells)) {
+				cells = stripes.get(index);
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Record a single operation.
+	 * @param bucket - the index of the latency manager's bucket, or -1 if there is none
+	 * @param percentileBucket - the index of the percentile bucket, or -1 if there is none
+	 */
+	void record(int bucket, int percentileBucket, long latencyUs, int count, int success) {
+		AtomicLongArray cells = stripe();
+		long epoch = cells.getAndIncrement(START_EPOCH);
+		try {
+			int bank = bank(epoch < 0 ? 1 : 0);
+			cells.getAndIncrement(bank + OPERATIONS);
+			cells.getAndAdd(bank + TOTAL_LATENCY, latencyUs);
+			if (count > 0) {
+				cells.getAndAdd(bank + COUNT, count);
+			}
+			if (success > 0) {
+				cells.getAndAdd(bank + SUCCESS, success);
+			}
+			if (bucket >= 0) {
+				cells.getAndIncrement(bank + HEADER_SLOTS + bucket);
+			}
+			if (percentileBucket >= 0) {
+				cells.getAndIncrement(bank + HEADER_SLOTS + buckets + percentileBucket);
+			}
+			long current;
+			while (latencyUs < (current = cells.get(bank + MIN))) {
+				if (cells.compareAndSet(bank + MIN, current, latencyUs)) {
+					break;
+				}
+			}
+			while (latencyUs > (current = cells.get(bank + MAX))) {
+				if (cells.compareAndSet(bank + MAX, current, latencyUs)) {
+					break;
+				}
+			}
+		}
+		finally {
+			cells.getAndIncrement(epoch < 0 ? ODD_END_EPOCH : EVEN_END_EPOCH);
+		}
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	int getBucketOffset() {
+		return HEADER_SLOTS;
+	}
+
+	int getPercentileBucketOffset() {
+		return HEADER_SLOTS + buckets;
+	}
+
+	int getPercentileBuckets() {
+		return percentileBuckets;
+	}
+
+	/**
+	 * Sum one of the additive slots across all the stripes and both banks without resetting it.
+	 */
+	long sum(int slot) {
+		long total = 0;
+		for (int i = 0; i <= mask; i++) {
+			AtomicLongArray cells = stripes.get(i);
+			if (cells != null) {
+				total += cells.get(bank(0) + slot) + cells.get(bank(1) + slot);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Make the spare bank of the stripe active, and wait for any writers still in the previously
+	 * active bank to leave it.
+	 * @return the index of the bank which is now inactive
+	 */
+	private int flip(AtomicLongArray cells) {
+		boolean nextPhaseIsEven = cells.get(START_EPOCH) < 0;
+		long initialStartValue = nextPhaseIsEven ? 0 : Long.MIN_VALUE;
+		cells.set(nextPhaseIsEven ? EVEN_END_EPOCH : ODD_END_EPOCH, initialStartValue);
+		long startValueAtFlip = cells.getAndSet(START_EPOCH, initialStartValue);
+		int endEpoch = nextPhaseIsEven ? ODD_END_EPOCH : EVEN_END_EPOCH;
+		while (cells.get(endEpoch) != startValueAtFlip) {
+			Thread.yield();
+		}
+		return nextPhaseIsEven ? 1 : 0;
+	}
+
+	/**
+	 * Merge the slots from <code>from</code> (inclusive) to <code>to</code> (exclusive) of the inactive
+	 * bank of every allocated stripe into the passed array, resetting them as they are read.
+	 */
+	private void drainRange(long[] into, int intoOffset, int from, int to) {
+		for (int i = 0; i < to - from; i++) {
+			into[intoOffset + i] = 0;
+		}
+		boolean includesMinMax = from <= MIN && to > MAX;
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (int i = 0; i <= mask; i++) {
+			AtomicLongArray cells = stripes.get(i);
+			if (cells == null) {
+				continue;
+			}
+			int bank = bank(flip(cells));
+			for (int j = from; j < to; j++) {
+				if (j == MIN) {
+					min = Math.min(min, cells.get(bank + j));
+					cells.set(bank + j, Long.MAX_VALUE);
+				}
+				else if (j == MAX) {
+					max = Math.max(max, cells.get(bank + j));
+					cells.set(bank + j, Long.MIN_VALUE);
+				}
+				else {
+					into[intoOffset + j - from] += cells.get(bank + j);
+					cells.set(bank + j, 0);
+				}
+			}
+		}
+		if (includesMinMax) {
+			into[intoOffset + MIN - from] = min == Long.MAX_VALUE ? NO_VALUE : min;
+			into[intoOffset + MAX - from] = max == Long.MIN_VALUE ? NO_VALUE : max;
+		}
+	}
+
+	/**
+	 * Flip every stripe to its spare bank and merge everything recorded since the previous drain into the
+	 * passed array (which must be at least <code>getWidth()</code> long). MIN and MAX are set to NO_VALUE
+	 * if nothing was recorded.
+	 */
+	synchronized void drain(long[] into) {
+		drainRange(into, 0, 0, width);
+	}
+}
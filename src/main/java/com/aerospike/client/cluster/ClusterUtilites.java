@@ -11,7 +11,6 @@ import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.aerospike.client.IAerospikeClient;
 import com.aerospike.client.Key;
-import com.aerospike.client.command.Buffer;
 
 /**
  * This class can be used to perform "interesting" operations on the cluster, such as determining the nodes in the cluster, the partition map, etc.
@@ -30,7 +29,7 @@ public class ClusterUtilites {
 	}
 	
 	public int getPartitionForKey(Key key) {
-		return (Buffer.littleBytesToInt(key.digest, 0) & 0xFFFF) % Node.PARTITIONS;
+		return PartitionNodeTable.getPartitionId(key.digest);
 	}
 	
 	public Node[] findAllNodesForKey(Key key) {
@@ -137,38 +136,100 @@ public class ClusterUtilites {
 				Set<Integer> parts = replicaToParts.get(i);
 				List<Integer> partList = new ArrayList<>(parts);
 				Collections.sort(partList);
-				StringBuffer buffer = new StringBuffer();
-				int lastOutput = -5;
-				int runCount = 0;
-				for (int k = 0; k < partList.size(); k++) {
-					int thisIndex = partList.get(k);
-					if (lastOutput+runCount == thisIndex) {
-						runCount++;
-					}
-					else {
-						if (runCount > 1) {
-							buffer.append("-").append(lastOutput+runCount-1).append(",");
-						}
-						else if (lastOutput >= 0) {
-							buffer.append(",");
-						}
-					  	lastOutput = thisIndex;
-					  	runCount = 1;
-					  	buffer.append(thisIndex);
-					}
-					if (maxLength > 0 && buffer.length() > maxLength ) {
-						break;
-					}
-				}
+				System.out.println(formatPartitions(partList, maxLength));
+			}
+		}
+	}
+
+	/**
+	 * Format a sorted list of partitions as runs, for example "0-5,9,12-13", truncated to maxLength if it is positive.
+	 */
+	private static String formatPartitions(List<Integer> partList, int maxLength) {
+		StringBuffer buffer = new StringBuffer();
+		int lastOutput = -5;
+		int runCount = 0;
+		for (int k = 0; k < partList.size(); k++) {
+			int thisIndex = partList.get(k);
+			if (lastOutput+runCount == thisIndex) {
+				runCount++;
+			}
+			else {
 				if (runCount > 1) {
-					buffer.append("-").append(lastOutput+runCount-1);
+					buffer.append("-").append(lastOutput+runCount-1).append(",");
 				}
-				
-				if (maxLength > 0 && buffer.length() > maxLength) {
-					System.out.println(buffer.toString().substring(0, maxLength)+"...");
+				else if (lastOutput >= 0) {
+					buffer.append(",");
+				}
+			  	lastOutput = thisIndex;
+			  	runCount = 1;
+			  	buffer.append(thisIndex);
+			}
+			if (maxLength > 0 && buffer.length() > maxLength ) {
+				break;
+			}
+		}
+		if (runCount > 1) {
+			buffer.append("-").append(lastOutput+runCount-1);
+		}
+		
+		if (maxLength > 0 && buffer.length() > maxLength) {
+			return buffer.toString().substring(0, maxLength)+"...";
+		}
+		else {
+			return buffer.toString();
+		}
+	}
+
+	/**
+	 * Print which partitions carry the load on each node, from the traffic the client has recorded. Each
+	 * partition is attributed to its master node, and the partitions of each node are listed by how busy they
+	 * are compared to the mean of all the partitions: hot (at least twice the mean), warm (above the mean),
+	 * cool (below the mean) and idle (no operations).
+	 * @param snapshot - the traffic, from <code>PartitionTraffic.snapshot()</code>
+	 * @param maxLength - the longest list of partitions to print for each level, or 0 for no limit
+	 */
+	public void printPartitionHeatmap(PartitionTraffic.Snapshot snapshot, int maxLength) {
+		String namespace = snapshot.getNamespace();
+		if (cluster == null) {
+			throw new IllegalArgumentException("printPartitionHeatmap cannot be called if there is no cluster information");
+		}
+		Partitions partitions = this.cluster.partitionMap.get(namespace);
+		if (partitions == null) {
+			throw new IllegalArgumentException("Namespace " + namespace + " does not exist");
+		}
+		AtomicReferenceArray<Node> masters = partitions.replicas[0];
+		long total = 0;
+		for (int partId = 0; partId < Node.PARTITIONS; partId++) {
+			total += snapshot.getOperations(partId);
+		}
+		double mean = (double)total / Node.PARTITIONS;
+		System.out.printf("Partition heatmap of %s: %,d operations, mean %,.1f per partition\n", namespace, total, mean);
+
+		String[] levels = {"Hot", "Warm", "Cool", "Idle"};
+		Node[] nodes = this.cluster.getNodes();
+		for (Node node : nodes) {
+			List<List<Integer>> partsByLevel = new ArrayList<>();
+			for (int i = 0; i < levels.length; i++) {
+				partsByLevel.add(new ArrayList<Integer>());
+			}
+			long operations = 0;
+			long latencyUs = 0;
+			for (int partId = 0; partId < masters.length(); partId++) {
+				if (!node.equals(masters.get(partId))) {
+					continue;
 				}
-				else {
-					System.out.println(buffer.toString());
+				long partOperations = snapshot.getOperations(partId);
+				operations += partOperations;
+				latencyUs += snapshot.getLatencyUs(partId);
+				int level = partOperations == 0 ? 3 : partOperations >= 2 * mean ? 0 : partOperations > mean ? 1 : 2;
+				partsByLevel.get(level).add(partId);
+			}
+			System.out.printf("   Node: %s: %,d operations (%.1f%%), avg %.3fms\n", node.getName(), operations,
+					total == 0 ? 0.0 : 100.0 * operations / total, operations == 0 ? 0.0 : latencyUs / 1000.0 / operations);
+			for (int i = 0; i < levels.length; i++) {
+				List<Integer> parts = partsByLevel.get(i);
+				if (!parts.isEmpty()) {
+					System.out.printf("      %s (%d): %s\n", levels[i], parts.size(), formatPartitions(parts, maxLength));
 				}
 			}
 		}
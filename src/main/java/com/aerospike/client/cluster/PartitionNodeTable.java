@@ -0,0 +1,187 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client.cluster;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.command.Buffer;
+
+/**
+ * A cached copy of which node is the master of each partition, for finding the node a key will be sent to
+ * without allocating or doing any map lookups. Each node is given an index the first time it is seen, and the
+ * index stays the same for the life of the table, even if the node leaves and rejoins the cluster, so per-node
+ * state can be kept in arrays indexed by it.
+ * <p/>
+ * The table is only updated by <code>refresh()</code>, which is intended to be called periodically, for
+ * example each time latencies are reported. Between refreshes a key whose partition has migrated will be
+ * attributed to the node which used to own it.
+ */
+public class PartitionNodeTable {
+	public static final int UNKNOWN_NODE = -1;
+
+	private static final class Snapshot {
+		final String[] namespaces;
+		final int[][] masters;
+		final Node[] nodes;
+
+		Snapshot(String[] namespaces, int[][] masters, Node[] nodes) {
+			this.namespaces = namespaces;
+			this.masters = masters;
+			this.nodes = nodes;
+		}
+	}
+
+	private final IAerospikeClient client;
+	private volatile Snapshot snapshot = new Snapshot(new String[0], new int[0][], new Node[0]);
+	private final int[] scratch = new int[Node.PARTITIONS];
+
+	public PartitionNodeTable(IAerospikeClient client) {
+		this.client = client;
+		refresh();
+	}
+
+	public static int getPartitionId(byte[] digest) {
+		return (Buffer.littleBytesToInt(digest, 0) & 0xFFFF) % Node.PARTITIONS;
+	}
+
+	/**
+	 * Get the index of the node which is the master for the key, or <code>UNKNOWN_NODE</code> if the
+	 * namespace is not known or the partition has no master.
+	 */
+	public int getNodeIndex(Key key) {
+		return getNodeIndex(key.namespace, getPartitionId(key.digest));
+	}
+
+	/**
+	 * Get the index of the node which is the master for the partition, or <code>UNKNOWN_NODE</code>.
+	 */
+	public int getNodeIndex(String namespace, int partitionId) {
+		Snapshot current = snapshot;
+		String[] namespaces = current.namespaces;
+		for (int i = 0; i < namespaces.length; i++) {
+			// Namespaces are nearly always the same String instance, so check that before equals()
+			if (namespaces[i] == namespace || namespaces[i].equals(namespace)) {
+				return current.masters[i][partitionId];
+			}
+		}
+		return UNKNOWN_NODE;
+	}
+
+	/**
+	 * The number of nodes which have been seen, one more than the highest node index.
+	 */
+	public int getNodeCount() {
+		return snapshot.nodes.length;
+	}
+
+	public Node getNode(int index) {
+		return snapshot.nodes[index];
+	}
+
+	/**
+	 * Re-read the partition map from the cluster.
+	 * @return true if the table changed
+	 */
+	public synchronized boolean refresh() {
+		Node[] clusterNodes = client.getNodes();
+		if (clusterNodes.length == 0) {
+			return false;
+		}
+		Snapshot current = snapshot;
+		Node[] nodes = current.nodes;
+		for (Node node : clusterNodes) {
+			nodes = register(nodes, node);
+		}
+		Map<String, Partitions> partitionMap = clusterNodes[0].cluster.partitionMap;
+		String[] namespaces = new String[partitionMap.size()];
+		int[][] masters = new int[partitionMap.size()][];
+		boolean changed = nodes != current.nodes || namespaces.length != current.namespaces.length;
+		int count = 0;
+		for (Map.Entry<String, Partitions> entry : partitionMap.entrySet()) {
+			AtomicReferenceArray<Node> replica = entry.getValue().replicas[0];
+			for (int partition = 0; partition < scratch.length; partition++) {
+				Node node = partition < replica.length() ? replica.get(partition) : null;
+				if (node == null) {
+					scratch[partition] = UNKNOWN_NODE;
+				}
+				else {
+					nodes = register(nodes, node);
+					scratch[partition] = indexOf(nodes, node);
+				}
+			}
+			int[] previous = find(current, entry.getKey());
+			if (previous != null && Arrays.equals(previous, scratch)) {
+				masters[count] = previous;
+			}
+			else {
+				masters[count] = scratch.clone();
+				changed = true;
+			}
+			namespaces[count++] = entry.getKey();
+		}
+		if (changed || nodes != current.nodes) {
+			snapshot = new Snapshot(namespaces, masters, nodes);
+			return true;
+		}
+		return false;
+	}
+
+	private static int[] find(Snapshot snapshot, String namespace) {
+		for (int i = 0; i < snapshot.namespaces.length; i++) {
+			if (snapshot.namespaces[i].equals(namespace)) {
+				return snapshot.masters[i];
+			}
+		}
+		return null;
+	}
+
+	private static int indexOf(Node[] nodes, Node node) {
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i] == node) {
+				return i;
+			}
+		}
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i].getName().equals(node.getName())) {
+				return i;
+			}
+		}
+		return UNKNOWN_NODE;
+	}
+
+	/**
+	 * Make sure the node has an index. A node which has restarted is a new Node object with the same name, so
+	 * it takes over its predecessor's index.
+	 */
+	private static Node[] register(Node[] nodes, Node node) {
+		int index = indexOf(nodes, node);
+		if (index >= 0) {
+			if (nodes[index] != node) {
+				nodes = nodes.clone();
+				nodes[index] = node;
+			}
+			return nodes;
+		}
+		nodes = Arrays.copyOf(nodes, nodes.length + 1);
+		nodes[nodes.length - 1] = node;
+		return nodes;
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client.cluster;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.aerospike.client.StripedLatencyRecorder;
+
+/**
+ * Counts the reads and writes to each partition of a namespace, and the sum of their latencies. The counters
+ * are striped by thread, with as many stripes as the latency managers have up to 8, and the four counters of
+ * a partition share a cache line, so threads only contend when they use the same partition in the same stripe. A heatmap of the counts by node can be printed with
+ * <code>ClusterUtilites.printPartitionHeatmap</code>.
+ */
+public class PartitionTraffic {
+	// A stripe holds the counters of every partition, which is 128 KB, and all of them are allocated up front,
+	// so they are capped like the stripes of the per node and per operation latency managers
+	private static final int MAX_STRIPES = 8;
+	private static final int STRIPES = Math.min(MAX_STRIPES, StripedLatencyRecorder.defaultStripes());
+	private static final int FIELDS = 4;
+	private static final int READS = 0;
+	private static final int READ_LATENCY = 1;
+	private static final int WRITES = 2;
+	private static final int WRITE_LATENCY = 3;
+
+	private final String namespace;
+	private final AtomicLongArray cells = new AtomicLongArray(STRIPES * Node.PARTITIONS * FIELDS);
+
+	/**
+	 * The counters of every partition at one point in time.
+	 */
+	public static final class Snapshot {
+		private final String namespace;
+		private final long[] counters;
+
+		private Snapshot(String namespace, long[] counters) {
+			this.namespace = namespace;
+			this.counters = counters;
+		}
+
+		public String getNamespace() {
+			return namespace;
+		}
+		public long getReads(int partitionId) {
+			return counters[partitionId * FIELDS + READS];
+		}
+		public long getReadLatencyUs(int partitionId) {
+			return counters[partitionId * FIELDS + READ_LATENCY];
+		}
+		public long getWrites(int partitionId) {
+			return counters[partitionId * FIELDS + WRITES];
+		}
+		public long getWriteLatencyUs(int partitionId) {
+			return counters[partitionId * FIELDS + WRITE_LATENCY];
+		}
+		/** The reads and writes to the partition */
+		public long getOperations(int partitionId) {
+			return getReads(partitionId) + getWrites(partitionId);
+		}
+		/** The sum of the latencies of the reads and writes to the partition, in microseconds */
+		public long getLatencyUs(int partitionId) {
+			return getReadLatencyUs(partitionId) + getWriteLatencyUs(partitionId);
+		}
+	}
+
+	public PartitionTraffic(String namespace) {
+		this.namespace = namespace;
+	}
+
+	public String getNamespace() {
+		return namespace;
+	}
+
+	private static int base(int partitionId) {
+		int stripe = (int)Thread.currentThread().getId() & (STRIPES - 1);
+		return (stripe * Node.PARTITIONS + partitionId) * FIELDS;
+	}
+
+	public void recordRead(int partitionId, long latencyUs) {
+		int base = base(partitionId);
+		cells.incrementAndGet(base + READS);
+		cells.addAndGet(base + READ_LATENCY, latencyUs);
+	}
+
+	public void recordWrite(int partitionId, long latencyUs) {
+		int base = base(partitionId);
+		cells.incrementAndGet(base + WRITES);
+		cells.addAndGet(base + WRITE_LATENCY, latencyUs);
+	}
+
+	/**
+	 * Sum the stripes into a snapshot.
+	 * @param reset - whether to reset the counters, so the next snapshot only has what happens after this one
+	 */
+	public Snapshot snapshot(boolean reset) {
+		long[] counters = new long[Node.PARTITIONS * FIELDS];
+		for (int stripe = 0; stripe < STRIPES; stripe++) {
+			int offset = stripe * Node.PARTITIONS * FIELDS;
+			for (int i = 0; i < counters.length; i++) {
+				counters[i] += reset ? cells.getAndSet(offset + i, 0) : cells.get(offset + i);
+			}
+		}
+		return new Snapshot(namespace, counters);
+	}
+}
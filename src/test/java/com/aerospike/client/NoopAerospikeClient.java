@@ -0,0 +1,478 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import com.aerospike.client.admin.Privilege;
+import com.aerospike.client.admin.Role;
+import com.aerospike.client.admin.User;
+import com.aerospike.client.async.EventLoop;
+import com.aerospike.client.cluster.Cluster;
+import com.aerospike.client.cluster.ClusterStats;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.listener.BatchListListener;
+import com.aerospike.client.listener.BatchSequenceListener;
+import com.aerospike.client.listener.DeleteListener;
+import com.aerospike.client.listener.ExecuteListener;
+import com.aerospike.client.listener.ExistsArrayListener;
+import com.aerospike.client.listener.ExistsListener;
+import com.aerospike.client.listener.ExistsSequenceListener;
+import com.aerospike.client.listener.IndexListener;
+import com.aerospike.client.listener.InfoListener;
+import com.aerospike.client.listener.RecordArrayListener;
+import com.aerospike.client.listener.RecordListener;
+import com.aerospike.client.listener.RecordSequenceListener;
+import com.aerospike.client.listener.WriteListener;
+import com.aerospike.client.policy.AdminPolicy;
+import com.aerospike.client.policy.BatchPolicy;
+import com.aerospike.client.policy.InfoPolicy;
+import com.aerospike.client.policy.Policy;
+import com.aerospike.client.policy.QueryPolicy;
+import com.aerospike.client.policy.ScanPolicy;
+import com.aerospike.client.policy.WritePolicy;
+import com.aerospike.client.query.IndexCollectionType;
+import com.aerospike.client.query.IndexType;
+import com.aerospike.client.query.PartitionFilter;
+import com.aerospike.client.query.RecordSet;
+import com.aerospike.client.query.ResultSet;
+import com.aerospike.client.query.Statement;
+import com.aerospike.client.task.ExecuteTask;
+import com.aerospike.client.task.IndexTask;
+import com.aerospike.client.task.RegisterTask;
+
+/**
+ * An IAerospikeClient which does nothing, so that tests can drive whatever wraps it without a server and
+ * benchmarks measure only the cost of the wrapper. Asynchronous calls never call their listeners.
+ * Single record reads return a found record so that the record-found paths are exercised.
+ */
+public class NoopAerospikeClient implements IAerospikeClient {
+	private static final Record RECORD = new Record(new HashMap<String, Object>(Collections.<String, Object>singletonMap("value", 1L)), 1, 0);
+	private static final Node[] NO_NODES = new Node[0];
+
+	@Override
+	public Policy getReadPolicyDefault() {
+		return null;
+	}
+
+	@Override
+	public WritePolicy getWritePolicyDefault() {
+		return null;
+	}
+
+	@Override
+	public ScanPolicy getScanPolicyDefault() {
+		return null;
+	}
+
+	@Override
+	public QueryPolicy getQueryPolicyDefault() {
+		return null;
+	}
+
+	@Override
+	public BatchPolicy getBatchPolicyDefault() {
+		return null;
+	}
+
+	@Override
+	public InfoPolicy getInfoPolicyDefault() {
+		return null;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@Override
+	public boolean isConnected() {
+		return false;
+	}
+
+	@Override
+	public Node[] getNodes() {
+		return NO_NODES;
+	}
+
+	@Override
+	public List<String> getNodeNames() {
+		return null;
+	}
+
+	@Override
+	public Node getNode(String nodeName) throws AerospikeException.InvalidNode {
+		return null;
+	}
+
+	@Override
+	public ClusterStats getClusterStats() {
+		return null;
+	}
+
+	@Override
+	public Cluster getCluster() {
+		return null;
+	}
+
+	@Override
+	public void put(WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
+	}
+
+	@Override
+	public void put(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
+	}
+
+	@Override
+	public void append(WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
+	}
+
+	@Override
+	public void append(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
+	}
+
+	@Override
+	public void prepend(WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
+	}
+
+	@Override
+	public void prepend(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
+	}
+
+	@Override
+	public void add(WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
+	}
+
+	@Override
+	public void add(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
+	}
+
+	@Override
+	public boolean delete(WritePolicy policy, Key key) throws AerospikeException {
+		return false;
+	}
+
+	@Override
+	public void delete(EventLoop eventLoop, DeleteListener listener, WritePolicy policy, Key key) throws AerospikeException {
+	}
+
+	@Override
+	public void truncate(InfoPolicy policy, String ns, String set, Calendar beforeLastUpdate) throws AerospikeException {
+	}
+
+	@Override
+	public void touch(WritePolicy policy, Key key) throws AerospikeException {
+	}
+
+	@Override
+	public void touch(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key) throws AerospikeException {
+	}
+
+	@Override
+	public boolean exists(Policy policy, Key key) throws AerospikeException {
+		return false;
+	}
+
+	@Override
+	public void exists(EventLoop eventLoop, ExistsListener listener, Policy policy, Key key) throws AerospikeException {
+	}
+
+	@Override
+	public boolean[] exists(BatchPolicy policy, Key[] keys) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void exists(EventLoop eventLoop, ExistsArrayListener listener, BatchPolicy policy, Key[] keys) throws AerospikeException {
+	}
+
+	@Override
+	public void exists(EventLoop eventLoop, ExistsSequenceListener listener, BatchPolicy policy, Key[] keys) throws AerospikeException {
+	}
+
+	@Override
+	public Record get(Policy policy, Key key) throws AerospikeException {
+		return RECORD;
+	}
+
+	@Override
+	public void get(EventLoop eventLoop, RecordListener listener, Policy policy, Key key) throws AerospikeException {
+	}
+
+	@Override
+	public Record get(Policy policy, Key key, String... binNames) throws AerospikeException {
+		return RECORD;
+	}
+
+	@Override
+	public void get(EventLoop eventLoop, RecordListener listener, Policy policy, Key key, String... binNames) throws AerospikeException {
+	}
+
+	@Override
+	public Record getHeader(Policy policy, Key key) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void getHeader(EventLoop eventLoop, RecordListener listener, Policy policy, Key key) throws AerospikeException {
+	}
+
+	@Override
+	public void get(BatchPolicy policy, List<BatchRead> records) throws AerospikeException {
+	}
+
+	@Override
+	public void get(EventLoop eventLoop, BatchListListener listener, BatchPolicy policy, List<BatchRead> records) throws AerospikeException {
+	}
+
+	@Override
+	public void get(EventLoop eventLoop, BatchSequenceListener listener, BatchPolicy policy, List<BatchRead> records) throws AerospikeException {
+	}
+
+	@Override
+	public Record[] get(BatchPolicy policy, Key[] keys) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void get(EventLoop eventLoop, RecordArrayListener listener, BatchPolicy policy, Key[] keys) throws AerospikeException {
+	}
+
+	@Override
+	public void get(EventLoop eventLoop, RecordSequenceListener listener, BatchPolicy policy, Key[] keys) throws AerospikeException {
+	}
+
+	@Override
+	public Record[] get(BatchPolicy policy, Key[] keys, String... binNames) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void get(EventLoop eventLoop, RecordArrayListener listener, BatchPolicy policy, Key[] keys, String... binNames) throws AerospikeException {
+	}
+
+	@Override
+	public void get(EventLoop eventLoop, RecordSequenceListener listener, BatchPolicy policy, Key[] keys, String... binNames) throws AerospikeException {
+	}
+
+	@Override
+	public Record[] getHeader(BatchPolicy policy, Key[] keys) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void getHeader(EventLoop eventLoop, RecordArrayListener listener, BatchPolicy policy, Key[] keys) throws AerospikeException {
+	}
+
+	@Override
+	public void getHeader(EventLoop eventLoop, RecordSequenceListener listener, BatchPolicy policy, Key[] keys) throws AerospikeException {
+	}
+
+	@Override
+	public Record operate(WritePolicy policy, Key key, Operation... operations) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void operate(EventLoop eventLoop, RecordListener listener, WritePolicy policy, Key key, Operation... operations) throws AerospikeException {
+	}
+
+	@Override
+	public void scanAll(ScanPolicy policy, String namespace, String setName, ScanCallback callback, String... binNames) throws AerospikeException {
+	}
+
+	@Override
+	public void scanAll(EventLoop eventLoop, RecordSequenceListener listener, ScanPolicy policy, String namespace, String setName, String... binNames) throws AerospikeException {
+	}
+
+	@Override
+	public void scanNode(ScanPolicy policy, String nodeName, String namespace, String setName, ScanCallback callback, String... binNames) throws AerospikeException {
+	}
+
+	@Override
+	public void scanNode(ScanPolicy policy, Node node, String namespace, String setName, ScanCallback callback, String... binNames) throws AerospikeException {
+	}
+
+	@Override
+	public void scanPartitions(ScanPolicy policy, PartitionFilter partitionFilter, String namespace, String setName, ScanCallback callback, String... binNames) throws AerospikeException {
+	}
+
+	@Override
+	public void scanPartitions(EventLoop eventLoop, RecordSequenceListener listener, ScanPolicy policy, PartitionFilter partitionFilter, String namespace, String setName, String... binNames) throws AerospikeException {
+	}
+
+	@Override
+	public RegisterTask register(Policy policy, String clientPath, String serverPath, Language language) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public RegisterTask register(Policy policy, ClassLoader resourceLoader, String resourcePath, String serverPath, Language language) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public RegisterTask registerUdfString(Policy policy, String code, String serverPath, Language language) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void removeUdf(InfoPolicy policy, String serverPath) throws AerospikeException {
+	}
+
+	@Override
+	public Object execute(WritePolicy policy, Key key, String packageName, String functionName, Value... args) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void execute(EventLoop eventLoop, ExecuteListener listener, WritePolicy policy, Key key, String packageName, String functionName, Value... functionArgs) throws AerospikeException {
+	}
+
+	@Override
+	public ExecuteTask execute(WritePolicy policy, Statement statement, String packageName, String functionName, Value... functionArgs) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public ExecuteTask execute(WritePolicy policy, Statement statement, Operation... operations) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public RecordSet query(QueryPolicy policy, Statement statement) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void query(EventLoop eventLoop, RecordSequenceListener listener, QueryPolicy policy, Statement statement) throws AerospikeException {
+	}
+
+	@Override
+	public RecordSet queryNode(QueryPolicy policy, Statement statement, Node node) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public RecordSet queryPartitions(QueryPolicy policy, Statement statement, PartitionFilter partitionFilter) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void queryPartitions(EventLoop eventLoop, RecordSequenceListener listener, QueryPolicy policy, Statement statement, PartitionFilter partitionFilter) throws AerospikeException {
+	}
+
+	@Override
+	public ResultSet queryAggregate(QueryPolicy policy, Statement statement, String packageName, String functionName, Value... functionArgs) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public ResultSet queryAggregate(QueryPolicy policy, Statement statement) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public ResultSet queryAggregateNode(QueryPolicy policy, Statement statement, Node node) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public IndexTask createIndex(Policy policy, String namespace, String setName, String indexName, String binName, IndexType indexType) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public IndexTask createIndex(Policy policy, String namespace, String setName, String indexName, String binName, IndexType indexType, IndexCollectionType indexCollectionType) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void createIndex(EventLoop eventLoop, IndexListener listener, Policy policy, String namespace, String setName, String indexName, String binName, IndexType indexType, IndexCollectionType indexCollectionType) throws AerospikeException {
+	}
+
+	@Override
+	public IndexTask dropIndex(Policy policy, String namespace, String setName, String indexName) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public void dropIndex(EventLoop eventLoop, IndexListener listener, Policy policy, String namespace, String setName, String indexName) throws AerospikeException {
+	}
+
+	@Override
+	public void info(EventLoop eventLoop, InfoListener listener, InfoPolicy policy, Node node, String... commands) throws AerospikeException {
+	}
+
+	@Override
+	public void createUser(AdminPolicy policy, String user, String password, List<String> roles) throws AerospikeException {
+	}
+
+	@Override
+	public void dropUser(AdminPolicy policy, String user) throws AerospikeException {
+	}
+
+	@Override
+	public void changePassword(AdminPolicy policy, String user, String password) throws AerospikeException {
+	}
+
+	@Override
+	public void grantRoles(AdminPolicy policy, String user, List<String> roles) throws AerospikeException {
+	}
+
+	@Override
+	public void revokeRoles(AdminPolicy policy, String user, List<String> roles) throws AerospikeException {
+	}
+
+	@Override
+	public void createRole(AdminPolicy policy, String roleName, List<Privilege> privileges) throws AerospikeException {
+	}
+
+	@Override
+	public void dropRole(AdminPolicy policy, String roleName) throws AerospikeException {
+	}
+
+	@Override
+	public void grantPrivileges(AdminPolicy policy, String roleName, List<Privilege> privileges) throws AerospikeException {
+	}
+
+	@Override
+	public void revokePrivileges(AdminPolicy policy, String roleName, List<Privilege> privileges) throws AerospikeException {
+	}
+
+	@Override
+	public User queryUser(AdminPolicy policy, String user) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public List<User> queryUsers(AdminPolicy policy) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public Role queryRole(AdminPolicy policy, String roleName) throws AerospikeException {
+		return null;
+	}
+
+	@Override
+	public List<Role> queryRoles(AdminPolicy policy) throws AerospikeException {
+		return null;
+	}
+}
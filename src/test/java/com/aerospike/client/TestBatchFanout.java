@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestBatchFanout {
+
+	@Test
+	public void testClasses() {
+		assertEquals(0, BatchFanout.getWidthClass(1));
+		assertEquals(1, BatchFanout.getWidthClass(3));
+		assertEquals(2, BatchFanout.getWidthClass(4));
+		assertEquals(4, BatchFanout.getWidthClass(64));
+		assertEquals(0, BatchFanout.getShareClass(0.2));
+		assertEquals(1, BatchFanout.getShareClass(0.5));
+		assertEquals(3, BatchFanout.getShareClass(0.99));
+		assertEquals(4, BatchFanout.getShareClass(1.0));
+	}
+
+	@Test
+	public void testCorrelation() {
+		double n = 0, x = 0, xx = 0, y = 0, yy = 0, xy = 0;
+		for (int i = 1; i <= 10; i++) {
+			double latency = 2.0 * i + 1;
+			n++;
+			x += latency;
+			xx += latency * latency;
+			y += i;
+			yy += i * i;
+			xy += latency * i;
+		}
+		assertEquals(1.0, BatchFanout.correlation(n, x, xx, y, yy, xy), 1e-9);
+		assertEquals(-1.0, BatchFanout.correlation(n, x, xx, -y, yy, -xy), 1e-9);
+		assertTrue(Double.isNaN(BatchFanout.correlation(n, x, xx, 10 * n, 100 * n, 10 * x)));
+	}
+}
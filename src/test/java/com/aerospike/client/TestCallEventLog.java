@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import com.aerospike.client.DebugAerospikeClient.Overflow;
+
+public class TestCallEventLog {
+
+	private static String[] lines(ByteArrayOutputStream out) {
+		return out.toString().split("\n");
+	}
+
+	@Test
+	public void testWritesEveryEventFromManyThreads() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final CallEventLog log = new CallEventLog(new PrintStream(out), 1024, Overflow.BLOCK);
+		log.start();
+		final int threads = 4;
+		final int events = 10000;
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final Key key = new Key("test", "demo", "thread" + t);
+			workers[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < events; i++) {
+						log.logPut("Put", key, i, null);
+					}
+				}
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		log.close();
+		assertEquals(0, log.getDropped());
+		assertEquals(threads * events, lines(out).length);
+	}
+
+	@Test
+	public void testDropsWhenFull() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CallEventLog log = new CallEventLog(new PrintStream(out), 4, Overflow.DROP);
+		Key key = new Key("test", "demo", 1);
+		for (int i = 0; i < 10; i++) {
+			log.logGet("Get", key, 1500, i % 2 == 0, null);
+		}
+		log.logBatch(2000, 10, 7, null);
+		assertEquals(4, log.getCapacity());
+		assertEquals(7, log.getDropped());
+
+		log.start();
+		log.close();
+		String[] lines = lines(out);
+		assertEquals(5, lines.length);
+		assertTrue(lines[0], lines[0].startsWith("Get: [test:demo:1:"));
+		assertTrue(lines[0], lines[0].endsWith("took 1.500ms, record found"));
+		assertTrue(lines[1], lines[1].endsWith("record not found"));
+		assertEquals("*** 7 call events dropped", lines[4]);
+	}
+}
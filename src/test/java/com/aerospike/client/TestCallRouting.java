@@ -0,0 +1,195 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.aerospike.client.DebugAerospikeClient.BatchSize;
+import com.aerospike.client.DebugAerospikeClient.Granularity;
+import com.aerospike.client.DebugAerospikeClient.Options;
+import com.aerospike.client.async.EventLoop;
+import com.aerospike.client.cluster.PartitionNodeTable;
+import com.aerospike.client.cluster.PartitionTraffic;
+import com.aerospike.client.listener.WriteListener;
+import com.aerospike.client.policy.WritePolicy;
+
+/**
+ * Drives a DebugAerospikeClient over a client which does nothing, and checks which rows each call is recorded in
+ * through the intervals given to a metrics exporter.
+ */
+public class TestCallRouting {
+	private static final Key KEY = new Key("test", "demo", 1);
+
+	/**
+	 * Adds up the operations, successes and counts of every interval it is given, by name.
+	 */
+	private static class TotallingExporter implements MetricsExporter {
+		final Map<String, long[]> totals = new HashMap<String, long[]>();
+		final CountDownLatch closed = new CountDownLatch(1);
+
+		@Override
+		public synchronized void export(long timeMs, Map<String, IntervalHistogram> intervals) {
+			for (Map.Entry<String, IntervalHistogram> entry : intervals.entrySet()) {
+				long[] total = totals.get(entry.getKey());
+				if (total == null) {
+					total = new long[3];
+					totals.put(entry.getKey(), total);
+				}
+				total[0] += entry.getValue().getOperations();
+				total[1] += entry.getValue().getSuccess();
+				total[2] += entry.getValue().getCount();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed.countDown();
+		}
+
+		/**
+		 * Wait for the client's final report, and check the operations and successes of a row.
+		 */
+		synchronized void assertRow(String name, long operations, long success) {
+			long[] total = totals.get(name);
+			assertNotNull(name + " was not reported", total);
+			assertEquals(name + " operations", operations, total[0]);
+			assertEquals(name + " success", success, total[1]);
+		}
+
+		synchronized long getCount(String name) {
+			return totals.get(name)[2];
+		}
+	}
+
+	private static Options options(TotallingExporter exporter) {
+		Options options = new Options(Granularity.EVERY_SECOND);
+		options.setStream(new PrintStream(new ByteArrayOutputStream()));
+		options.setJmxEnabled(false);
+		options.addMetricsExporter(exporter);
+		return options;
+	}
+
+	private static void close(DebugAerospikeClient client, TotallingExporter exporter) throws InterruptedException {
+		client.close();
+		assertTrue("The client did not make its final report", exporter.closed.await(10, TimeUnit.SECONDS));
+	}
+
+	private static Key[] keys(int count) {
+		Key[] keys = new Key[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = new Key("test", "demo", i);
+		}
+		return keys;
+	}
+
+	@Test
+	public void testBatchSizeBoundaries() {
+		assertEquals(BatchSize.ONE, BatchSize.of(1));
+		assertEquals(BatchSize.UP_TO_10, BatchSize.of(2));
+		assertEquals(BatchSize.UP_TO_10, BatchSize.of(10));
+		assertEquals(BatchSize.UP_TO_100, BatchSize.of(11));
+		assertEquals(BatchSize.UP_TO_100, BatchSize.of(100));
+		assertEquals(BatchSize.UP_TO_1000, BatchSize.of(101));
+		assertEquals(BatchSize.UP_TO_1000, BatchSize.of(1000));
+		assertEquals(BatchSize.OVER_1000, BatchSize.of(1001));
+	}
+
+	@Test
+	public void testCallsAreRecordedByOperationAndBatchSize() throws InterruptedException {
+		TotallingExporter exporter = new TotallingExporter();
+		Options options = options(exporter);
+		options.setPerOperationLatency(true);
+		options.setPerBatchSizeLatency(true);
+		options.setPartitionTraffic(true);
+		DebugAerospikeClient client = new DebugAerospikeClient(new NoopAerospikeClient(), options);
+		for (int i = 0; i < 3; i++) {
+			client.get(null, KEY);
+		}
+		client.get(null, KEY, "value");
+		client.getHeader(null, KEY);
+		client.getHeader(null, KEY);
+		client.exists(null, KEY);
+		client.put(null, KEY, new Bin("value", 1));
+		client.put(null, KEY, new Bin("value", 2));
+		client.delete(null, KEY);
+		client.touch(null, KEY);
+		client.operate(null, KEY);
+		client.get(null, keys(1));
+		client.get(null, keys(10));
+		client.get(null, keys(11));
+		client.exists(null, keys(1001));
+		PartitionTraffic.Snapshot traffic = client.getPartitionTraffic("test").snapshot(false);
+		close(client, exporter);
+
+		// The no-op client finds every single record read, but no headers, existing keys or batch keys
+		exporter.assertRow("gets", 7, 4);
+		exporter.assertRow("gets/get", 3, 3);
+		exporter.assertRow("gets/getbin", 1, 1);
+		exporter.assertRow("gets/header", 2, 0);
+		exporter.assertRow("gets/exists", 1, 0);
+		exporter.assertRow("puts", 5, 5);
+		exporter.assertRow("puts/put", 2, 2);
+		exporter.assertRow("puts/delete", 1, 1);
+		exporter.assertRow("puts/touch", 1, 1);
+		exporter.assertRow("puts/operat", 1, 1);
+		exporter.assertRow("batch", 4, 0);
+		exporter.assertRow("batch/1", 1, 0);
+		exporter.assertRow("batch/2-10", 1, 0);
+		exporter.assertRow("batch/11-100", 1, 0);
+		exporter.assertRow("batch/>1k", 1, 0);
+		assertEquals(1001, exporter.getCount("batch/>1k"));
+
+		int partition = PartitionNodeTable.getPartitionId(KEY.digest);
+		assertEquals(7, traffic.getReads(partition));
+		assertEquals(5, traffic.getWrites(partition));
+	}
+
+	@Test
+	public void testAsyncCallRejectedByTheDelegateIsRecorded() throws InterruptedException {
+		TotallingExporter exporter = new TotallingExporter();
+		Options options = options(exporter);
+		options.setPerOperationLatency(true);
+		DebugAerospikeClient client = new DebugAerospikeClient(new NoopAerospikeClient() {
+			@Override
+			public void put(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key, Bin... bins) {
+				throw new AerospikeException.AsyncQueueFull();
+			}
+		}, options);
+		try {
+			client.put(null, null, null, KEY, new Bin("value", 1));
+			fail("The rejection was not rethrown");
+		}
+		catch (AerospikeException.AsyncQueueFull aqf) {
+		}
+		close(client, exporter);
+		exporter.assertRow("puts", 1, 0);
+		exporter.assertRow("puts/put", 1, 0);
+	}
+}
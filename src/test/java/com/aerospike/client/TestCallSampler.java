@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+public class TestCallSampler {
+
+	@Test
+	public void testReservoirKeepsSampleOfInterval() {
+		CallSampler sampler = new CallSampler(0, null, 10);
+		Key key = new Key("test", "demo", 1);
+		for (int i = 0; i < 10000; i++) {
+			sampler.samplePut("Put", key, i, null);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		sampler.report(new PrintStream(out), true);
+		String[] lines = out.toString().split("\n");
+		assertEquals(11, lines.length);
+		assertEquals("Sampled calls (10 of 10,000):", lines[0]);
+
+		// The reservoir starts again each interval
+		out.reset();
+		sampler.sampleBatch(1000, 5, 5, null);
+		sampler.report(new PrintStream(out), true);
+		assertEquals("Sampled calls (1 of 1):\n   Batch: [5/5 keys] took 1.000ms\n", out.toString());
+	}
+}
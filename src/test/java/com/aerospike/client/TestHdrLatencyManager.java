@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestHdrLatencyManager {
+
+	@Test
+	public void testBucketsCoverValues() {
+		for (int digits = 1; digits <= 3; digits++) {
+			LogLinearBuckets layout = new LogLinearBuckets(digits, HdrLatencyManager.DEFAULT_HIGHEST_TRACKABLE_US);
+			double precision = 1.0 / Math.pow(10, digits);
+			Random rand = new Random(digits);
+			for (int i = 0; i < 100000; i++) {
+				long value = (long)Math.pow(10, rand.nextDouble() * 8.7);
+				int index = layout.getIndex(value);
+				long lowest = layout.getLowestValue(index);
+				long highest = layout.getHighestValue(index);
+				assertTrue(value + " not in [" + lowest + "," + highest + "]", lowest <= value && value <= highest);
+				assertTrue(value + " has a bucket of width " + (highest - lowest + 1), highest - lowest <= Math.max(0, value * precision));
+			}
+			// Consecutive buckets must be contiguous
+			for (int index = 1; index < layout.getBucketCount(); index++) {
+				assertEquals(layout.getHighestValue(index - 1) + 1, layout.getLowestValue(index));
+			}
+			assertEquals(layout.getBucketCount() - 1, layout.getIndex(Long.MAX_VALUE));
+		}
+	}
+
+	@Test
+	public void testSubMillisecondPercentiles() {
+		HdrLatencyManager manager = new HdrLatencyManager(2);
+		for (int i = 1; i <= 1000; i++) {
+			manager.add(i, 0, 1);
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		manager.printResults(new PrintStream(baos), "gets");
+		// Values are reported as the top of their bucket, which is within 1% at 2 significant digits, capped at the maximum
+		String line = baos.toString();
+		assertTrue(line, line.startsWith("gets     0.5ms   0.0ms    1.0ms    501us    903us    991us    999us   1000us   1000"));
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import com.aerospike.client.command.Buffer;
+
+public class TestHotKeys {
+
+	@Test
+	public void testFindsHotKeysAmongManyColdOnes() {
+		HotKeys hotKeys = new HotKeys(2);
+		Key hot = new Key("test", "demo", "hot");
+		Key warm = new Key("test", "demo", "warm");
+		for (int i = 0; i < 100000; i++) {
+			hotKeys.add(new Key("test", "demo", i));
+			if (i % 5 == 0) {
+				hotKeys.add(hot);
+			}
+			if (i % 20 == 0) {
+				hotKeys.add(warm);
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		hotKeys.report(new PrintStream(out), true);
+		String[] lines = out.toString().split("\n");
+		assertEquals(3, lines.length);
+		assertEquals("Hottest keys of 125,000 calls:", lines[0]);
+		assertTrue(lines[1], lines[1].startsWith("    16.0% 20,000"));
+		assertTrue(lines[1], lines[1].endsWith(Buffer.bytesToHexString(hot.digest)));
+		assertTrue(lines[2], lines[2].endsWith(Buffer.bytesToHexString(warm.digest)));
+	}
+
+	@Test
+	public void testMergesTheCountsOfEveryThread() throws InterruptedException {
+		final HotKeys hotKeys = new HotKeys(1);
+		final Key hot = new Key("test", "demo", "hot");
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int base = t * 10000;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 10000; i++) {
+						hotKeys.add(hot);
+						hotKeys.add(new Key("test", "demo", base + i));
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		hotKeys.report(new PrintStream(out), true);
+		String[] lines = out.toString().split("\n");
+		assertEquals(2, lines.length);
+		assertEquals("Hottest keys of 80,000 calls:", lines[0]);
+		assertTrue(lines[1], lines[1].startsWith("    50.0% 40,000 "));
+
+		// Each interval starts counting again
+		out.reset();
+		hotKeys.report(new PrintStream(out), true);
+		assertEquals(0, out.size());
+	}
+}
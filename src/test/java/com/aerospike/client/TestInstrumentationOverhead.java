@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+public class TestInstrumentationOverhead {
+
+	private static String report(InstrumentationOverhead overhead) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PrintStream stream = new PrintStream(out);
+		overhead.report(stream, true);
+		stream.flush();
+		return out.toString();
+	}
+
+	@Test
+	public void testMeasuresEverySampledCall() {
+		InstrumentationOverhead overhead = new InstrumentationOverhead(1);
+		assertEquals("instrumentation: no calls measured\n", report(overhead));
+		for (int i = 0; i < 100; i++) {
+			long start = overhead.start();
+			assertTrue(start != 0);
+			overhead.end(start);
+		}
+		overhead.reported(1250000);
+		String line = report(overhead);
+		assertTrue(line, line.matches("instrumentation: \\d+ns/op \\(clock \\d+ns\\), (\\d+|n/a) B/op, reporter 1.3ms\n"));
+		// The counts start again each interval
+		assertEquals("instrumentation: no calls measured, reporter 1.3ms\n", report(overhead));
+	}
+
+	@Test
+	public void testClockCostIsTheFastestSeen() {
+		InstrumentationOverhead overhead = new InstrumentationOverhead(1);
+		report(overhead);
+		long first = overhead.getClockCostNs();
+		assertTrue(String.valueOf(first), first >= 0 && first < Long.MAX_VALUE);
+		for (int i = 0; i < 20; i++) {
+			report(overhead);
+			assertTrue(overhead.getClockCostNs() <= first);
+		}
+	}
+
+	@Test
+	public void testSamplesOneInN() {
+		InstrumentationOverhead overhead = new InstrumentationOverhead(100);
+		int sampled = 0;
+		for (int i = 0; i < 100000; i++) {
+			long start = overhead.start();
+			if (start != 0) {
+				sampled++;
+				overhead.end(start);
+			}
+		}
+		assertTrue(String.valueOf(sampled), sampled > 700 && sampled < 1300);
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestIntervalHistogram {
+	private static final double[] PERCENTILES = new double[] {50, 90, 99, 99.9, 100};
+
+	private static IntervalHistogram record(HdrLatencyManager manager, Random rand, int operations) {
+		for (int i = 0; i < operations; i++) {
+			manager.add((long)Math.pow(10, rand.nextDouble() * 6), 0, 1);
+		}
+		manager.printResults(new PrintStream(new ByteArrayOutputStream()), "gets");
+		return manager.getLastInterval();
+	}
+
+	@Test
+	public void testEncodeRoundTrip() {
+		IntervalHistogram histogram = record(new HdrLatencyManager(2), new Random(1), 10000);
+		byte[] encoded = histogram.encode();
+		// Sparse varints should be far smaller than a long per bucket
+		assertTrue("Encoded size " + encoded.length, encoded.length < histogram.getBucketCount() * 8 / 4);
+
+		IntervalHistogram decoded = IntervalHistogram.decode(ByteBuffer.wrap(encoded));
+		assertEquals(histogram.getOperations(), decoded.getOperations());
+		assertEquals(histogram.getTotalLatencyUs(), decoded.getTotalLatencyUs());
+		assertEquals(histogram.getMinUs(), decoded.getMinUs());
+		assertEquals(histogram.getMaxUs(), decoded.getMaxUs());
+		assertEquals(histogram.getSuccess(), decoded.getSuccess());
+		assertEquals(histogram.getStartTimeMs(), decoded.getStartTimeMs());
+		assertEquals(histogram.getEndTimeMs(), decoded.getEndTimeMs());
+		for (int i = 0; i < histogram.getBucketCount(); i++) {
+			assertEquals(histogram.getCountAtBucket(i), decoded.getCountAtBucket(i));
+		}
+	}
+
+	@Test
+	public void testMergeGivesSamePercentilesAsOneHistogram() {
+		HdrLatencyManager all = new HdrLatencyManager(2);
+		Random allRand = new Random(2);
+		Random rand = new Random(2);
+		IntervalHistogram fleet = null;
+		for (int host = 0; host < 40; host++) {
+			byte[] encoded = record(new HdrLatencyManager(2), rand, 1000 + host * 10).encode();
+			if (fleet == null) {
+				fleet = IntervalHistogram.decode(ByteBuffer.wrap(encoded));
+			}
+			else {
+				fleet.addEncoded(ByteBuffer.wrap(encoded));
+			}
+		}
+		for (int host = 0; host < 40; host++) {
+			for (int i = 0; i < 1000 + host * 10; i++) {
+				all.add((long)Math.pow(10, allRand.nextDouble() * 6), 0, 1);
+			}
+		}
+		IntervalHistogram expected = record(all, allRand, 0);
+
+		long[] fleetValues = new long[PERCENTILES.length];
+		long[] expectedValues = new long[PERCENTILES.length];
+		fleet.getValuesAtPercentiles(PERCENTILES, fleetValues);
+		expected.getValuesAtPercentiles(PERCENTILES, expectedValues);
+		for (int i = 0; i < PERCENTILES.length; i++) {
+			assertEquals("p" + PERCENTILES[i], expectedValues[i], fleetValues[i]);
+		}
+		assertEquals(expected.getOperations(), fleet.getOperations());
+		assertEquals(expected.getMinUs(), fleet.getMinUs());
+		assertEquals(expected.getMaxUs(), fleet.getMaxUs());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMergeRejectsDifferentLayout() {
+		IntervalHistogram histogram = record(new HdrLatencyManager(2), new Random(3), 100);
+		new IntervalHistogram(3, HdrLatencyManager.DEFAULT_HIGHEST_TRACKABLE_US).addEncoded(ByteBuffer.wrap(histogram.encode()));
+	}
+
+	@Test
+	public void testMalformedRecordIsNotPartlyMerged() {
+		IntervalHistogram histogram = record(new HdrLatencyManager(2), new Random(4), 1000);
+		byte[] encoded = histogram.encode();
+		IntervalHistogram merged = IntervalHistogram.decode(ByteBuffer.wrap(encoded));
+		for (int length = 1; length < encoded.length; length++) {
+			ByteBuffer truncated = ByteBuffer.wrap(encoded, 0, length);
+			try {
+				merged.addEncoded(truncated);
+				fail("Merged a record truncated to " + length + " bytes");
+			}
+			catch (IllegalArgumentException iae) {
+				assertEquals(0, truncated.position());
+			}
+		}
+		// A valid count followed by a run of empty buckets reaching past the layout
+		int header = encoded.length - payloadLength(encoded) - 5;
+		ByteBuffer overrun = ByteBuffer.allocate(header + 32);
+		overrun.put(encoded, 0, header);
+		int lengthPosition = overrun.position();
+		overrun.position(lengthPosition + 5);
+		putVarLong(overrun, 2);
+		putVarLong(overrun, 2 * histogram.getBucketCount() - 1);
+		putVarLong(overrun, 2);
+		int length = overrun.position() - lengthPosition - 5;
+		overrun.put(lengthPosition, (byte)(length | 0x80));
+		overrun.put(lengthPosition + 1, (byte)0x80);
+		overrun.put(lengthPosition + 2, (byte)0x80);
+		overrun.put(lengthPosition + 3, (byte)0x80);
+		overrun.put(lengthPosition + 4, (byte)0);
+		overrun.flip();
+		try {
+			merged.addEncoded(overrun);
+			fail("Merged a record with a run past the last bucket");
+		}
+		catch (IllegalArgumentException iae) {
+		}
+		assertEquals(histogram.getOperations(), merged.getOperations());
+		for (int i = 0; i < histogram.getBucketCount(); i++) {
+			assertEquals(histogram.getCountAtBucket(i), merged.getCountAtBucket(i));
+		}
+	}
+
+	private static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte)value);
+	}
+
+	/**
+	 * The length of the bucket counts, from the fixed width varint written just before them.
+	 */
+	private static int payloadLength(byte[] encoded) {
+		for (int position = encoded.length - 5; position >= 0; position--) {
+			int length = 0;
+			for (int i = 0; i < 5; i++) {
+				length |= (encoded[position + i] & 0x7F) << (7 * i);
+			}
+			if (position + 5 + length == encoded.length && (encoded[position + 3] & 0x80) != 0 && (encoded[position + 4] & 0x80) == 0) {
+				return length;
+			}
+		}
+		throw new IllegalStateException("No payload length found");
+	}
+}
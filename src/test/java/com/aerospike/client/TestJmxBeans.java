@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class TestJmxBeans {
+
+	@Test
+	public void testReadingDoesNotReset() throws Exception {
+		LatencyManager gets = new ExponentialLatencyManager(7, 1, false);
+		for (int i = 1; i <= 100; i++) {
+			gets.add(i * 10, 0, 1);
+		}
+		gets.endInterval();
+		JmxBeans jmx = new JmxBeans("test-jmx");
+		jmx.registerLatency("gets", gets);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = jmx.getLatencyObjectName("gets");
+		try {
+			for (int i = 0; i < 2; i++) {
+				assertEquals(100L, server.getAttribute(name, "IntervalOperations"));
+				assertEquals(100L, server.getAttribute(name, "Success"));
+				assertEquals(1000L, server.getAttribute(name, "IntervalMaxUs"));
+				assertEquals(1000L, server.getAttribute(name, "IntervalP999Us"));
+			}
+			// A second interval adds to the totals
+			gets.add(5, 0, 1);
+			gets.endInterval();
+			assertEquals(1L, server.getAttribute(name, "IntervalOperations"));
+			assertEquals(101L, server.getAttribute(name, "Operations"));
+		}
+		finally {
+			jmx.unregister();
+		}
+		assertFalse(server.isRegistered(name));
+	}
+}
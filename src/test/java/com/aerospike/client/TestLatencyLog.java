@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class TestLatencyLog {
+
+	private static File createDirectory() throws IOException {
+		File directory = File.createTempFile("latlog", "");
+		directory.delete();
+		directory.mkdirs();
+		directory.deleteOnExit();
+		return directory;
+	}
+
+	private static IntervalHistogram interval(long endTimeMs, long latencyUs, int operations) {
+		LogLinearBuckets layout = new LogLinearBuckets(2, HdrLatencyManager.DEFAULT_HIGHEST_TRACKABLE_US);
+		long[] raw = new long[StripedLatencyRecorder.HEADER_SLOTS + layout.getBucketCount()];
+		for (int i = 0; i < operations; i++) {
+			raw[StripedLatencyRecorder.HEADER_SLOTS + layout.getIndex(latencyUs + i)]++;
+			raw[StripedLatencyRecorder.TOTAL_LATENCY] += latencyUs + i;
+		}
+		raw[StripedLatencyRecorder.OPERATIONS] = operations;
+		raw[StripedLatencyRecorder.SUCCESS] = operations;
+		raw[StripedLatencyRecorder.MIN] = latencyUs;
+		raw[StripedLatencyRecorder.MAX] = latencyUs + operations - 1;
+		IntervalHistogram histogram = new IntervalHistogram(layout);
+		histogram.load(raw, StripedLatencyRecorder.HEADER_SLOTS, endTimeMs - 1000, endTimeMs);
+		return histogram;
+	}
+
+	@Test
+	public void testAggregateTimeRange() throws IOException {
+		File directory = createDirectory();
+		LatencyLogWriter writer = new LatencyLogWriter(directory, "test");
+		for (int second = 1; second <= 10; second++) {
+			// Latency jumps during seconds 5 and 6
+			long latency = second == 5 || second == 6 ? 50000 : 500;
+			writer.write("gets", interval(second * 1000, latency, 100));
+			writer.write("puts", interval(second * 1000, 1000, 10));
+		}
+		writer.close();
+
+		LatencyLogReader reader = new LatencyLogReader(directory, "test");
+		IntervalHistogram incident = reader.aggregate("gets", 5000, 6000);
+		assertEquals(200, incident.getOperations());
+		assertEquals(50000, incident.getMinUs());
+		assertEquals(4000, incident.getStartTimeMs());
+		assertEquals(6000, incident.getEndTimeMs());
+
+		IntervalHistogram all = reader.aggregate("gets", 0, Long.MAX_VALUE);
+		assertEquals(1000, all.getOperations());
+		assertTrue(all.getValueAtPercentile(50) < 1000);
+		assertTrue(all.getValueAtPercentile(90) >= 50000);
+
+		assertEquals(100, reader.aggregate("puts", 0, Long.MAX_VALUE).getOperations());
+		assertNull(reader.aggregate("batch", 0, Long.MAX_VALUE));
+		assertNull(reader.aggregate("gets", 20000, 30000));
+	}
+
+	@Test
+	public void testFilesRoll() throws IOException {
+		File directory = createDirectory();
+		LatencyLogWriter writer = new LatencyLogWriter(directory, "roll", 64 * 1024, 3);
+		int intervals = 10000;
+		for (int i = 1; i <= intervals; i++) {
+			writer.write("gets", interval(i * 1000, 100 * (i % 50 + 1), 20));
+		}
+		writer.close();
+		assertEquals(3, LatencyLogWriter.listFiles(directory, "roll").length);
+
+		// The oldest intervals have been rolled away, the newest are all there.
+		IntervalHistogram kept = new LatencyLogReader(directory, "roll").aggregate("gets", 0, Long.MAX_VALUE);
+		assertTrue(kept.getOperations() < intervals * 20L);
+		assertEquals(intervals * 1000L, kept.getEndTimeMs());
+		assertEquals(20 * 10, new LatencyLogReader(directory, "roll").aggregate("gets", (intervals - 9) * 1000L, intervals * 1000L).getOperations());
+
+		// A new writer carries on from the last file.
+		new LatencyLogWriter(directory, "roll", 64 * 1024, 3).close();
+		for (File file : LatencyLogWriter.listFiles(directory, "roll")) {
+			file.deleteOnExit();
+		}
+	}
+}
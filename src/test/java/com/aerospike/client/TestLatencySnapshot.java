@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TestLatencySnapshot {
+
+	private static void record(LatencyManager latencyManager, long fromUs, long toUs) {
+		for (long latency = fromUs; latency <= toUs; latency++) {
+			latencyManager.add(latency, 0, 1);
+		}
+		latencyManager.endInterval();
+	}
+
+	@Test
+	public void testCursorsAreIndependent() {
+		LatencyManager latencyManager = new HdrLatencyManager(2);
+		SnapshotCursor first = latencyManager.newCursor();
+		record(latencyManager, 1, 100);
+		SnapshotCursor second = latencyManager.newCursor();
+		record(latencyManager, 1001, 1100);
+
+		LatencySnapshot firstSnapshot = first.next();
+		assertEquals(200, firstSnapshot.getOperations());
+		assertEquals(1, firstSnapshot.getMinUs());
+		assertEquals(1100, firstSnapshot.getMaxUs());
+
+		LatencySnapshot secondSnapshot = second.next();
+		assertEquals(100, secondSnapshot.getOperations());
+		assertEquals(1001, secondSnapshot.getMinUs());
+		assertEquals(1100, secondSnapshot.getValueAtPercentile(100));
+
+		// Each cursor starts again from its own last read
+		assertEquals(0, first.next().getOperations());
+		record(latencyManager, 5, 5);
+		assertEquals(1, first.next().getOperations());
+		assertEquals(1, second.next().getOperations());
+		second.close();
+		record(latencyManager, 5, 5);
+		assertEquals(0, second.next().getOperations());
+
+		// Neither the cursors nor the snapshots took anything from the manager
+		assertEquals(202, latencyManager.getSnapshot().getOperations());
+		assertEquals(1, latencyManager.getLastInterval().getOperations());
+	}
+
+	@Test
+	public void testSnapshotIsImmutable() {
+		LatencyManager latencyManager = new HdrLatencyManager(2);
+		record(latencyManager, 1, 100);
+		LatencySnapshot snapshot = latencyManager.getSnapshot();
+		record(latencyManager, 1, 100);
+		assertEquals(100, snapshot.getOperations());
+		long total = 0;
+		for (int i = 0; i < snapshot.getBucketCount(); i++) {
+			total += snapshot.getCountAtBucket(i);
+		}
+		assertEquals(100, total);
+		snapshot.toHistogram().reset();
+		assertEquals(100, snapshot.getOperations());
+	}
+
+	private static void assertBuckets(double[] expected, double[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], actual[i], 0);
+		}
+	}
+
+	@Test
+	public void testBucketArrayDoesNotDrain() {
+		ExponentialLatencyManager latencyManager = new ExponentialLatencyManager(4, 1, true);
+		latencyManager.add(1, 0, 1);
+		latencyManager.add(3, 0, 1);
+		latencyManager.add(100, 0, 1);
+		latencyManager.endInterval();
+		double[] expected = {1, 2, 2, 1};
+		assertBuckets(expected, latencyManager.getBucketArray());
+		assertBuckets(expected, latencyManager.getBucketArray());
+		assertEquals(2, latencyManager.getBucketValue(1), 0);
+		assertEquals(3, latencyManager.getLastInterval().getOperations());
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TestListenerPool {
+
+	private static class CountingPool extends ListenerPool<Object> {
+		int created;
+
+		CountingPool() {
+			super(2);
+		}
+
+		@Override
+		protected Object create() {
+			created++;
+			return new Object();
+		}
+	}
+
+	@Test
+	public void testReleasedObjectsAreReused() {
+		CountingPool pool = new CountingPool();
+		int stripe = pool.stripe();
+		Object first = pool.acquire(stripe);
+		Object second = pool.acquire(stripe);
+		assertNotSame(first, second);
+		assertEquals(2, pool.created);
+
+		pool.release(first, stripe);
+		assertSame(first, pool.acquire(stripe));
+		pool.release(first, stripe);
+		pool.release(second, stripe);
+		Set<Object> reused = new HashSet<Object>();
+		reused.add(pool.acquire(stripe));
+		reused.add(pool.acquire(stripe));
+		assertEquals(2, reused.size());
+		assertEquals(2, pool.created);
+	}
+
+	@Test
+	public void testStripesAreSeparateAndBounded() {
+		CountingPool pool = new CountingPool();
+		Object object = pool.acquire(0);
+		pool.release(object, 0);
+		// Another stripe does not see it
+		assertNotSame(object, pool.acquire(1));
+		assertEquals(2, pool.created);
+
+		// A full stripe drops what is released, and an empty one creates
+		Object[] objects = new Object[ListenerPool.STRIPE_WIDTH + 1];
+		for (int i = 0; i < objects.length; i++) {
+			objects[i] = new Object();
+			pool.release(objects[i], 1);
+		}
+		for (int i = 0; i < ListenerPool.STRIPE_WIDTH; i++) {
+			pool.acquire(1);
+		}
+		int created = pool.created;
+		pool.acquire(1);
+		assertEquals(created + 1, pool.created);
+	}
+}
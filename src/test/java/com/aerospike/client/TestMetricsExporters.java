@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TestMetricsExporters {
+
+	private static Map<String, IntervalHistogram> intervals() {
+		LatencyManager gets = new ExponentialLatencyManager(7, 1, false);
+		for (int i = 1; i <= 100; i++) {
+			gets.add(i * 10, 0, 1);
+		}
+		gets.endInterval();
+		Map<String, IntervalHistogram> intervals = new LinkedHashMap<String, IntervalHistogram>();
+		intervals.put("gets", gets.getLastInterval());
+		return intervals;
+	}
+
+	@Test
+	public void testJsonLines() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JsonLinesExporter exporter = new JsonLinesExporter(out, 50, 99.9);
+		exporter.export(1000, intervals());
+		exporter.export(2000, intervals());
+		exporter.close();
+		String[] lines = out.toString("UTF-8").split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0], lines[0].startsWith("{\"time\":1000,\"name\":\"gets\","));
+		assertTrue(lines[0], lines[0].contains("\"ops\":100,"));
+		assertTrue(lines[0], lines[0].contains("\"success\":100,"));
+		assertTrue(lines[0], lines[0].contains("\"minUs\":10,\"maxUs\":1000,"));
+		assertTrue(lines[0], lines[0].endsWith("\"p99.9\":1000}"));
+	}
+
+	@Test
+	public void testCsv() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CsvExporter exporter = new CsvExporter(out);
+		exporter.export(1000, intervals());
+		exporter.close();
+		String[] lines = out.toString("UTF-8").split("\n");
+		assertEquals(2, lines.length);
+		assertEquals("time,name,start,end,ops,ops_per_sec,success,records,mean_us,min_us,max_us,p50_us,p90_us,p99_us,p99.9_us", lines[0]);
+		assertTrue(lines[1], lines[1].startsWith("1000,\"gets\","));
+		assertEquals(15, lines[1].split(",").length);
+	}
+
+	@Test
+	public void testPrometheusScrape() throws Exception {
+		PrometheusExporter exporter = new PrometheusExporter(new InetSocketAddress("127.0.0.1", 0), 50, 99.9);
+		try {
+			exporter.export(1000, intervals());
+			exporter.export(2000, intervals());
+			HttpURLConnection connection = (HttpURLConnection)new URL("http://127.0.0.1:" + exporter.getPort() + "/metrics").openConnection();
+			assertEquals(200, connection.getResponseCode());
+			InputStream in = connection.getInputStream();
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				body.write(buffer, 0, read);
+			}
+			in.close();
+			String page = new String(body.toByteArray(), StandardCharsets.UTF_8);
+			assertTrue(page, page.contains("debug_aerospike_client_latency_seconds{series=\"gets\",quantile=\"0.999\"} 0.001\n"));
+			assertTrue(page, page.contains("debug_aerospike_client_latency_seconds_count{series=\"gets\"} 200\n"));
+			assertTrue(page, page.contains("debug_aerospike_client_success_total{series=\"gets\"} 200\n"));
+		}
+		finally {
+			exporter.close();
+		}
+	}
+}
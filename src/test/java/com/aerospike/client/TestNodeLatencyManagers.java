@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.aerospike.client.cluster.PartitionNodeTable;
+
+public class TestNodeLatencyManagers {
+
+	@Test
+	public void testCallsAreRecordedAgainstTheirNode() {
+		NodeLatencyManagers managers = new NodeLatencyManagers(new ExponentialLatencyManager(4, 1, true));
+		// Calls to nodes which have not been seen yet are dropped
+		managers.add(0, 10, 0, 1);
+		assertNull(managers.get(0));
+
+		managers.ensureCapacity(2);
+		managers.add(0, 10, 0, 1);
+		managers.add(1, 20, 0, 1);
+		managers.add(1, 30, 0, 0);
+		managers.add(PartitionNodeTable.UNKNOWN_NODE, 40, 0, 1);
+		managers.add(2, 50, 0, 1);
+		assertNotSame(managers.get(0), managers.get(1));
+		assertEquals(1, ((AbstractLatencyManager)managers.get(0)).getOperations());
+		assertEquals(2, ((AbstractLatencyManager)managers.get(1)).getOperations());
+		assertNull(managers.get(2));
+
+		// Growing keeps the managers of the nodes already seen
+		LatencyManager first = managers.get(0);
+		managers.ensureCapacity(3);
+		assertEquals(first, managers.get(0));
+		assertNotNull(managers.get(2));
+		assertEquals(0, ((AbstractLatencyManager)managers.get(2)).getOperations());
+	}
+
+	@Test
+	public void testKeysOfAnUnknownClusterHaveNoNode() {
+		PartitionNodeTable table = new PartitionNodeTable(new NoopAerospikeClient());
+		assertEquals(0, table.getNodeCount());
+		assertEquals(PartitionNodeTable.UNKNOWN_NODE, table.getNodeIndex(new Key("test", "demo", 1)));
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.aerospike.client.DebugAerospikeClient.Granularity;
+
+public class TestReportScheduling {
+	// A whole minute of the wall clock
+	private static final long MINUTE = 60000L * 27000000;
+	private static final int GETS = 0;
+	private static final int PUTS = 1;
+
+	@Test
+	public void testTicksFallOnWallClockBoundaries() {
+		assertEquals(MINUTE + 1000, DebugAerospikeClient.nextBoundary(MINUTE + 300, 1000));
+		assertEquals(MINUTE + 2000, DebugAerospikeClient.nextBoundary(MINUTE + 1000, 1000));
+		assertEquals(MINUTE + 10000, DebugAerospikeClient.nextBoundary(MINUTE + 9999, 10000));
+		assertEquals(MINUTE + 60000, DebugAerospikeClient.nextBoundary(MINUTE, 60000));
+	}
+
+	@Test
+	public void testEachCategoryIsReportedAtItsOwnCadence() {
+		long[] nextDueMs = {MINUTE + 1000, MINUTE + 1000};
+		int minuteReports = 0;
+		int secondReports = 0;
+		for (long now = MINUTE + 1000; now <= MINUTE + 120000; now += 1000) {
+			boolean gets = DebugAerospikeClient.isDue(Granularity.EVERY_MINUTE, nextDueMs, GETS, now);
+			boolean puts = DebugAerospikeClient.isDue(Granularity.EVERY_SECOND, nextDueMs, PUTS, now);
+			assertTrue(puts);
+			secondReports++;
+			if (gets) {
+				minuteReports++;
+				// The first tick, then each whole minute
+				assertTrue(String.valueOf(now - MINUTE), now == MINUTE + 1000 || (now - MINUTE) % 60000 == 0);
+			}
+		}
+		assertEquals(3, minuteReports);
+		assertEquals(120, secondReports);
+	}
+
+	@Test
+	public void testDoesNotCatchUpAfterAStall() {
+		long[] nextDueMs = {MINUTE + 60000, MINUTE + 1000};
+		assertTrue(DebugAerospikeClient.isDue(Granularity.EVERY_MINUTE, nextDueMs, GETS, MINUTE + 60000));
+		// Held up for over two minutes: one report of each category, not one for each tick missed
+		long late = MINUTE + 200500;
+		assertTrue(DebugAerospikeClient.isDue(Granularity.EVERY_MINUTE, nextDueMs, GETS, late));
+		assertTrue(DebugAerospikeClient.isDue(Granularity.EVERY_SECOND, nextDueMs, PUTS, late));
+		long nextTick = DebugAerospikeClient.nextBoundary(late, 1000);
+		assertEquals(MINUTE + 201000, nextTick);
+		assertFalse(DebugAerospikeClient.isDue(Granularity.EVERY_MINUTE, nextDueMs, GETS, nextTick));
+		assertTrue(DebugAerospikeClient.isDue(Granularity.EVERY_SECOND, nextDueMs, PUTS, nextTick));
+		assertEquals(MINUTE + 240000, nextDueMs[GETS]);
+		assertTrue(DebugAerospikeClient.isDue(Granularity.EVERY_MINUTE, nextDueMs, GETS, MINUTE + 240000));
+	}
+
+	@Test
+	public void testNeverIsNeverDue() {
+		long[] nextDueMs = {0};
+		assertFalse(DebugAerospikeClient.isDue(Granularity.NEVER, nextDueMs, GETS, MINUTE));
+		assertFalse(DebugAerospikeClient.isDue(Granularity.EVERY_CALL, nextDueMs, GETS, MINUTE));
+	}
+}
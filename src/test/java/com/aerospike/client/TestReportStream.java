@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestReportStream {
+
+	private static String render(ReportStream report) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		report.writeTo(out);
+		return out.toString();
+	}
+
+	@Test
+	public void testSameAsPrintStream() throws Exception {
+		long time = 1591018800123L;
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		PrintStream stream = new PrintStream(expected);
+		stream.printf("%tF %<tT\n", time);
+		stream.print("gets -1234567890123 42 \u00b5s 99.9%");
+		stream.flush();
+
+		ReportStream report = new ReportStream();
+		report.printDateTime(time);
+		report.print('\n');
+		report.print("gets ");
+		report.print(-1234567890123L);
+		report.print(' ');
+		report.print(42);
+		report.print(" \u00b5s");
+		report.write("[ 99.9%]".toCharArray(), 1, 6);
+		assertEquals(expected.toString(), render(report));
+		// Writing it out resets it
+		assertEquals("", render(report));
+	}
+
+	@Test
+	public void testLatencyLinesAreUnchanged() throws Exception {
+		Random random = new Random(7);
+		AbstractLatencyManager[] latencyManagers = {
+				new ExponentialLatencyManager(7, 1, false).setPercentiles(50, 99.9, AbstractLatencyManager.MAX_PERCENTILE).setShowCumulativePercentiles(true),
+				new LinearLatencyManager(6, 1, true, true, 2),
+				new HdrLatencyManager(2)
+		};
+		ReportStream report = new ReportStream();
+		for (AbstractLatencyManager latencyManager : latencyManagers) {
+			for (int interval = 0; interval < 20; interval++) {
+				for (int i = random.nextInt(1000); i >= 0; i--) {
+					latencyManager.add((long)Math.exp(random.nextDouble() * 16), 1, random.nextInt(2));
+				}
+				latencyManager.endInterval();
+				ByteArrayOutputStream expected = new ByteArrayOutputStream();
+				PrintStream stream = new PrintStream(expected);
+				latencyManager.printInterval(stream, "gets");
+				stream.flush();
+				latencyManager.printInterval(report, "gets");
+				assertEquals(expected.toString(), render(report));
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+public class TestSlowCallDetector {
+
+	@Test
+	public void testCapturesAreRateLimitedAndDeduplicated() {
+		SlowCallDetector detector = new SlowCallDetector(30000, 2, 4);
+		for (int i = 0; i < 10; i++) {
+			detector.check("Put", 20000);
+			detector.check("Put", 40000 + i);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		detector.report(new PrintStream(out), true);
+		String[] lines = out.toString().split("\n");
+		assertEquals("Slow calls over 30.000ms: 10, 2 captured, top call sites:", lines[0]);
+		assertEquals(2, lines.length);
+		assertTrue(lines[1], lines[1].startsWith("   2 x Put, max 40.001ms at "));
+
+		out.reset();
+		detector.report(new PrintStream(out), true);
+		assertEquals("", out.toString());
+	}
+
+	@Test
+	public void testKeepsApplicationFrames() {
+		SlowCallDetector detector = new SlowCallDetector(1000, 10, 2);
+		StackTraceElement[] stack = {
+				new StackTraceElement("com.aerospike.client.SlowCallDetector", "check", "SlowCallDetector.java", 1),
+				new StackTraceElement("com.aerospike.client.DebugAerospikeClient", "put", "DebugAerospikeClient.java", 2),
+				new StackTraceElement("com.example.Orders", "save", "Orders.java", 3),
+				new StackTraceElement("com.example.Api", "post", "Api.java", 4),
+				new StackTraceElement("java.lang.Thread", "run", "Thread.java", 5)
+		};
+		StackTraceElement[] frames = detector.callerFrames(stack);
+		assertEquals(2, frames.length);
+		assertEquals("com.example.Orders", frames[0].getClassName());
+		assertEquals("com.example.Api", frames[1].getClassName());
+	}
+
+	@Test
+	public void testKeepsApplicationFramesInTheClientPackage() {
+		SlowCallDetector detector = new SlowCallDetector(1000, 10, 3);
+		StackTraceElement[] stack = {
+				new StackTraceElement("com.aerospike.client.SlowCallDetector", "check", "SlowCallDetector.java", 1),
+				new StackTraceElement("com.aerospike.client.DebugAerospikeClient", "endPutTime", "DebugAerospikeClient.java", 2),
+				new StackTraceElement("com.aerospike.client.DebugAerospikeClient$TimedListener", "onSuccess", "DebugAerospikeClient.java", 3),
+				new StackTraceElement("com.aerospike.client.examples.PutGet", "runExample", "PutGet.java", 4),
+				new StackTraceElement("com.aerospike.client.DebugAerospikeClientTool", "main", "DebugAerospikeClientTool.java", 5)
+		};
+		StackTraceElement[] frames = detector.callerFrames(stack);
+		assertEquals(2, frames.length);
+		assertEquals("com.aerospike.client.examples.PutGet", frames[0].getClassName());
+		assertEquals("com.aerospike.client.DebugAerospikeClientTool", frames[1].getClassName());
+	}
+}
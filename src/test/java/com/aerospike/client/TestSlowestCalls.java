@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+public class TestSlowestCalls {
+
+	@Test
+	public void testKeepsSlowestInOrder() {
+		SlowestCalls slowest = new SlowestCalls(5, null);
+		Key key = new Key("test", "demo", 1);
+		// Latencies 0 to 999 in a scrambled order
+		for (int i = 0; i < 1000; i++) {
+			slowest.add("Get", key, (i * 7919L) % 1000, null);
+		}
+		slowest.addBatch(10, 998500, new AerospikeException(ResultCode.TIMEOUT));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		slowest.report(new PrintStream(out), true);
+		String[] lines = out.toString().split("\n");
+		assertEquals(6, lines.length);
+		assertEquals("Slowest 5 calls:", lines[0]);
+		assertEquals("   998.500ms Batch [10 keys] result " + ResultCode.TIMEOUT, lines[1]);
+		assertTrue(lines[2], lines[2].startsWith("   0.999ms Get test:demo:"));
+		assertTrue(lines[5], lines[5].startsWith("   0.996ms Get"));
+		assertTrue(lines[5], lines[5].endsWith("node unknown result 0"));
+
+		// The heap was full, so the next interval only keeps calls slower than its fastest call
+		out.reset();
+		slowest.add("Put", key, 1, null);
+		slowest.add("Put", key, 997, null);
+		slowest.report(new PrintStream(out), true);
+		assertEquals("Slowest 1 calls:", out.toString().split("\n")[0]);
+		assertTrue(out.toString(), out.toString().contains("   0.997ms Put"));
+
+		// That heap was not full, so this interval keeps every call
+		out.reset();
+		slowest.add("Put", key, 1, null);
+		slowest.report(new PrintStream(out), true);
+		assertTrue(out.toString(), out.toString().startsWith("Slowest 1 calls:\n   0.001ms Put"));
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class TestStreamMonitor {
+
+	@Test
+	public void testCountsRecordsFromConcurrentCallbacks() throws Exception {
+		final AtomicLong delivered = new AtomicLong();
+		final StreamMonitor monitor = new StreamMonitor("scanAll test.demo", "test", new ScanCallback() {
+			@Override
+			public void scanCallback(Key key, Record record) throws AerospikeException {
+				delivered.incrementAndGet();
+			}
+		}, null);
+		Map<String, Object> bins = new HashMap<String, Object>();
+		bins.put("name", "0123456789");
+		final Record record = new Record(bins, 1, 0);
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			final int thread = t;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 10000; i++) {
+						monitor.scanCallback(new Key("test", "demo", thread * 10000 + i), record);
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		monitor.complete(null);
+		assertEquals(80000, delivered.get());
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		monitor.print(new PrintStream(baos), null);
+		String line = baos.toString();
+		assertTrue(line, line.startsWith("scanAll test.demo: 80,000 records, "));
+		assertTrue(line, line.contains(" 4096 partitions, first record "));
+		assertTrue(line, line.contains("completed in "));
+		// Every record is the same size, so the sampled estimate is exact
+		long expectedBytes = 80000 * StreamMonitor.estimateSize(record);
+		assertTrue(line, line.contains(String.format("~%.1fMB", expectedBytes / (1024.0 * 1024))));
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2020 Aerospike, Inc.
+ *
+ * Portions may be licensed to Aerospike, Inc. under one or more contributor
+ * license agreements WHICH ARE COMPATIBLE WITH THE APACHE LICENSE, VERSION 2.0.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.aerospike.client;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestStripedLatencyRecorder {
+	private static final int NUM_THREADS = 16;
+	private static final int OPS_PER_THREAD = 100000;
+	private static final int BUCKETS = 4;
+
+	@Test
+	public void testConcurrentRecordingIsExact() throws Exception {
+		final StripedLatencyRecorder recorder = new StripedLatencyRecorder(BUCKETS, 0, 4);
+		ExecutorService executors = Executors.newFixedThreadPool(NUM_THREADS);
+		for (int i = 0; i < NUM_THREADS; i++) {
+			final int thread = i;
+			executors.execute(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < OPS_PER_THREAD; j++) {
+						// Latencies run from 10 to 10 + NUM_THREADS * OPS_PER_THREAD - 1
+						long latency = 10 + thread * OPS_PER_THREAD + j;
+						recorder.record(j % BUCKETS, -1, latency, 2, 1);
+					}
+				}
+			});
+		}
+		executors.shutdown();
+		executors.awaitTermination(60, TimeUnit.SECONDS);
+
+		long total = (long)NUM_THREADS * OPS_PER_THREAD;
+		long[] results = new long[recorder.getWidth()];
+		recorder.drain(results);
+		assertEquals(total, results[StripedLatencyRecorder.OPERATIONS]);
+		assertEquals(2 * total, results[StripedLatencyRecorder.COUNT]);
+		assertEquals(total, results[StripedLatencyRecorder.SUCCESS]);
+		assertEquals(10, results[StripedLatencyRecorder.MIN]);
+		assertEquals(10 + total - 1, results[StripedLatencyRecorder.MAX]);
+		assertEquals(total * 10 + total * (total - 1) / 2, results[StripedLatencyRecorder.TOTAL_LATENCY]);
+		for (int i = 0; i < BUCKETS; i++) {
+			assertEquals(total / BUCKETS, results[recorder.getBucketOffset() + i]);
+		}
+
+		// Draining resets everything
+		recorder.drain(results);
+		assertEquals(0, results[StripedLatencyRecorder.OPERATIONS]);
+		assertEquals(StripedLatencyRecorder.NO_VALUE, results[StripedLatencyRecorder.MIN]);
+		assertEquals(StripedLatencyRecorder.NO_VALUE, results[StripedLatencyRecorder.MAX]);
+	}
+
+	@Test
+	public void testIntervalsAreConsistentWhileRecording() throws Exception {
+		final int writers = 4;
+		final StripedLatencyRecorder recorder = new StripedLatencyRecorder(BUCKETS, 0, 4);
+		final CountDownLatch finished = new CountDownLatch(writers);
+		ExecutorService executors = Executors.newFixedThreadPool(writers);
+		for (int i = 0; i < writers; i++) {
+			executors.execute(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < OPS_PER_THREAD; j++) {
+						recorder.record(j % BUCKETS, -1, 1, 3, 1);
+					}
+					finished.countDown();
+				}
+			});
+		}
+		long[] results = new long[recorder.getWidth()];
+		long totalOperations = 0;
+		boolean done;
+		do {
+			// Read the count first, so the interval drained after the writers finish holds the rest
+			done = finished.getCount() == 0;
+			recorder.drain(results);
+			long operations = results[StripedLatencyRecorder.OPERATIONS];
+			long bucketTotal = 0;
+			for (int j = 0; j < BUCKETS; j++) {
+				bucketTotal += results[recorder.getBucketOffset() + j];
+			}
+			// Every counter in the interval must describe the same operations
+			assertEquals(operations, bucketTotal);
+			assertEquals(operations, results[StripedLatencyRecorder.TOTAL_LATENCY]);
+			assertEquals(operations, results[StripedLatencyRecorder.SUCCESS]);
+			assertEquals(3 * operations, results[StripedLatencyRecorder.COUNT]);
+			totalOperations += operations;
+		} while (!done);
+		assertEquals((long)writers * OPS_PER_THREAD, totalOperations);
+		executors.shutdown();
+		executors.awaitTermination(60, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testStripesAreAllocatedOnFirstUse() {
+		StripedLatencyRecorder recorder = new StripedLatencyRecorder(BUCKETS, 0, 4);
+		long[] results = new long[recorder.getWidth()];
+		recorder.drain(results);
+		assertEquals(0, recorder.getAllocatedStripes());
+		assertEquals(StripedLatencyRecorder.NO_VALUE, results[StripedLatencyRecorder.MIN]);
+
+		recorder.record(0, -1, 5, 1, 1);
+		recorder.record(1, -1, 7, 1, 1);
+		assertEquals(1, recorder.getAllocatedStripes());
+		assertEquals(2, recorder.sum(StripedLatencyRecorder.OPERATIONS));
+		recorder.drain(results);
+		assertEquals(2, results[StripedLatencyRecorder.OPERATIONS]);
+		assertEquals(5, results[StripedLatencyRecorder.MIN]);
+		assertEquals(7, results[StripedLatencyRecorder.MAX]);
+	}
+}